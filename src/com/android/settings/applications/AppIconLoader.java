@@ -0,0 +1,251 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.graphics.drawable.Drawable;
+import android.util.ArrayMap;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.android.settingslib.Utils;
+import com.android.settingslib.applications.AppIconCacheManager;
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Loads the app icons of the app lists in background with a bounded number of threads.
+ *
+ * <p>The loaded icons are kept in the {@link AppIconCacheManager}, which is a bounded LRU cache.
+ * The requests of the same app are coalesced, and a request is cancelled once none of its targets
+ * is waiting for it, e.g. when the view holders are bound to other apps while flinging. The icons
+ * of the next items could be prefetched by {@link #prefetch}, and only the latest
+ * {@link #MAX_PREFETCH_REQUESTS} prefetch requests are kept.
+ *
+ * <p>All methods except {@link #getCachedIcon} must be called in the main thread.
+ */
+public class AppIconLoader {
+    private static final String TAG = "AppIconLoader";
+
+    @VisibleForTesting
+    static final int ICON_LOADER_THREAD_COUNT = 2;
+    @VisibleForTesting
+    static final int MAX_PREFETCH_REQUESTS = 32;
+    private static final long ICON_LOADER_KEEP_ALIVE_SECONDS = 30;
+
+    private static AppIconLoader sInstance;
+
+    private final ExecutorService mExecutor;
+    // The requests which are not finished or cancelled, keyed by their apps.
+    private final Map<String, Request> mRequests = new ArrayMap<>();
+    // The request each target is waiting for.
+    private final Map<Object, Request> mTargetRequests = new ArrayMap<>();
+    // The prefetch requests in the order of their submissions.
+    private final Set<Request> mPrefetchRequests = new LinkedHashSet<>();
+
+    /** Returns the shared instance. */
+    public static synchronized AppIconLoader getInstance() {
+        if (sInstance == null) {
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(ICON_LOADER_THREAD_COUNT,
+                    ICON_LOADER_THREAD_COUNT, ICON_LOADER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>());
+            executor.allowCoreThreadTimeOut(true);
+            sInstance = new AppIconLoader(executor);
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    AppIconLoader(ExecutorService executor) {
+        mExecutor = executor;
+    }
+
+    /** Returns the cached icon of the app, or {@code null} if it's not loaded yet. */
+    @Nullable
+    public static Drawable getCachedIcon(String packageName, int uid) {
+        return AppIconCacheManager.getInstance().get(packageName, uid);
+    }
+
+    /**
+     * Returns a loader of the badged icon of the app, which caches the loaded icon in the
+     * {@link AppIconCacheManager}.
+     */
+    public static Supplier<Drawable> getBadgedIconLoader(Context context, ApplicationInfo info) {
+        final Context appContext = context.getApplicationContext();
+        return () -> {
+            Drawable icon = getCachedIcon(info.packageName, info.uid);
+            if (icon == null) {
+                icon = Utils.getBadgedIcon(appContext, info);
+                AppIconCacheManager.getInstance().put(info.packageName, info.uid, icon);
+            }
+            return icon;
+        };
+    }
+
+    /**
+     * Loads the icon of the app by {@code loader} for the {@code target}, which cancels the
+     * previous request of the {@code target} if it's for another app. The {@code callback} is
+     * called in the main thread once the icon is loaded.
+     */
+    @MainThread
+    public void loadIcon(Object target, String packageName, int uid,
+            Supplier<Drawable> loader, Consumer<Drawable> callback) {
+        final String key = getKey(packageName, uid);
+        final Request boundRequest = mTargetRequests.get(target);
+        if (boundRequest != null && !boundRequest.mKey.equals(key)) {
+            cancel(target);
+        }
+        Request request = mRequests.get(key);
+        final boolean isNewRequest = request == null;
+        if (isNewRequest) {
+            request = new Request(key);
+            mRequests.put(key, request);
+        }
+        request.mCallbacks.put(target, callback);
+        mTargetRequests.put(target, request);
+        if (isNewRequest) {
+            submit(request, loader);
+        }
+    }
+
+    /** Cancels the request of the {@code target}, e.g. when it's bound to an app with icon. */
+    @MainThread
+    public void cancel(Object target) {
+        final Request request = mTargetRequests.remove(target);
+        if (request == null) {
+            return;
+        }
+        request.mCallbacks.remove(target);
+        if (request.mCallbacks.isEmpty() && !mPrefetchRequests.contains(request)) {
+            cancelRequest(request);
+        }
+    }
+
+    /** Loads the icon of the app by {@code loader} in advance if it's not being loaded. */
+    @MainThread
+    public void prefetch(String packageName, int uid, Supplier<Drawable> loader) {
+        final String key = getKey(packageName, uid);
+        if (mRequests.containsKey(key)) {
+            return;
+        }
+        if (mPrefetchRequests.size() >= MAX_PREFETCH_REQUESTS) {
+            // Drop the oldest prefetch request, which is most likely scrolled past.
+            final Iterator<Request> iterator = mPrefetchRequests.iterator();
+            final Request oldestRequest = iterator.next();
+            iterator.remove();
+            if (oldestRequest.mCallbacks.isEmpty()) {
+                cancelRequest(oldestRequest);
+            }
+        }
+        final Request request = new Request(key);
+        mRequests.put(key, request);
+        mPrefetchRequests.add(request);
+        submit(request, loader);
+    }
+
+    /** Cancels the prefetch requests which no target is waiting for. */
+    @MainThread
+    public void cancelPrefetches() {
+        final List<Request> requests = new ArrayList<>(mPrefetchRequests);
+        mPrefetchRequests.clear();
+        for (Request request : requests) {
+            if (request.mCallbacks.isEmpty()) {
+                cancelRequest(request);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    int getPendingRequestCount() {
+        return mRequests.size();
+    }
+
+    private void submit(Request request, Supplier<Drawable> loader) {
+        request.mFuture = mExecutor.submit(() -> {
+            final Drawable icon = loadIcon(request, loader);
+            ThreadUtils.postOnMainThread(() -> onRequestFinished(request, icon));
+        });
+    }
+
+    @WorkerThread
+    @Nullable
+    private static Drawable loadIcon(Request request, Supplier<Drawable> loader) {
+        try {
+            return loader.get();
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Failed to load icon: " + request.mKey, e);
+            return null;
+        }
+    }
+
+    private void onRequestFinished(Request request, @Nullable Drawable icon) {
+        if (request.mIsCancelled) {
+            return;
+        }
+        mRequests.remove(request.mKey);
+        mPrefetchRequests.remove(request);
+        for (Map.Entry<Object, Consumer<Drawable>> entry : request.mCallbacks.entrySet()) {
+            mTargetRequests.remove(entry.getKey());
+            if (icon != null) {
+                entry.getValue().accept(icon);
+            }
+        }
+    }
+
+    private void cancelRequest(Request request) {
+        request.mIsCancelled = true;
+        mRequests.remove(request.mKey);
+        mPrefetchRequests.remove(request);
+        if (request.mFuture != null) {
+            request.mFuture.cancel(false /* mayInterruptIfRunning */);
+        }
+    }
+
+    private static String getKey(String packageName, int uid) {
+        return packageName + ":" + uid;
+    }
+
+    private static final class Request {
+        final String mKey;
+        final Map<Object, Consumer<Drawable>> mCallbacks = new ArrayMap<>();
+        @Nullable
+        Future<?> mFuture;
+        boolean mIsCancelled;
+
+        Request(String key) {
+            mKey = key;
+        }
+    }
+}
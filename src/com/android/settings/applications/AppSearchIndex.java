@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import android.text.TextUtils;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An in-memory index to search the items of an app list by their labels, which is updated
+ * incrementally as the items are added, changed or removed.
+ *
+ * <p>The labels are normalized in the given locale, with the case and the diacritics ignored, and
+ * indexed by all their substrings of up to {@link #GRAM_LENGTH} characters. A query matches the
+ * labels containing it, or the package names containing it if the query contains a dot. It's
+ * thread safe, so the index could be updated and queried in background.
+ *
+ * @param <T> the type of the indexed items, which are identified by their {@code equals()}.
+ */
+public class AppSearchIndex<T> {
+
+    @VisibleForTesting
+    static final int GRAM_LENGTH = 3;
+
+    private final Locale mLocale;
+
+    @GuardedBy("this")
+    private final Map<T, Entry> mEntries = new HashMap<>();
+    // The items whose normalized label contains the key.
+    @GuardedBy("this")
+    private final Map<String, Set<T>> mGrams = new HashMap<>();
+
+    public AppSearchIndex(Locale locale) {
+        mLocale = locale;
+    }
+
+    /** Adds the {@code item}, or updates it if its label or package name is changed. */
+    public synchronized void put(T item, @Nullable CharSequence label,
+            @Nullable String packageName) {
+        final String labelString = label != null ? label.toString() : "";
+        final Entry entry = mEntries.get(item);
+        if (entry != null) {
+            if (entry.mLabel.equals(labelString)
+                    && TextUtils.equals(entry.mPackageName, packageName)) {
+                return;
+            }
+            removeGrams(item, entry.mNormalizedLabel);
+        }
+        final Entry newEntry = new Entry(labelString, normalize(labelString, mLocale),
+                packageName, packageName != null ? normalize(packageName, mLocale) : "");
+        mEntries.put(item, newEntry);
+        addGrams(item, newEntry.mNormalizedLabel);
+    }
+
+    /** Removes the {@code item}. */
+    public synchronized void remove(T item) {
+        final Entry entry = mEntries.remove(item);
+        if (entry != null) {
+            removeGrams(item, entry.mNormalizedLabel);
+        }
+    }
+
+    /** Removes all the items not in {@code items}. */
+    public synchronized void retainAll(Collection<T> items) {
+        final Set<T> itemsToRetain = items instanceof Set ? (Set<T>) items : new HashSet<>(items);
+        final Iterator<Map.Entry<T, Entry>> iterator = mEntries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<T, Entry> mapEntry = iterator.next();
+            if (!itemsToRetain.contains(mapEntry.getKey())) {
+                iterator.remove();
+                removeGrams(mapEntry.getKey(), mapEntry.getValue().mNormalizedLabel);
+            }
+        }
+    }
+
+    /** Returns the number of the indexed items. */
+    public synchronized int size() {
+        return mEntries.size();
+    }
+
+    /** Returns the items matching the {@code query}, or all items if it's empty. */
+    public synchronized Set<T> query(@Nullable CharSequence query) {
+        final String normalizedQuery = query != null ? normalize(query.toString(), mLocale) : "";
+        if (normalizedQuery.isEmpty()) {
+            return new HashSet<>(mEntries.keySet());
+        }
+        final Set<T> result = new HashSet<>();
+        if (normalizedQuery.length() <= GRAM_LENGTH) {
+            final Set<T> items = mGrams.get(normalizedQuery);
+            if (items != null) {
+                result.addAll(items);
+            }
+        } else {
+            // Verify the items containing the rarest gram of the query.
+            Set<T> candidates = null;
+            for (int i = 0; i + GRAM_LENGTH <= normalizedQuery.length(); i++) {
+                final Set<T> items = mGrams.get(
+                        normalizedQuery.substring(i, i + GRAM_LENGTH));
+                if (items == null) {
+                    candidates = null;
+                    break;
+                }
+                if (candidates == null || items.size() < candidates.size()) {
+                    candidates = items;
+                }
+            }
+            if (candidates != null) {
+                for (T item : candidates) {
+                    if (mEntries.get(item).mNormalizedLabel.contains(normalizedQuery)) {
+                        result.add(item);
+                    }
+                }
+            }
+        }
+        if (normalizedQuery.indexOf('.') >= 0) {
+            for (Map.Entry<T, Entry> mapEntry : mEntries.entrySet()) {
+                if (mapEntry.getValue().mNormalizedPackageName.contains(normalizedQuery)) {
+                    result.add(mapEntry.getKey());
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Returns the items in {@code items} matching the {@code query}, in the same order. */
+    public List<T> filter(List<T> items, @Nullable CharSequence query) {
+        final Set<T> matchedItems = query(query);
+        final List<T> result = new ArrayList<>(Math.min(items.size(), matchedItems.size()));
+        for (T item : items) {
+            if (matchedItems.contains(item)) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    /** Normalizes the {@code text} to be searched, the case and the diacritics are ignored. */
+    @VisibleForTesting
+    static String normalize(String text, Locale locale) {
+        final String decomposed = Normalizer.normalize(text.toLowerCase(locale),
+                Normalizer.Form.NFD);
+        final StringBuilder builder = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            final char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    @GuardedBy("this")
+    private void addGrams(T item, String normalizedLabel) {
+        for (String gram : getGrams(normalizedLabel)) {
+            Set<T> items = mGrams.get(gram);
+            if (items == null) {
+                items = new HashSet<>();
+                mGrams.put(gram, items);
+            }
+            items.add(item);
+        }
+    }
+
+    @GuardedBy("this")
+    private void removeGrams(T item, String normalizedLabel) {
+        for (String gram : getGrams(normalizedLabel)) {
+            final Set<T> items = mGrams.get(gram);
+            if (items != null && items.remove(item) && items.isEmpty()) {
+                mGrams.remove(gram);
+            }
+        }
+    }
+
+    private static Set<String> getGrams(String normalizedLabel) {
+        final Set<String> grams = new HashSet<>();
+        for (int i = 0; i < normalizedLabel.length(); i++) {
+            for (int end = i + 1; end <= Math.min(i + GRAM_LENGTH, normalizedLabel.length());
+                    end++) {
+                grams.add(normalizedLabel.substring(i, end));
+            }
+        }
+        return grams;
+    }
+
+    private static final class Entry {
+        final String mLabel;
+        final String mNormalizedLabel;
+        @Nullable
+        final String mPackageName;
+        final String mNormalizedPackageName;
+
+        Entry(String label, String normalizedLabel, @Nullable String packageName,
+                String normalizedPackageName) {
+            mLabel = label;
+            mNormalizedLabel = normalizedLabel;
+            mPackageName = packageName;
+            mNormalizedPackageName = normalizedPackageName;
+        }
+    }
+}
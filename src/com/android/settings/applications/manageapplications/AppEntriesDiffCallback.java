@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.manageapplications;
+
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A DiffCallback to calculate the difference between old and new {@link AppEntry} List.
+ *
+ * <p>The entries are updated in place by ApplicationsState, so their contents are compared by the
+ * signatures taken when each list is published, see {@link #getContentSignatures(List)}.
+ */
+public class AppEntriesDiffCallback extends DiffUtil.Callback {
+
+    private final List<AppEntry> mOldEntries;
+    private final int[] mOldSignatures;
+    private final List<AppEntry> mNewEntries;
+    private final int[] mNewSignatures;
+
+    public AppEntriesDiffCallback(List<AppEntry> oldEntries, int[] oldSignatures,
+            List<AppEntry> newEntries, int[] newSignatures) {
+        mOldEntries = oldEntries;
+        mOldSignatures = oldSignatures;
+        mNewEntries = newEntries;
+        mNewSignatures = newSignatures;
+    }
+
+    @Override
+    public int getOldListSize() {
+        return mOldEntries.size();
+    }
+
+    @Override
+    public int getNewListSize() {
+        return mNewEntries.size();
+    }
+
+    @Override
+    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+        return mOldEntries.get(oldItemPosition).id == mNewEntries.get(newItemPosition).id;
+    }
+
+    @Override
+    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+        return mOldEntries.get(oldItemPosition) == mNewEntries.get(newItemPosition)
+                && mOldSignatures[oldItemPosition] == mNewSignatures[newItemPosition];
+    }
+
+    /** Returns the signatures of the displayed contents of the {@code entries}. */
+    public static int[] getContentSignatures(List<AppEntry> entries) {
+        final int size = entries.size();
+        final int[] signatures = new int[size];
+        for (int i = 0; i < size; i++) {
+            final AppEntry entry = entries.get(i);
+            synchronized (entry) {
+                signatures[i] = Objects.hash(entry.label, entry.size, entry.internalSize,
+                        entry.externalSize, entry.mounted, entry.extraInfo,
+                        entry.info != null ? entry.info.enabled : null,
+                        entry.info != null ? entry.info.flags : null);
+            }
+        }
+        return signatures;
+    }
+}
@@ -88,7 +88,9 @@ import androidx.annotation.VisibleForTesting;
 import androidx.annotation.WorkerThread;
 import androidx.coordinatorlayout.widget.CoordinatorLayout;
 import androidx.core.view.ViewCompat;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.ListUpdateCallback;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.android.internal.compat.IPlatformCompat;
@@ -112,7 +114,9 @@ import com.android.settings.Settings.UsageAccessSettingsActivity;
 import com.android.settings.Settings.WriteSettingsActivity;
 import com.android.settings.SettingsActivity;
 import com.android.settings.Utils;
+import com.android.settings.applications.AppIconLoader;
 import com.android.settings.applications.AppInfoBase;
+import com.android.settings.applications.AppSearchIndex;
 import com.android.settings.applications.AppStateAlarmsAndRemindersBridge;
 import com.android.settings.applications.AppStateAppBatteryUsageBridge;
 import com.android.settings.applications.AppStateAppOpsBridge.PermissionState;
@@ -180,6 +184,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Locale;
 import java.util.Set;
 
 /**
@@ -1248,10 +1253,17 @@ public class ManageApplications extends InstrumentedFragment
         private final AppStateBaseBridge mExtraInfoBridge;
         private final LoadingViewController mLoadingViewController;
         private final IconDrawableFactory mIconDrawableFactory;
+        private final AppIconLoader mIconLoader = AppIconLoader.getInstance();
 
         private AppFilterItem mAppFilter;
         private ArrayList<ApplicationsState.AppEntry> mEntries;
         private ArrayList<ApplicationsState.AppEntry> mOriginalEntries;
+        // The content signatures of mEntries, taken when they're published.
+        private int[] mEntrySignatures;
+        private int mEntriesGeneration;
+        private int mPublishedSortMode = -1;
+        private int mPublishedWhichSize = -1;
+        private int mIconPrefetchStart = RecyclerView.NO_POSITION;
         private boolean mResumed;
         private int mLastSortMode = -1;
         private int mWhichSize = SIZE_TOTAL;
@@ -1270,6 +1282,28 @@ public class ManageApplications extends InstrumentedFragment
         OnScrollListener mOnScrollListener;
         private RecyclerView mRecyclerView;
 
+        private final ListUpdateCallback mListUpdateCallback = new ListUpdateCallback() {
+            @Override
+            public void onInserted(int position, int count) {
+                notifyItemRangeInserted(getItemPosition(position), count);
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                notifyItemRangeRemoved(getItemPosition(position), count);
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                notifyItemMoved(getItemPosition(fromPosition), getItemPosition(toPosition));
+            }
+
+            @Override
+            public void onChanged(int position, int count, @Nullable Object payload) {
+                notifyItemRangeChanged(getItemPosition(position), count, payload);
+            }
+        };
+
 
         public ApplicationsAdapter(ApplicationsState state, ManageApplications manageApplications,
                 AppFilterItem appFilter, Bundle savedInstanceState) {
@@ -1401,6 +1435,8 @@ public class ManageApplications extends InstrumentedFragment
                 if (mExtraInfoBridge != null) {
                     mExtraInfoBridge.pause();
                 }
+                mIconLoader.cancelPrefetches();
+                mIconPrefetchStart = RecyclerView.NO_POSITION;
             }
         }
 
@@ -1602,28 +1638,29 @@ public class ManageApplications extends InstrumentedFragment
                     || filterType == FILTER_APPS_POWER_ALLOWLIST_ALL) {
                 entries = removeDuplicateIgnoringUser(entries);
             }
-            mEntries = entries;
             mOriginalEntries = entries;
-            notifyDataSetChanged();
-            if (getItemCount() == 0) {
-                mLoadingViewController.showEmpty(false /* animate */);
-            } else {
-                mLoadingViewController.showContent(false /* animate */);
+            publishEntries(entries, () -> {
+                if (getItemCount() == 0) {
+                    mLoadingViewController.showEmpty(false /* animate */);
+                } else {
+                    mLoadingViewController.showContent(false /* animate */);
 
-                if (mManageApplications.mSearchView != null
-                        && mManageApplications.mSearchView.isVisibleToUser()) {
-                    final CharSequence query = mManageApplications.mSearchView.getQuery();
-                    if (!TextUtils.isEmpty(query)) {
-                        filterSearch(query.toString());
+                    if (mManageApplications.mSearchView != null
+                            && mManageApplications.mSearchView.isVisibleToUser()) {
+                        final CharSequence query = mManageApplications.mSearchView.getQuery();
+                        if (!TextUtils.isEmpty(query)) {
+                            filterSearch(query.toString());
+                        }
                     }
                 }
-            }
-            // Restore the last scroll position if the number of entries added so far is bigger than
-            // it.
-            if (mLastIndex != -1 && getItemCount() > mLastIndex) {
-                mManageApplications.mRecyclerView.getLayoutManager().scrollToPosition(mLastIndex);
-                mLastIndex = -1;
-            }
+                // Restore the last scroll position if the number of entries added so far is
+                // bigger than it.
+                if (mLastIndex != -1 && getItemCount() > mLastIndex) {
+                    mManageApplications.mRecyclerView.getLayoutManager()
+                            .scrollToPosition(mLastIndex);
+                    mLastIndex = -1;
+                }
+            });
 
             if (mManageApplications.mListType == LIST_TYPE_USAGE_ACCESS) {
                 // No enabled or disabled filters for usage access.
@@ -1634,6 +1671,63 @@ public class ManageApplications extends InstrumentedFragment
             mManageApplications.setHasInstant(mState.haveInstantApps());
         }
 
+        /**
+         * Replaces the displayed entries with {@code entries}, and runs {@code onPublished} once
+         * they're published. If the entries are only partially changed, the difference is
+         * calculated in background and dispatched as the minimal updates, otherwise the whole list
+         * is rebound right away. Only the latest entries are published if it's called again before
+         * the difference is calculated.
+         */
+        private void publishEntries(@Nullable ArrayList<AppEntry> entries,
+                @Nullable Runnable onPublished) {
+            final int generation = ++mEntriesGeneration;
+            final ArrayList<AppEntry> oldEntries = mEntries;
+            final int[] oldSignatures = mEntrySignatures;
+            // The header is shown or hidden with the empty list, and the summaries of all entries
+            // are changed with the sort order or the size type.
+            if (entries == null || entries.isEmpty() || oldEntries == null || oldEntries.isEmpty()
+                    || oldSignatures == null || oldSignatures.length != oldEntries.size()
+                    || mPublishedSortMode != mLastSortMode || mPublishedWhichSize != mWhichSize) {
+                mEntries = entries;
+                mEntrySignatures = entries != null
+                        ? AppEntriesDiffCallback.getContentSignatures(entries) : null;
+                mPublishedSortMode = mLastSortMode;
+                mPublishedWhichSize = mWhichSize;
+                notifyDataSetChanged();
+                if (onPublished != null) {
+                    onPublished.run();
+                }
+                return;
+            }
+            ThreadUtils.postOnBackgroundThread(() -> {
+                final int[] signatures = AppEntriesDiffCallback.getContentSignatures(entries);
+                final DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(
+                        new AppEntriesDiffCallback(oldEntries, oldSignatures, entries,
+                                signatures));
+                ThreadUtils.postOnMainThread(() -> {
+                    if (generation != mEntriesGeneration) {
+                        // Newer entries have been published or are being published.
+                        return;
+                    }
+                    mEntries = entries;
+                    mEntrySignatures = signatures;
+                    diffResult.dispatchUpdatesTo(mListUpdateCallback);
+                    if (onPublished != null) {
+                        onPublished.run();
+                    }
+                });
+            });
+        }
+
+        /** Converts the position in {@link #mEntries} to the item position of the list. */
+        private int getItemPosition(int applicationPosition) {
+            if (mManageApplications.mListType == LIST_TYPE_APPS_LOCALE
+                    || mManageApplications.mListType == LIST_TYPE_CLONED_APPS) {
+                return applicationPosition + 1;
+            }
+            return applicationPosition;
+        }
+
         @VisibleForTesting
         void updateLoading() {
             final boolean appLoaded = mHasReceivedLoadEntries && mSession.getAllApps().size() != 0;
@@ -1805,14 +1899,45 @@ public class ManageApplications extends InstrumentedFragment
         private void updateIcon(ApplicationViewHolder holder, AppEntry entry) {
             final Drawable cachedIcon = AppUtils.getIconFromCache(entry);
             if (cachedIcon != null && entry.mounted) {
+                mIconLoader.cancel(holder);
                 holder.setIcon(cachedIcon);
             } else {
-                ThreadUtils.postOnBackgroundThread(() -> {
-                    final Drawable icon = AppUtils.getIcon(mContext, entry);
-                    if (icon != null) {
-                        ThreadUtils.postOnMainThread(() -> holder.setIcon(icon));
-                    }
-                });
+                mIconLoader.loadIcon(holder, entry.info.packageName, entry.info.uid,
+                        () -> AppUtils.getIcon(mContext, entry), holder::setIcon);
+            }
+        }
+
+        /**
+         * Prefetches the icons of the next screenful of apps in the scrolling direction, which are
+         * not cached yet.
+         */
+        @VisibleForTesting
+        void prefetchIcons(LinearLayoutManager layoutManager, boolean scrollingDown) {
+            final int firstPosition = layoutManager.findFirstVisibleItemPosition();
+            final int lastPosition = layoutManager.findLastVisibleItemPosition();
+            if (mEntries == null || firstPosition == RecyclerView.NO_POSITION) {
+                return;
+            }
+            final int visibleCount = lastPosition - firstPosition + 1;
+            final int start = scrollingDown ? lastPosition + 1 : firstPosition - visibleCount;
+            if (start == mIconPrefetchStart) {
+                return;
+            }
+            mIconPrefetchStart = start;
+            for (int position = Math.max(start, 0); position < start + visibleCount; position++) {
+                final int applicationPosition =
+                        getApplicationPosition(mManageApplications.mListType, position);
+                if (applicationPosition == RecyclerView.NO_POSITION
+                        || applicationPosition >= mEntries.size()) {
+                    continue;
+                }
+                final AppEntry entry = mEntries.get(applicationPosition);
+                if (entry.info == null
+                        || (AppUtils.getIconFromCache(entry) != null && entry.mounted)) {
+                    continue;
+                }
+                mIconLoader.prefetch(entry.info.packageName, entry.info.uid,
+                        () -> AppUtils.getIcon(mContext, entry));
             }
         }
 
@@ -1965,6 +2090,14 @@ public class ManageApplications extends InstrumentedFragment
                 }
             }
 
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy != 0 && recyclerView.getLayoutManager() instanceof LinearLayoutManager) {
+                    mAdapter.prefetchIcons((LinearLayoutManager) recyclerView.getLayoutManager(),
+                            dy > 0 /* scrollingDown */);
+                }
+            }
+
             public void postNotifyItemChange(int index) {
                 if (mScrollState == SCROLL_STATE_IDLE) {
                     mAdapter.notifyItemChanged(index);
@@ -1979,19 +2112,22 @@ public class ManageApplications extends InstrumentedFragment
          * Item that does not contains the specified substring will be removed from the list.</p>
          */
         private class SearchFilter extends Filter {
+            private final AppSearchIndex<AppEntry> mSearchIndex =
+                    new AppSearchIndex<>(Locale.getDefault());
+            // The entries indexed in mSearchIndex, which is only accessed in the filter thread.
+            private ArrayList<AppEntry> mIndexedEntries;
+
             @WorkerThread
             @Override
             protected FilterResults performFiltering(CharSequence query) {
+                final ArrayList<ApplicationsState.AppEntry> originalEntries = mOriginalEntries;
                 final ArrayList<ApplicationsState.AppEntry> matchedEntries;
                 if (TextUtils.isEmpty(query)) {
-                    matchedEntries = mOriginalEntries;
+                    matchedEntries = originalEntries;
                 } else {
-                    matchedEntries = new ArrayList<>();
-                    for (ApplicationsState.AppEntry entry : mOriginalEntries) {
-                        if (entry.label.toLowerCase().contains(query.toString().toLowerCase())) {
-                            matchedEntries.add(entry);
-                        }
-                    }
+                    updateSearchIndex(originalEntries);
+                    matchedEntries = new ArrayList<>(
+                            mSearchIndex.filter(originalEntries, query));
                 }
                 final FilterResults results = new FilterResults();
                 results.values = matchedEntries;
@@ -1999,10 +2135,24 @@ public class ManageApplications extends InstrumentedFragment
                 return results;
             }
 
+            @WorkerThread
+            private void updateSearchIndex(ArrayList<AppEntry> entries) {
+                if (entries == mIndexedEntries) {
+                    return;
+                }
+                // Only the added, changed or removed entries are updated in the index.
+                for (AppEntry entry : entries) {
+                    mSearchIndex.put(entry, entry.label,
+                            entry.info != null ? entry.info.packageName : null);
+                }
+                mSearchIndex.retainAll(entries);
+                mIndexedEntries = entries;
+            }
+
             @Override
             protected void publishResults(CharSequence constraint, FilterResults results) {
-                mEntries = (ArrayList<ApplicationsState.AppEntry>) results.values;
-                notifyDataSetChanged();
+                publishEntries((ArrayList<ApplicationsState.AppEntry>) results.values,
+                        null /* onPublished */);
             }
         }
     }
@@ -31,6 +31,7 @@ import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import androidx.preference.Preference;
 import androidx.preference.PreferenceScreen;
 
@@ -120,6 +121,10 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
      */
     public static final int DISABLED_DEPENDENT_SETTING = 5;
 
+    /** Whether to create the controllers through the generated factories instead of reflection. */
+    @VisibleForTesting
+    static boolean sGeneratedFactoriesEnabled = true;
+
     @NonNull
     protected final String mPreferenceKey;
     @Nullable
@@ -134,10 +139,23 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
     /**
      * Instantiate a controller as specified controller type and user-defined key.
      * <p/>
-     * This is done through reflection. Do not use this method unless you know what you are doing.
+     * This is done through the generated factories, or reflection for the controllers not
+     * generated. Do not use this method unless you know what you are doing.
      */
     public static BasePreferenceController createInstance(Context context,
             String controllerName, String key) {
+        if (sGeneratedFactoriesEnabled) {
+            final BasePreferenceController controller;
+            try {
+                controller = PreferenceControllerFactories.create(controllerName, context, key);
+            } catch (RuntimeException e) {
+                throw new IllegalStateException(
+                        "Invalid preference controller: " + controllerName, e);
+            }
+            if (controller != null) {
+                return controller;
+            }
+        }
         try {
             final Class<?> clazz = Class.forName(controllerName);
             final Constructor<?> preferenceConstructor =
@@ -154,9 +172,22 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
     /**
      * Instantiate a controller as specified controller type.
      * <p/>
-     * This is done through reflection. Do not use this method unless you know what you are doing.
+     * This is done through the generated factories, or reflection for the controllers not
+     * generated. Do not use this method unless you know what you are doing.
      */
     public static BasePreferenceController createInstance(Context context, String controllerName) {
+        if (sGeneratedFactoriesEnabled) {
+            final BasePreferenceController controller;
+            try {
+                controller = PreferenceControllerFactories.create(controllerName, context);
+            } catch (RuntimeException e) {
+                throw new IllegalStateException(
+                        "Invalid preference controller: " + controllerName, e);
+            }
+            if (controller != null) {
+                return controller;
+            }
+        }
         try {
             final Class<?> clazz = Class.forName(controllerName);
             final Constructor<?> preferenceConstructor = clazz.getConstructor(Context.class);
@@ -172,7 +203,8 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
     /**
      * Instantiate a controller as specified controller type and work profile
      * <p/>
-     * This is done through reflection. Do not use this method unless you know what you are doing.
+     * This is done through the generated factories, or reflection for the controllers not
+     * generated. Do not use this method unless you know what you are doing.
      *
      * @param context        application context
      * @param controllerName class name of the {@link BasePreferenceController}
@@ -181,19 +213,48 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
      */
     public static BasePreferenceController createInstance(Context context, String controllerName,
             String key, boolean isWorkProfile) {
+        final BasePreferenceController controller = createInstance(context, controllerName, key);
+        controller.setForWork(isWorkProfile);
+        return controller;
+    }
+
+    /**
+     * Instantiates a controller defined in preference xml through the factories generated at build
+     * time, with the (Context) constructor if any, otherwise or if it fails with the
+     * (Context, String) one.
+     *
+     * @return {@code null} if the controller is not generated or can't be created by the generated
+     *     factories, then reflection is required
+     */
+    @Nullable
+    static BasePreferenceController createGeneratedInstance(Context context,
+            String controllerName, @Nullable String key, boolean isWorkProfile) {
+        if (!sGeneratedFactoriesEnabled) {
+            return null;
+        }
         try {
-            final Class<?> clazz = Class.forName(controllerName);
-            final Constructor<?> preferenceConstructor =
-                    clazz.getConstructor(Context.class, String.class);
-            final Object[] params = new Object[]{context, key};
             final BasePreferenceController controller =
-                    (BasePreferenceController) preferenceConstructor.newInstance(params);
-            controller.setForWork(isWorkProfile);
+                    PreferenceControllerFactories.create(controllerName, context);
+            if (controller != null) {
+                return controller;
+            }
+        } catch (RuntimeException e) {
+            Log.d(TAG, "Cannot instantiate generated Context-only controller: " + controllerName,
+                    e);
+        }
+        if (TextUtils.isEmpty(key)) {
+            return null;
+        }
+        try {
+            final BasePreferenceController controller =
+                    PreferenceControllerFactories.create(controllerName, context, key);
+            if (controller != null) {
+                controller.setForWork(isWorkProfile);
+            }
             return controller;
-        } catch (ClassNotFoundException | NoSuchMethodException | InstantiationException
-                | IllegalArgumentException | InvocationTargetException | IllegalAccessException e) {
-            throw new IllegalStateException(
-                    "Invalid preference controller: " + controllerName, e);
+        } catch (RuntimeException e) {
+            Log.d(TAG, "Cannot instantiate generated controller: " + controllerName, e);
+            return null;
         }
     }
 
@@ -422,6 +483,32 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
     public interface UiBlocker {
     }
 
+    /**
+     * Used for {@link BasePreferenceController} to compute its preference state off the main
+     * thread when the page is resumed, which is typically the queries to system services.
+     *
+     * {@link BasePreferenceController#isAvailable()} and {@link #computeState()} are called on a
+     * background thread in parallel with other controllers, so they must not touch the UI or any
+     * state shared with the main thread. Then {@link #applyState(Preference, Object)} is called
+     * on the main thread together with other controllers once all states are computed.
+     *
+     * {@link BasePreferenceController#updateState(Preference)} is still used by other callers,
+     * e.g. Slices, so controllers should keep it as {@code applyState(preference, computeState())}.
+     *
+     * Implemented by a {@link BasePreferenceController} subclass to compute its state off the UI
+     * thread.
+     *
+     * @param <T> the state computed in background
+     */
+    public interface BackgroundStateUpdater<T> {
+        /** Computes the preference state on a background thread. */
+        @Nullable
+        T computeState();
+
+        /** Applies the state returned by {@link #computeState()} on the main thread. */
+        void applyState(@NonNull Preference preference, @Nullable T state);
+    }
+
     /**
      * Set the metrics category of the parent fragment.
      *
@@ -77,9 +77,15 @@ public class CategoryMixin implements LifecycleObserver {
         mContext.registerReceiver(mPackageReceiver, filter);
 
         if (mFirstOnResume) {
+            mFirstOnResume = false;
+            if (CategoryManager.get(mContext).isLoadedFromSnapshot()) {
+                // Validate the tiles loaded from the snapshot, and only refresh the changed ones.
+                Log.d(TAG, "Refresh categories loaded from snapshot");
+                updateCategories(true /* fromBroadcast */);
+                return;
+            }
             // Skip since all tiles have been refreshed in DashboardFragment.onCreatePreferences().
             Log.d(TAG, "Skip categories update");
-            mFirstOnResume = false;
             return;
         }
         updateCategories();
@@ -70,15 +70,21 @@ public class PreferenceControllerListHelper {
             if (TextUtils.isEmpty(controllerName)) {
                 continue;
             }
-            BasePreferenceController controller;
+            final String key = metadata.getString(METADATA_KEY);
+            final boolean isWorkProfile = metadata.getBoolean(METADATA_FOR_WORK, false);
+            // Skips the reflective lookup of both constructors for the generated controllers.
+            BasePreferenceController controller = BasePreferenceController.createGeneratedInstance(
+                    context, controllerName, key, isWorkProfile);
+            if (controller != null) {
+                controllers.add(controller);
+                continue;
+            }
             try {
                 controller = BasePreferenceController.createInstance(context, controllerName);
             } catch (IllegalStateException e) {
                 if (Log.isLoggable(TAG, Log.DEBUG)) {
                     Log.d(TAG, "Could not find Context-only controller for pref: " + controllerName);
                 }
-                final String key = metadata.getString(METADATA_KEY);
-                final boolean isWorkProfile = metadata.getBoolean(METADATA_FOR_WORK, false);
                 if (TextUtils.isEmpty(key)) {
                     Log.w(TAG, "Controller requires key but it's not defined in xml: "
                             + controllerName);
@@ -18,16 +18,20 @@ package com.android.settings.core;
 
 import android.annotation.XmlRes;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
 import android.content.res.XmlResourceParser;
 import android.os.Bundle;
 import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.util.LruCache;
 import android.util.Xml;
 
 import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.R;
 
@@ -55,6 +59,16 @@ public class PreferenceXmlParserUtils {
     public static final int PREPEND_VALUE = 0;
     public static final int APPEND_VALUE = 1;
 
+    /**
+     * Max number of metadata lists cached in process, which covers the preference xml used by
+     * the dashboard, search and slice indexing without keeping all flags of all screens.
+     */
+    @VisibleForTesting
+    static final int METADATA_CACHE_SIZE = 128;
+
+    private static final LruCache<String, List<Bundle>> sMetadataCache =
+            new LruCache<>(METADATA_CACHE_SIZE);
+
     /**
      * Flag definition to indicate which metadata should be extracted when
      * {@link #extractMetadata(Context, int, int)} is called. The flags can be combined by using |
@@ -117,11 +131,51 @@ public class PreferenceXmlParserUtils {
     @NonNull
     public static List<Bundle> extractMetadata(Context context, @XmlRes int xmlResId, int flags)
             throws IOException, XmlPullParserException {
-        final List<Bundle> metadata = new ArrayList<>();
         if (xmlResId <= 0) {
             Log.d(TAG, xmlResId + " is invalid.");
-            return metadata;
+            return new ArrayList<>();
+        }
+        final String cacheKey = getMetadataCacheKey(context, xmlResId, flags);
+        List<Bundle> metadata = cacheKey != null ? sMetadataCache.get(cacheKey) : null;
+        if (metadata == null) {
+            metadata = parseMetadata(context, xmlResId, flags);
+            if (cacheKey != null) {
+                sMetadataCache.put(cacheKey, metadata);
+            }
+        }
+        // Copies the cached metadata since callers are free to modify the returned list.
+        final List<Bundle> result = new ArrayList<>(metadata.size());
+        for (Bundle bundle : metadata) {
+            result.add(new Bundle(bundle));
+        }
+        return result;
+    }
+
+    /** Clears the metadata parsed from preference xml and cached in this process. */
+    @VisibleForTesting
+    static void clearMetadataCache() {
+        sMetadataCache.evictAll();
+    }
+
+    /**
+     * Gets the key of the cached metadata, the metadata is the same for the same xml, flags and
+     * the resource configuration of the package.
+     *
+     * @return {@code null} if the metadata can't be cached, e.g. resources without configuration
+     */
+    @Nullable
+    private static String getMetadataCacheKey(Context context, @XmlRes int xmlResId, int flags) {
+        final Configuration configuration = context.getResources().getConfiguration();
+        if (configuration == null) {
+            return null;
         }
+        return context.getPackageName() + "/" + xmlResId + "/" + flags + "/"
+                + Configuration.resourceQualifierString(configuration);
+    }
+
+    private static List<Bundle> parseMetadata(Context context, @XmlRes int xmlResId, int flags)
+            throws IOException, XmlPullParserException {
+        final List<Bundle> metadata = new ArrayList<>();
         final XmlResourceParser parser = context.getResources().getXml(xmlResId);
 
         int type;
@@ -23,6 +23,7 @@ import android.util.ArraySet;
 import android.util.Log;
 import android.util.Pair;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.homepage.HighlightableMenu;
@@ -33,17 +34,27 @@ import com.android.settingslib.drawer.DashboardCategory;
 import com.android.settingslib.drawer.ProviderTile;
 import com.android.settingslib.drawer.Tile;
 import com.android.settingslib.drawer.TileUtils;
+import com.android.settingslib.utils.ThreadUtils;
 
 import com.google.android.setupcompat.util.WizardManagerHelper;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Loads and caches the tiles injected into the Settings dashboard.
+ *
+ * <p>The loaded categories are published as an immutable {@link State} via an atomic reference.
+ * Reads never block on a reload: a reload or a deny list update builds a new state under the lock
+ * and then replaces the published one, and readers keep using the state they got meanwhile.
+ */
 public class CategoryManager {
 
     private static final String TAG = "CategoryManager";
@@ -52,13 +63,12 @@ public class CategoryManager {
     private static CategoryManager sInstance;
     private final InterestingConfigChanges mInterestingConfigChanges;
 
-    // Tile cache (key: <packageName, activityName>, value: tile)
+    // Tile cache (key: <packageName, activityName>, value: tile), only accessed by the loaders.
     private final Map<Pair<String, String>, Tile> mTileByComponentCache;
 
-    // Tile cache (key: category key, value: category)
-    private final Map<String, DashboardCategory> mCategoryByKeyMap;
+    private final CategorySnapshotStore mSnapshotStore;
 
-    private List<DashboardCategory> mCategories;
+    private final AtomicReference<State> mState = new AtomicReference<>();
 
     public static CategoryManager get(Context context) {
         if (sInstance == null) {
@@ -69,30 +79,39 @@ public class CategoryManager {
 
     CategoryManager(Context context) {
         mTileByComponentCache = new ArrayMap<>();
-        mCategoryByKeyMap = new ArrayMap<>();
         mInterestingConfigChanges = new InterestingConfigChanges();
         mInterestingConfigChanges.applyNewConfig(context.getResources());
+        mSnapshotStore = new CategorySnapshotStore();
     }
 
-    public synchronized DashboardCategory getTilesByCategory(Context context, String categoryKey) {
-        tryInitCategories(context);
-
-        return mCategoryByKeyMap.get(categoryKey);
+    public DashboardCategory getTilesByCategory(Context context, String categoryKey) {
+        final State state = getOrInitState(context);
+        return state != null ? state.mCategoryByKeyMap.get(categoryKey) : null;
     }
 
-    public synchronized List<DashboardCategory> getCategories(Context context) {
+    public List<DashboardCategory> getCategories(Context context) {
         if (!WizardManagerHelper.isUserSetupComplete(context)) {
             return new ArrayList<>();
         }
-        tryInitCategories(context);
-        return mCategories;
+        final State state = getOrInitState(context);
+        return state != null ? state.mCategories : null;
     }
 
     public synchronized void reloadAllCategories(Context context) {
         final boolean forceClearCache = mInterestingConfigChanges.applyNewConfig(
                 context.getResources());
-        mCategories = null;
-        tryInitCategories(context, forceClearCache);
+        // Keep publishing the current state to the readers until the new one is loaded.
+        tryInitCategories(context, forceClearCache, true /* reload */);
+    }
+
+    /**
+     * Returns whether the categories are loaded from the snapshot persisted by the last process,
+     * which have to be refreshed by {@link #reloadAllCategories(Context)} to pick up the tiles of
+     * newly installed packages.
+     */
+    public boolean isLoadedFromSnapshot() {
+        final State state = mState.get();
+        return state != null && state.mIsLoadedFromSnapshot;
     }
 
     /**
@@ -100,29 +119,53 @@ public class CategoryManager {
      * @param tileDenylist
      */
     public synchronized void updateCategoryFromDenylist(Set<ComponentName> tileDenylist) {
-        if (mCategories == null) {
+        final State state = mState.get();
+        if (state == null) {
             Log.w(TAG, "Category is null, skipping denylist update");
             return;
         }
-        for (int i = 0; i < mCategories.size(); i++) {
-            DashboardCategory category = mCategories.get(i);
-            for (int j = 0; j < category.getTilesCount(); j++) {
-                Tile tile = category.getTile(j);
-                if (tileDenylist.contains(tile.getIntent().getComponent())) {
-                    category.removeTile(j--);
+        // Copy on write, the published categories are never modified.
+        final Map<DashboardCategory, DashboardCategory> copies = new ArrayMap<>();
+        for (DashboardCategory category : state.mCategoryByKeyMap.values()) {
+            final DashboardCategory copy = new DashboardCategory(category.key);
+            for (Tile tile : category.getTiles()) {
+                if (!tileDenylist.contains(tile.getIntent().getComponent())) {
+                    copy.addTile(tile);
                 }
             }
+            copies.put(category, copy);
+        }
+        final List<DashboardCategory> categories = new ArrayList<>();
+        for (DashboardCategory category : state.mCategories) {
+            categories.add(copies.get(category));
         }
+        final Map<String, DashboardCategory> categoryByKeyMap = new ArrayMap<>();
+        for (DashboardCategory copy : copies.values()) {
+            categoryByKeyMap.put(copy.key, copy);
+        }
+        mState.set(new State(categories, categoryByKeyMap, state.mIsLoadedFromSnapshot));
+    }
+
+    /** Publishes the {@code categories} as if they were loaded. */
+    @VisibleForTesting
+    synchronized void setCategories(List<DashboardCategory> categories) {
+        final Map<String, DashboardCategory> categoryByKeyMap = new ArrayMap<>();
+        for (DashboardCategory category : categories) {
+            categoryByKeyMap.put(category.key, category);
+        }
+        mState.set(new State(new ArrayList<>(categories), categoryByKeyMap,
+                false /* isLoadedFromSnapshot */));
     }
 
     /** Return the current tile map */
-    public synchronized Map<ComponentName, Tile> getTileByComponentMap() {
+    public Map<ComponentName, Tile> getTileByComponentMap() {
         final Map<ComponentName, Tile> result = new ArrayMap<>();
-        if (mCategories == null) {
+        final State state = mState.get();
+        if (state == null) {
             Log.w(TAG, "Category is null, no tiles");
             return result;
         }
-        mCategories.forEach(category -> {
+        state.mCategories.forEach(category -> {
             for (int i = 0; i < category.getTilesCount(); i++) {
                 final Tile tile = category.getTile(i);
                 result.put(tile.getIntent().getComponent(), tile);
@@ -140,49 +183,89 @@ public class CategoryManager {
         }
     }
 
-    private synchronized void tryInitCategories(Context context) {
+    @Nullable
+    private State getOrInitState(Context context) {
+        final State state = mState.get();
+        if (state != null) {
+            return state;
+        }
         // Keep cached tiles by default. The cache is only invalidated when InterestingConfigChange
         // happens.
-        tryInitCategories(context, false /* forceClearCache */);
+        tryInitCategories(context, false /* forceClearCache */, false /* reload */);
+        return mState.get();
     }
 
-    private synchronized void tryInitCategories(Context context, boolean forceClearCache) {
+    private synchronized void tryInitCategories(Context context, boolean forceClearCache,
+            boolean reload) {
         if (!WizardManagerHelper.isUserSetupComplete(context)) {
             // Don't init while setup wizard is still running.
             return;
         }
-        if (mCategories == null) {
-            final boolean firstLoading = mCategoryByKeyMap.isEmpty();
+        final State currentState = mState.get();
+        if (currentState != null && !reload) {
+            // Loaded by another thread while waiting for the lock.
+            return;
+        }
+        final boolean firstLoading = currentState == null;
+        final CategorySnapshotStore.Snapshot snapshot =
+                firstLoading ? mSnapshotStore.load(context) : null;
+        final List<DashboardCategory> categories;
+        final Map<String, DashboardCategory> categoryByKeyMap = new ArrayMap<>();
+        if (snapshot != null) {
+            // The tiles in the snapshot have been processed before persisted.
+            categories = snapshot.mCategories;
+            for (DashboardCategory category : categories) {
+                categoryByKeyMap.put(category.key, category);
+            }
+            for (DashboardCategory category : snapshot.mUnlistedCategories) {
+                categoryByKeyMap.put(category.key, category);
+            }
+        } else {
             if (forceClearCache) {
                 mTileByComponentCache.clear();
             }
-            mCategoryByKeyMap.clear();
-            mCategories = TileUtils.getCategories(context, mTileByComponentCache);
-            for (DashboardCategory category : mCategories) {
-                mCategoryByKeyMap.put(category.key, category);
+            categories = TileUtils.getCategories(context, mTileByComponentCache);
+            for (DashboardCategory category : categories) {
+                categoryByKeyMap.put(category.key, category);
             }
-            backwardCompatCleanupForCategory(mTileByComponentCache, mCategoryByKeyMap);
-            mergeSecurityPrivacyKeys(context, mTileByComponentCache, mCategoryByKeyMap);
-            sortCategories(context, mCategoryByKeyMap);
-            filterDuplicateTiles(mCategoryByKeyMap);
-            if (firstLoading) {
-                logTiles(context);
-
-                final DashboardCategory homepageCategory = mCategoryByKeyMap.get(
-                        CategoryKey.CATEGORY_HOMEPAGE);
-                if (homepageCategory == null) {
-                    return;
-                }
-                for (Tile tile : homepageCategory.getTiles()) {
-                    final String key = tile.getKey(context);
-                    if (TextUtils.isEmpty(key)) {
-                        Log.w(TAG, "Key hint missing for homepage tile: " + tile.getTitle(context));
-                        continue;
-                    }
-                    HighlightableMenu.addMenuKey(key);
+            backwardCompatCleanupForCategory(mTileByComponentCache, categoryByKeyMap);
+            mergeSecurityPrivacyKeys(context, mTileByComponentCache, categoryByKeyMap);
+            sortCategories(context, categoryByKeyMap);
+            filterDuplicateTiles(categoryByKeyMap);
+            saveSnapshot(context, categories, categoryByKeyMap);
+        }
+        mState.set(new State(categories, categoryByKeyMap, snapshot != null));
+        if (firstLoading) {
+            logTiles(context);
+
+            final DashboardCategory homepageCategory = categoryByKeyMap.get(
+                    CategoryKey.CATEGORY_HOMEPAGE);
+            if (homepageCategory == null) {
+                return;
+            }
+            for (Tile tile : homepageCategory.getTiles()) {
+                final String key = tile.getKey(context);
+                if (TextUtils.isEmpty(key)) {
+                    Log.w(TAG, "Key hint missing for homepage tile: " + tile.getTitle(context));
+                    continue;
                 }
+                HighlightableMenu.addMenuKey(key);
+            }
+        }
+    }
+
+    private void saveSnapshot(Context context, List<DashboardCategory> categories,
+            Map<String, DashboardCategory> categoryByKeyMap) {
+        final List<DashboardCategory> unlistedCategories = new ArrayList<>();
+        for (DashboardCategory category : categoryByKeyMap.values()) {
+            if (!categories.contains(category)) {
+                unlistedCategories.add(category);
             }
         }
+        // Marshalls the tiles before they are published, and writes in background.
+        mSnapshotStore.prepare(context, categories, unlistedCategories);
+        final Context appContext = context.getApplicationContext();
+        ThreadUtils.postOnBackgroundThread(() -> mSnapshotStore.write(appContext));
     }
 
     @VisibleForTesting
@@ -312,4 +395,20 @@ public class CategoryManager {
             }
         }
     }
+
+    /** The immutable categories published to the readers. */
+    private static final class State {
+        final List<DashboardCategory> mCategories;
+        // Category cache (key: category key, value: category)
+        final Map<String, DashboardCategory> mCategoryByKeyMap;
+        // Whether the categories are loaded from the persisted snapshot and not refreshed yet.
+        final boolean mIsLoadedFromSnapshot;
+
+        State(List<DashboardCategory> categories, Map<String, DashboardCategory> categoryByKeyMap,
+                boolean isLoadedFromSnapshot) {
+            mCategories = Collections.unmodifiableList(categories);
+            mCategoryByKeyMap = Collections.unmodifiableMap(categoryByKeyMap);
+            mIsLoadedFromSnapshot = isLoadedFromSnapshot;
+        }
+    }
 }
@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.Parcel;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settings.safetycenter.SafetyCenterManagerWrapper;
+import com.android.settingslib.drawer.DashboardCategory;
+import com.android.settingslib.drawer.Tile;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Persists the processed {@link DashboardCategory} list across process restarts, so the injected
+ * tiles could be shown without querying all packages again on a cold start.
+ *
+ * <p>The snapshot is keyed by the build, the locales, the Settings app and the version of each
+ * package providing tiles, and it is dropped if any of them is changed. Packages installed after
+ * the snapshot was saved are not detected here, so the loaded tiles must still be refreshed in
+ * background.
+ */
+class CategorySnapshotStore {
+    private static final String TAG = "CategorySnapshotStore";
+
+    @VisibleForTesting
+    static final String SNAPSHOT_FILE_NAME = "dashboard_category_snapshot";
+
+    // Bump the version whenever the snapshot format or the tile processing is changed.
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final AtomicReference<byte[]> mPendingData = new AtomicReference<>();
+
+    @GuardedBy("this")
+    @Nullable
+    private AtomicFile mFile;
+
+    /** The categories loaded from the snapshot. */
+    static class Snapshot {
+        /** The categories returned by {@link CategoryManager#getCategories(Context)}. */
+        final List<DashboardCategory> mCategories;
+        /** The categories only created while processing the tiles, which are not listed. */
+        final List<DashboardCategory> mUnlistedCategories;
+
+        Snapshot(List<DashboardCategory> categories, List<DashboardCategory> unlistedCategories) {
+            mCategories = categories;
+            mUnlistedCategories = unlistedCategories;
+        }
+    }
+
+    /** Loads the snapshot, returns {@code null} if it's not found or not valid anymore. */
+    @Nullable
+    Snapshot load(Context context) {
+        final byte[] data;
+        try {
+            data = getFile(context).readFully();
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to read snapshot", e);
+            return null;
+        }
+        final Parcel parcel = Parcel.obtain();
+        try {
+            parcel.unmarshall(data, 0, data.length);
+            parcel.setDataPosition(0);
+            if (parcel.readInt() != SNAPSHOT_VERSION
+                    || !getEnvironmentKey(context).equals(parcel.readString())) {
+                Log.d(TAG, "Snapshot environment changed");
+                delete(context);
+                return null;
+            }
+            final PackageManager packageManager = context.getPackageManager();
+            final int packageCount = parcel.readInt();
+            for (int i = 0; i < packageCount; i++) {
+                final String packageName = parcel.readString();
+                final String packageVersion = parcel.readString();
+                if (!packageVersion.equals(getPackageVersion(packageManager, packageName))) {
+                    Log.d(TAG, "Snapshot package changed: " + packageName);
+                    delete(context);
+                    return null;
+                }
+            }
+            return new Snapshot(parcel.createTypedArrayList(DashboardCategory.CREATOR),
+                    parcel.createTypedArrayList(DashboardCategory.CREATOR));
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Invalid snapshot", e);
+            delete(context);
+            return null;
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    /**
+     * Marshalls the categories for {@link #write(Context)}, which must be called while the
+     * categories are not being modified.
+     */
+    void prepare(Context context, List<DashboardCategory> categories,
+            Collection<DashboardCategory> unlistedCategories) {
+        final Set<String> packageNames = new TreeSet<>();
+        packageNames.add(context.getPackageName());
+        addTilePackages(packageNames, categories);
+        addTilePackages(packageNames, unlistedCategories);
+
+        final PackageManager packageManager = context.getPackageManager();
+        final Parcel parcel = Parcel.obtain();
+        try {
+            parcel.writeInt(SNAPSHOT_VERSION);
+            parcel.writeString(getEnvironmentKey(context));
+            parcel.writeInt(packageNames.size());
+            for (String packageName : packageNames) {
+                final String packageVersion = getPackageVersion(packageManager, packageName);
+                if (packageVersion == null) {
+                    // The snapshot would never be valid, so don't persist it.
+                    mPendingData.set(null);
+                    return;
+                }
+                parcel.writeString(packageName);
+                parcel.writeString(packageVersion);
+            }
+            parcel.writeTypedList(categories);
+            parcel.writeTypedList(List.copyOf(unlistedCategories));
+            mPendingData.set(parcel.marshall());
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Failed to marshall snapshot", e);
+            mPendingData.set(null);
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    /** Writes the latest data prepared by {@link #prepare}, should be called in background. */
+    synchronized void write(Context context) {
+        final byte[] data = mPendingData.getAndSet(null);
+        if (data == null) {
+            return;
+        }
+        final AtomicFile file = getFile(context);
+        FileOutputStream out = null;
+        try {
+            out = file.startWrite();
+            out.write(data);
+            file.finishWrite(out);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write snapshot", e);
+            file.failWrite(out);
+        }
+    }
+
+    /** Deletes the persisted snapshot. */
+    synchronized void delete(Context context) {
+        mPendingData.set(null);
+        getFile(context).delete();
+    }
+
+    private synchronized AtomicFile getFile(Context context) {
+        if (mFile == null) {
+            mFile = new AtomicFile(new File(context.getCacheDir(), SNAPSHOT_FILE_NAME));
+        }
+        return mFile;
+    }
+
+    private static void addTilePackages(Set<String> packageNames,
+            Collection<DashboardCategory> categories) {
+        for (DashboardCategory category : categories) {
+            for (Tile tile : category.getTiles()) {
+                packageNames.add(tile.getPackageName());
+            }
+        }
+    }
+
+    private static String getEnvironmentKey(Context context) {
+        return Build.FINGERPRINT + "|"
+                + context.getResources().getConfiguration().getLocales().toLanguageTags() + "|"
+                + SafetyCenterManagerWrapper.get().isEnabled(context);
+    }
+
+    @Nullable
+    private static String getPackageVersion(PackageManager packageManager, String packageName) {
+        try {
+            final PackageInfo packageInfo = packageManager.getPackageInfo(packageName,
+                    /* flags= */ 0);
+            return packageInfo.getLongVersionCode() + "@" + packageInfo.lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            return null;
+        }
+    }
+}
@@ -340,9 +340,8 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
             final Map<String, IContentProvider> providerMap = new ArrayMap<>();
             final String titleFromUri = TileUtils.getTextFromUri(
                     mContext, uri, providerMap, META_DATA_PREFERENCE_TITLE);
-            if (!TextUtils.equals(titleFromUri, preference.getTitle())) {
-                observer.post(() -> preference.setTitle(titleFromUri));
-            }
+            // Always posts to report the data loaded, Preference ignores the same title.
+            observer.post(() -> preference.setTitle(titleFromUri));
         });
     }
 
@@ -370,9 +369,8 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
             final Map<String, IContentProvider> providerMap = new ArrayMap<>();
             final String summaryFromUri = TileUtils.getTextFromUri(
                     mContext, uri, providerMap, META_DATA_PREFERENCE_SUMMARY);
-            if (!TextUtils.equals(summaryFromUri, preference.getSummary())) {
-                observer.post(() -> preference.setSummary(summaryFromUri));
-            }
+            // Always posts to report the data loaded, Preference ignores the same summary.
+            observer.post(() -> preference.setSummary(summaryFromUri));
         });
     }
 
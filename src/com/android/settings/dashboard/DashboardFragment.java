@@ -24,6 +24,7 @@ import android.os.Bundle;
 import android.preference.PreferenceManager.OnActivityResultListener;
 import android.text.TextUtils;
 import android.util.ArrayMap;
+import android.util.EventLog;
 import android.util.Log;
 import android.view.View;
 
@@ -40,6 +41,7 @@ import androidx.preference.PreferenceManager;
 import androidx.preference.PreferenceScreen;
 import androidx.preference.SwitchPreferenceCompat;
 
+import com.android.settings.EventLogTags;
 import com.android.settings.R;
 import com.android.settings.SettingsPreferenceFragment;
 import com.android.settings.core.BasePreferenceController;
@@ -54,6 +56,7 @@ import com.android.settingslib.drawer.DashboardCategory;
 import com.android.settingslib.drawer.Tile;
 import com.android.settingslib.preference.PreferenceScreenCreator;
 import com.android.settingslib.search.Indexable;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -65,8 +68,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Base fragment for dashboard style UI containing a list of static and dynamic setting items.
@@ -76,7 +78,8 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         BasePreferenceController.UiBlockListener {
     public static final String CATEGORY = "category";
     private static final String TAG = "DashboardFragment";
-    private static final long TIMEOUT_MILLIS = 50L;
+    @VisibleForTesting
+    static final long TILE_LOAD_TIMEOUT_MILLIS = 3000L;
 
     @VisibleForTesting
     final ArrayMap<String, List<DynamicDataObserver>> mDashboardTilePrefKeys = new ArrayMap<>();
@@ -84,11 +87,13 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
             new ArrayMap<>();
     private final List<DynamicDataObserver> mRegisteredObservers = new ArrayList<>();
     private final List<AbstractPreferenceController> mControllers = new ArrayList<>();
+    private final List<Runnable> mTileLoadTimeouts = new ArrayList<>();
     @VisibleForTesting
     UiBlockerController mBlockerController;
     private DashboardFeatureProvider mDashboardFeatureProvider;
     private DashboardTilePlaceholderPreferenceController mPlaceholderPreferenceController;
     private boolean mListeningToCategoryChange;
+    private int mBackgroundStateGeneration;
     private List<String> mSuppressInjectedTileKeys;
 
     @Override
@@ -278,6 +283,8 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
     public void onStop() {
         super.onStop();
         unregisterDynamicDataObservers(new ArrayList<>(mRegisteredObservers));
+        mTileLoadTimeouts.forEach(ThreadUtils.getUiThreadHandler()::removeCallbacks);
+        mTileLoadTimeouts.clear();
         if (mListeningToCategoryChange) {
             final Activity activity = getActivity();
             if (activity instanceof CategoryHandler) {
@@ -452,10 +459,15 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
      */
     protected void updatePreferenceStates() {
         final PreferenceScreen screen = getPreferenceScreen();
+        final List<AbstractPreferenceController> backgroundControllers = new ArrayList<>();
         Collection<List<AbstractPreferenceController>> controllerLists =
                 mPreferenceControllers.values();
         for (List<AbstractPreferenceController> controllerList : controllerLists) {
             for (AbstractPreferenceController controller : controllerList) {
+                if (controller instanceof BasePreferenceController.BackgroundStateUpdater) {
+                    backgroundControllers.add(controller);
+                    continue;
+                }
                 if (!controller.isAvailable()) {
                     continue;
                 }
@@ -476,6 +488,73 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
                 controller.updateState(preference);
             }
         }
+        updatePreferenceStatesInBackground(backgroundControllers);
+    }
+
+    /**
+     * Computes the states of the {@link BasePreferenceController.BackgroundStateUpdater}s in
+     * parallel off the main thread, then applies them together on the main thread.
+     */
+    private void updatePreferenceStatesInBackground(
+            List<AbstractPreferenceController> controllers) {
+        // Drops the states of the previous update which is not applied yet.
+        final int generation = ++mBackgroundStateGeneration;
+        if (controllers.isEmpty()) {
+            return;
+        }
+        final BackgroundState[] states = new BackgroundState[controllers.size()];
+        final AtomicInteger remaining = new AtomicInteger(controllers.size());
+        for (int i = 0; i < controllers.size(); i++) {
+            final int index = i;
+            final AbstractPreferenceController controller = controllers.get(i);
+            ThreadUtils.postOnBackgroundThread(() -> {
+                states[index] = computeBackgroundState(controller);
+                if (remaining.decrementAndGet() == 0) {
+                    ThreadUtils.postOnMainThread(
+                            () -> applyBackgroundStates(generation, controllers, states));
+                }
+            });
+        }
+    }
+
+    private static BackgroundState computeBackgroundState(AbstractPreferenceController controller) {
+        try {
+            if (!controller.isAvailable()) {
+                return BackgroundState.UNAVAILABLE;
+            }
+            return new BackgroundState(
+                    ((BasePreferenceController.BackgroundStateUpdater<?>) controller)
+                            .computeState());
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Failed to compute state in Controller "
+                    + controller.getClass().getSimpleName(), e);
+            return BackgroundState.UNAVAILABLE;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void applyBackgroundStates(int generation,
+            List<AbstractPreferenceController> controllers, BackgroundState[] states) {
+        final PreferenceScreen screen = getPreferenceScreen();
+        if (generation != mBackgroundStateGeneration || screen == null) {
+            return;
+        }
+        for (int i = 0; i < controllers.size(); i++) {
+            if (states[i] == BackgroundState.UNAVAILABLE) {
+                continue;
+            }
+            final AbstractPreferenceController controller = controllers.get(i);
+            final String key = controller.getPreferenceKey();
+            final Preference preference = TextUtils.isEmpty(key) ? null
+                    : screen.findPreference(key);
+            if (preference == null) {
+                Log.d(TAG, String.format("Cannot find preference with key %s in Controller %s",
+                        key, controller.getClass().getSimpleName()));
+                continue;
+            }
+            ((BasePreferenceController.BackgroundStateUpdater<Object>) controller)
+                    .applyState(preference, states[i].mState);
+        }
     }
 
     /**
@@ -632,21 +711,37 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
             unregisterDynamicDataObservers(entry.getValue());
         }
 
-        // Wait for pending observers to update UI.
-        if (!pendingObservers.isEmpty()) {
-            final CountDownLatch mainLatch = new CountDownLatch(1);
-            new Thread(() -> {
-                pendingObservers.forEach(observer ->
-                        awaitObserverLatch(observer.getCountDownLatch()));
-                mainLatch.countDown();
-            }).start();
-            Log.d(tag, "Start waiting observers");
-            awaitObserverLatch(mainLatch);
-            Log.d(tag, "Stop waiting observers");
-            pendingObservers.forEach(DynamicDataObserver::updateUi);
+        // Bind pending observers without waiting, the tiles keep their placeholders until the
+        // data of each observer is loaded.
+        for (DynamicDataObserver observer : pendingObservers) {
+            watchTileLoad(tag, observer);
+            observer.updateUi();
         }
     }
 
+    /** Logs the load time of the tile, or the timeout if the tile is not loaded in time. */
+    private void watchTileLoad(String tag, DynamicDataObserver observer) {
+        if (observer.isLoaded()) {
+            return;
+        }
+        final String uri = String.valueOf(observer.getUri());
+        final Runnable timeoutRunnable = () -> {
+            observer.setOnLoadedListener(null);
+            Log.w(tag, "Tile is not loaded in " + TILE_LOAD_TIMEOUT_MILLIS + "ms: " + uri);
+            EventLog.writeEvent(EventLogTags.SETTINGS_DASHBOARD_TILE_LOAD, uri,
+                    (int) TILE_LOAD_TIMEOUT_MILLIS, /* timedOut= */ 1);
+        };
+        mTileLoadTimeouts.add(timeoutRunnable);
+        ThreadUtils.getUiThreadHandler().postDelayed(timeoutRunnable, TILE_LOAD_TIMEOUT_MILLIS);
+        observer.setOnLoadedListener((loadedObserver, latencyMillis) -> {
+            ThreadUtils.getUiThreadHandler().removeCallbacks(timeoutRunnable);
+            mTileLoadTimeouts.remove(timeoutRunnable);
+            Log.d(tag, "Tile is loaded in " + latencyMillis + "ms: " + uri);
+            EventLog.writeEvent(EventLogTags.SETTINGS_DASHBOARD_TILE_LOAD, uri,
+                    (int) latencyMillis, /* timedOut= */ 0);
+        });
+    }
+
     @Override
     public void onBlockerWorkFinished(BasePreferenceController controller) {
         mBlockerController.countDown(controller.getPreferenceKey());
@@ -717,11 +812,15 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         });
     }
 
-    private void awaitObserverLatch(CountDownLatch latch) {
-        try {
-            latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            // Do nothing
+    /** The state of a {@link BasePreferenceController.BackgroundStateUpdater}. */
+    private static final class BackgroundState {
+        static final BackgroundState UNAVAILABLE = new BackgroundState(null);
+
+        @Nullable
+        final Object mState;
+
+        BackgroundState(@Nullable Object state) {
+            mState = state;
         }
     }
 }
@@ -19,23 +19,32 @@ import android.database.ContentObserver;
 import android.net.Uri;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 
-import com.android.settingslib.utils.ThreadUtils;
+import androidx.annotation.Nullable;
 
-import java.util.concurrent.CountDownLatch;
+import com.android.settingslib.utils.ThreadUtils;
 
 /**
  * Observer for updating injected dynamic data.
  */
 public abstract class DynamicDataObserver extends ContentObserver {
 
+    private final long mStartTimeMillis = SystemClock.elapsedRealtime();
     private Runnable mUpdateRunnable;
-    private CountDownLatch mCountDownLatch;
     private boolean mUpdateDelegated;
+    private long mLoadLatencyMillis = -1;
+    @Nullable
+    private OnLoadedListener mOnLoadedListener;
+
+    /** Listener of the first data loaded by the observer. */
+    public interface OnLoadedListener {
+        /** Called on the main thread when the data is loaded for the first time. */
+        void onLoaded(DynamicDataObserver observer, long latencyMillis);
+    }
 
     protected DynamicDataObserver() {
         super(new Handler(Looper.getMainLooper()));
-        mCountDownLatch = new CountDownLatch(1);
         // Load data for the first time
         onDataChanged();
     }
@@ -54,9 +63,17 @@ public abstract class DynamicDataObserver extends ContentObserver {
         }
     }
 
-    /** Returns the count-down latch */
-    public CountDownLatch getCountDownLatch() {
-        return mCountDownLatch;
+    /** Sets the listener of the first data loaded, which is called even if loaded already. */
+    public synchronized void setOnLoadedListener(@Nullable OnLoadedListener listener) {
+        mOnLoadedListener = listener;
+        if (listener != null && mLoadLatencyMillis >= 0) {
+            notifyLoaded();
+        }
+    }
+
+    /** Returns whether the data is loaded for the first time. */
+    public synchronized boolean isLoaded() {
+        return mLoadLatencyMillis >= 0;
     }
 
     @Override
@@ -65,11 +82,22 @@ public abstract class DynamicDataObserver extends ContentObserver {
     }
 
     protected synchronized void post(Runnable runnable) {
+        if (mLoadLatencyMillis < 0) {
+            mLoadLatencyMillis = SystemClock.elapsedRealtime() - mStartTimeMillis;
+            if (mOnLoadedListener != null) {
+                notifyLoaded();
+            }
+        }
         if (mUpdateDelegated) {
             ThreadUtils.postOnMainThread(runnable);
         } else {
             mUpdateRunnable = runnable;
-            mCountDownLatch.countDown();
         }
     }
+
+    private void notifyLoaded() {
+        final OnLoadedListener listener = mOnLoadedListener;
+        final long latencyMillis = mLoadLatencyMillis;
+        ThreadUtils.postOnMainThread(() -> listener.onLoaded(this, latencyMillis));
+    }
 }
@@ -21,6 +21,7 @@ import android.content.Intent;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
+import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Process;
@@ -29,6 +30,7 @@ import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ArrayAdapter;
+import android.widget.ImageView;
 import android.widget.ListView;
 
 import androidx.annotation.NonNull;
@@ -36,6 +38,7 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.ListFragment;
 
 import com.android.settings.SettingsActivity;
+import com.android.settings.applications.AppIconLoader;
 
 import java.text.Collator;
 import java.util.ArrayList;
@@ -232,10 +235,10 @@ public class AppPicker extends SettingsActivity {
                 MyApplicationInfo info = getItem(position);
                 holder.appName.setText(info.label);
                 if (info.info != null) {
-                    holder.appIcon.setImageDrawable(
-                            info.info.loadIcon(getContext().getPackageManager()));
+                    updateIcon(holder.appIcon, info.info);
                     holder.summary.setText(info.info.packageName);
                 } else {
+                    AppIconLoader.getInstance().cancel(holder.appIcon);
                     holder.appIcon.setImageDrawable(null);
                     holder.summary.setText("");
                 }
@@ -243,6 +246,21 @@ public class AppPicker extends SettingsActivity {
                 holder.widget.setVisibility(View.GONE);
                 return convertView;
             }
+
+            private void updateIcon(ImageView appIcon, ApplicationInfo info) {
+                final AppIconLoader iconLoader = AppIconLoader.getInstance();
+                final Drawable cachedIcon = AppIconLoader.getCachedIcon(info.packageName,
+                        info.uid);
+                if (cachedIcon != null) {
+                    iconLoader.cancel(appIcon);
+                    appIcon.setImageDrawable(cachedIcon);
+                } else {
+                    appIcon.setImageDrawable(null);
+                    iconLoader.loadIcon(appIcon, info.packageName, info.uid,
+                            AppIconLoader.getBadgedIconLoader(getContext(), info),
+                            appIcon::setImageDrawable);
+                }
+            }
         }
 
         private final static Comparator<MyApplicationInfo> sDisplayNameComparator
@@ -53,7 +53,6 @@ import com.android.settingslib.core.lifecycle.events.OnSaveInstanceState;
 import com.google.common.base.Objects;
 
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.List;
 import java.util.Map;
 
@@ -568,21 +567,14 @@ public class BatteryChartPreferenceController extends AbstractPreferenceControll
     /** Used for {@link AppBatteryPreferenceController}. */
     public static List<BatteryDiffEntry> getAppBatteryUsageData(Context context) {
         final long start = System.currentTimeMillis();
-        final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap =
-                DatabaseUtils.getHistoryMapSinceLastFullCharge(context, Calendar.getInstance());
-        if (batteryHistoryMap == null || batteryHistoryMap.isEmpty()) {
-            return null;
-        }
+        final Map<Integer, Map<Integer, BatteryDiffData>> batteryUsageData =
+                DataProcessor.getBatteryUsageDataIncrementally(
+                        context, new UserIdsSeries(context, /* isNonUIRequest= */ false));
         Log.d(
                 TAG,
                 String.format(
-                        "getBatterySinceLastFullChargeUsageData() size=%d time=%d/ms",
-                        batteryHistoryMap.size(), (System.currentTimeMillis() - start)));
-        final Map<Integer, Map<Integer, BatteryDiffData>> batteryUsageData =
-                DataProcessor.getBatteryUsageData(
-                        context,
-                        new UserIdsSeries(context, /* isNonUIRequest= */ false),
-                        batteryHistoryMap);
+                        "getBatterySinceLastFullChargeUsageData() time=%d/ms",
+                        (System.currentTimeMillis() - start)));
         if (batteryUsageData == null) {
             return null;
         }
@@ -35,7 +35,6 @@ import android.graphics.Path;
 import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
 import android.os.Bundle;
-import android.util.ArraySet;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.HapticFeedbackConstants;
@@ -57,9 +56,9 @@ import com.android.settings.R;
 import com.android.settingslib.Utils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
-import java.util.Set;
 
 /** A widget component to draw chart graph. */
 public class BatteryChartView extends AppCompatImageView implements View.OnClickListener {
@@ -78,7 +77,7 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
     private final Rect mIndent = new Rect();
     private final Rect[] mPercentageBounds = new Rect[] {new Rect(), new Rect(), new Rect()};
     private final List<Rect> mAxisLabelsBounds = new ArrayList<>();
-    private final Set<Integer> mLabelDrawnIndexes = new ArraySet<>();
+    private final float[] mHorizontalDividersY = new float[HORIZONTAL_DIVIDER_COUNT];
     private final int mLayoutDirection =
             getContext().getResources().getConfiguration().getLayoutDirection();
 
@@ -108,6 +107,20 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
     private AccessibilityNodeProvider mAccessibilityNodeProvider;
     private BatteryChartView.OnSelectListener mOnSelectListener;
 
+    // The precomputed geometry for drawing, which is only rebuilt when the view model or the
+    // layout is changed, so drawing a frame doesn't allocate any objects.
+    private float mTrapezoidBottom;
+    private float mAxisLabelBaselineY;
+    private int mAxisLabelCount;
+    private int[] mAxisLabelTextIndexes;
+    private float[] mAxisLabelsX;
+    private Rect[] mAxisLabelDisplayAreas;
+    private boolean[] mIsAxisLabelDrawn;
+    private float[] mVerticalDividersX;
+    private boolean[] mIsTrapezoidValid;
+    private Path[] mTrapezoidPaths;
+
+    @VisibleForTesting boolean mIsGeometryDirty = true;
     @VisibleForTesting TrapezoidSlot[] mTrapezoidSlots;
     // Records the location to calculate selected index.
     @VisibleForTesting float mTouchUpEventX = Float.MIN_VALUE;
@@ -140,10 +153,16 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
                         viewModel.size(),
                         viewModel.selectedIndex(),
                         viewModel.getHighlightSlotIndex()));
+        if (viewModel == mViewModel) {
+            // Only the selected or highlight slot is changed, so the geometry is still valid.
+            invalidate();
+            return;
+        }
         mViewModel = viewModel;
         initializeAxisLabelsBounds();
         initializeTrapezoidSlots(viewModel.size() - 1);
         setClickable(hasAnyValidTrapezoid(viewModel));
+        mIsGeometryDirty = true;
         requestLayout();
     }
 
@@ -162,6 +181,7 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
         } else {
             mTextPaint = null;
         }
+        mIsGeometryDirty = true;
         requestLayout();
     }
 
@@ -200,11 +220,19 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
         } else {
             mIndent.set(0, 0, 0, 0);
         }
+        mIsGeometryDirty = true;
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        mIsGeometryDirty = true;
     }
 
     @Override
     public void draw(Canvas canvas) {
         super.draw(canvas);
+        updateGeometryIfNeeded();
         // Before mLevels initialized, the count of trapezoids is unknown. Only draws the
         // horizontal percentages and dividers.
         drawHorizontalDividers(canvas);
@@ -323,8 +351,12 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
 
     private void initializeTrapezoidSlots(int count) {
         mTrapezoidSlots = new TrapezoidSlot[count];
+        mTrapezoidPaths = new Path[count];
+        mIsTrapezoidValid = new boolean[count];
         for (int index = 0; index < mTrapezoidSlots.length; index++) {
             mTrapezoidSlots[index] = new TrapezoidSlot();
+            mTrapezoidPaths[index] = new Path();
+            mIsTrapezoidValid[index] = isValidToDraw(mViewModel, index);
         }
     }
 
@@ -396,91 +428,60 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
         mTransomIcon = getResources().getDrawable(R.drawable.ic_battery_tips_warning_icon);
     }
 
-    private void drawHorizontalDividers(Canvas canvas) {
-        final int width = getWidth() - abs(mIndent.width());
+    private void updateGeometryIfNeeded() {
+        if (!mIsGeometryDirty) {
+            return;
+        }
+        mIsGeometryDirty = false;
+        updateHorizontalDividersGeometry();
+        if (mViewModel == null) {
+            return;
+        }
+        updateVerticalDividersGeometry();
+        updateTrapezoidsGeometry();
+    }
+
+    private void updateHorizontalDividersGeometry() {
         final int height = getHeight() - mIndent.top - mIndent.bottom;
         final float topOffsetY = mIndent.top + mDividerWidth * .5f;
         final float bottomOffsetY = mIndent.top + (height - mDividerHeight - mDividerWidth * .5f);
         final float availableSpace = bottomOffsetY - topOffsetY;
-
-        mDividerPaint.setColor(DIVIDER_COLOR);
         final float dividerOffsetUnit = availableSpace / (float) (HORIZONTAL_DIVIDER_COUNT - 1);
-
-        // Draws 5 divider lines.
         for (int index = 0; index < HORIZONTAL_DIVIDER_COUNT; index++) {
-            float offsetY = topOffsetY + dividerOffsetUnit * index;
-            canvas.drawLine(mIndent.left, offsetY, mIndent.left + width, offsetY, mDividerPaint);
-
-            //  Draws percentage text only for 100% / 50% / 0%
-            if (index % 2 == 0) {
-                drawPercentage(canvas, /* index= */ (index + 1) / 2, offsetY);
-            }
-        }
-    }
-
-    private void drawPercentage(Canvas canvas, int index, float offsetY) {
-        if (mTextPaint != null) {
-            mTextPaint.setTextAlign(isRTL() ? Paint.Align.RIGHT : Paint.Align.LEFT);
-            mTextPaint.setColor(mDefaultTextColor);
-            canvas.drawText(
-                    mPercentages[index],
-                    isRTL()
-                            ? mIndent.left - mTextPadding
-                            : getWidth() - mIndent.width() + mTextPadding,
-                    offsetY + mPercentageBounds[index].height() * .5f,
-                    mTextPaint);
+            mHorizontalDividersY[index] = topOffsetY + dividerOffsetUnit * index;
         }
     }
 
-    private void drawVerticalDividers(Canvas canvas) {
+    private void updateVerticalDividersGeometry() {
         final int width = getWidth() - abs(mIndent.width());
         final int dividerCount = mTrapezoidSlots.length + 1;
         final float dividerSpace = dividerCount * mDividerWidth;
         final float unitWidth = (width - dividerSpace) / (float) mTrapezoidSlots.length;
-        final float bottomY = getHeight() - mIndent.bottom;
-        final float startY = bottomY - mDividerHeight;
         final float trapezoidSlotOffset = mTrapezoidHOffset + mDividerWidth * .5f;
-        // Draws the axis label slot information.
-        if (mViewModel != null) {
-            final float baselineY = getHeight() - mTextPadding;
-            Rect[] axisLabelDisplayAreas;
-            switch (mViewModel.axisLabelPosition()) {
-                case CENTER_OF_TRAPEZOIDS:
-                    axisLabelDisplayAreas =
-                            getAxisLabelDisplayAreas(
-                                    /* size= */ mViewModel.size() - 1,
-                                    /* baselineX= */ mIndent.left + mDividerWidth + unitWidth * .5f,
-                                    /* offsetX= */ mDividerWidth + unitWidth,
-                                    baselineY,
-                                    /* shiftFirstAndLast= */ false);
-                    break;
-                case BETWEEN_TRAPEZOIDS:
-                default:
-                    axisLabelDisplayAreas =
-                            getAxisLabelDisplayAreas(
-                                    /* size= */ mViewModel.size(),
-                                    /* baselineX= */ mIndent.left + mDividerWidth * .5f,
-                                    /* offsetX= */ mDividerWidth + unitWidth,
-                                    baselineY,
-                                    /* shiftFirstAndLast= */ true);
-                    break;
-            }
-            drawAxisLabels(canvas, axisLabelDisplayAreas, baselineY);
+        // Updates the axis label slot information.
+        mAxisLabelBaselineY = getHeight() - mTextPadding;
+        switch (mViewModel.axisLabelPosition()) {
+            case CENTER_OF_TRAPEZOIDS:
+                updateAxisLabelDisplayAreas(
+                        /* size= */ mViewModel.size() - 1,
+                        /* baselineX= */ mIndent.left + mDividerWidth + unitWidth * .5f,
+                        /* offsetX= */ mDividerWidth + unitWidth,
+                        /* shiftFirstAndLast= */ false);
+                break;
+            case BETWEEN_TRAPEZOIDS:
+            default:
+                updateAxisLabelDisplayAreas(
+                        /* size= */ mViewModel.size(),
+                        /* baselineX= */ mIndent.left + mDividerWidth * .5f,
+                        /* offsetX= */ mDividerWidth + unitWidth,
+                        /* shiftFirstAndLast= */ true);
+                break;
         }
-        // Draws each vertical dividers.
+        // Updates each vertical dividers and the trapezoid slots.
         float startX = mDividerWidth * .5f + mIndent.left;
         for (int index = 0; index < dividerCount; index++) {
-            float dividerY = bottomY;
-            if (mViewModel.axisLabelPosition() == BETWEEN_TRAPEZOIDS
-                    && mLabelDrawnIndexes.contains(index)) {
-                mDividerPaint.setColor(mTrapezoidSolidColor);
-                dividerY += mDividerHeight / 4f;
-            } else {
-                mDividerPaint.setColor(DIVIDER_COLOR);
-            }
-            canvas.drawLine(startX, startY, startX, dividerY, mDividerPaint);
+            mVerticalDividersX[index] = startX;
             final float nextX = startX + mDividerWidth + unitWidth;
-            // Updates the trapezoid slots for drawing.
             if (index < mTrapezoidSlots.length) {
                 final int trapezoidIndex = isRTL() ? mTrapezoidSlots.length - index - 1 : index;
                 mTrapezoidSlots[trapezoidIndex].mLeft = round(startX + trapezoidSlotOffset);
@@ -490,15 +491,13 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
         }
     }
 
-    /** Gets all the axis label texts displaying area positions if they are shown. */
-    private Rect[] getAxisLabelDisplayAreas(
+    /** Updates all the axis label texts displaying area positions and the labels to draw. */
+    private void updateAxisLabelDisplayAreas(
             final int size,
             final float baselineX,
             final float offsetX,
-            final float baselineY,
             final boolean shiftFirstAndLast) {
-        final Rect[] result = new Rect[size];
-        for (int index = 0; index < result.length; index++) {
+        for (int index = 0; index < size; index++) {
             final float width = mAxisLabelsBounds.get(index).width();
             float middle = baselineX + index * offsetX;
             if (shiftFirstAndLast) {
@@ -511,132 +510,104 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
             }
             final float left = middle - width * .5f;
             final float right = left + width;
-            final float top = baselineY + mAxisLabelsBounds.get(index).top;
+            final float top = mAxisLabelBaselineY + mAxisLabelsBounds.get(index).top;
             final float bottom = top + mAxisLabelsBounds.get(index).height();
-            result[index] = new Rect(round(left), round(top), round(right), round(bottom));
+            mAxisLabelDisplayAreas[index].set(
+                    round(left), round(top), round(right), round(bottom));
         }
-        return result;
-    }
 
-    private void drawAxisLabels(Canvas canvas, final Rect[] displayAreas, final float baselineY) {
-        final int lastIndex = displayAreas.length - 1;
-        mLabelDrawnIndexes.clear();
+        final int lastIndex = size - 1;
+        mAxisLabelCount = 0;
+        Arrays.fill(mIsAxisLabelDrawn, false);
         // Suppose first and last labels are always able to draw.
-        drawAxisLabelText(canvas, 0, displayAreas[0], baselineY);
-        mLabelDrawnIndexes.add(0);
-        drawAxisLabelText(canvas, lastIndex, displayAreas[lastIndex], baselineY);
-        mLabelDrawnIndexes.add(lastIndex);
-        drawAxisLabelsBetweenStartIndexAndEndIndex(canvas, displayAreas, 0, lastIndex, baselineY);
+        addAxisLabel(0);
+        if (lastIndex > 0) {
+            addAxisLabel(lastIndex);
+        }
+        addAxisLabelsBetweenStartIndexAndEndIndex(0, lastIndex);
     }
 
     /**
-     * Recursively draws axis labels between the start index and the end index. If the inner number
-     * can be exactly divided into 2 parts, check and draw the middle index label and then
-     * recursively draw the 2 parts. Otherwise, divide into 3 parts. Check and draw the middle two
-     * labels and then recursively draw the 3 parts. If there are any overlaps, skip drawing and go
+     * Recursively adds axis labels between the start index and the end index. If the inner number
+     * can be exactly divided into 2 parts, check and add the middle index label and then
+     * recursively add the 2 parts. Otherwise, divide into 3 parts. Check and add the middle two
+     * labels and then recursively add the 3 parts. If there are any overlaps, skip adding and go
      * back to the uplevel of the recursion.
      */
-    private void drawAxisLabelsBetweenStartIndexAndEndIndex(
-            Canvas canvas,
-            final Rect[] displayAreas,
-            final int startIndex,
-            final int endIndex,
-            final float baselineY) {
+    private void addAxisLabelsBetweenStartIndexAndEndIndex(
+            final int startIndex, final int endIndex) {
         if (endIndex - startIndex <= 1) {
             return;
         }
         if ((endIndex - startIndex) % 2 == 0) {
             int middleIndex = (startIndex + endIndex) / 2;
-            if (hasOverlap(displayAreas, startIndex, middleIndex)
-                    || hasOverlap(displayAreas, middleIndex, endIndex)) {
+            if (hasOverlap(startIndex, middleIndex) || hasOverlap(middleIndex, endIndex)) {
                 return;
             }
-            drawAxisLabelText(canvas, middleIndex, displayAreas[middleIndex], baselineY);
-            mLabelDrawnIndexes.add(middleIndex);
-            drawAxisLabelsBetweenStartIndexAndEndIndex(
-                    canvas, displayAreas, startIndex, middleIndex, baselineY);
-            drawAxisLabelsBetweenStartIndexAndEndIndex(
-                    canvas, displayAreas, middleIndex, endIndex, baselineY);
+            addAxisLabel(middleIndex);
+            addAxisLabelsBetweenStartIndexAndEndIndex(startIndex, middleIndex);
+            addAxisLabelsBetweenStartIndexAndEndIndex(middleIndex, endIndex);
         } else {
             int middleIndex1 = startIndex + round((endIndex - startIndex) / 3f);
             int middleIndex2 = startIndex + round((endIndex - startIndex) * 2 / 3f);
-            if (hasOverlap(displayAreas, startIndex, middleIndex1)
-                    || hasOverlap(displayAreas, middleIndex1, middleIndex2)
-                    || hasOverlap(displayAreas, middleIndex2, endIndex)) {
+            if (hasOverlap(startIndex, middleIndex1)
+                    || hasOverlap(middleIndex1, middleIndex2)
+                    || hasOverlap(middleIndex2, endIndex)) {
                 return;
             }
-            drawAxisLabelText(canvas, middleIndex1, displayAreas[middleIndex1], baselineY);
-            mLabelDrawnIndexes.add(middleIndex1);
-            drawAxisLabelText(canvas, middleIndex2, displayAreas[middleIndex2], baselineY);
-            mLabelDrawnIndexes.add(middleIndex2);
-            drawAxisLabelsBetweenStartIndexAndEndIndex(
-                    canvas, displayAreas, startIndex, middleIndex1, baselineY);
-            drawAxisLabelsBetweenStartIndexAndEndIndex(
-                    canvas, displayAreas, middleIndex1, middleIndex2, baselineY);
-            drawAxisLabelsBetweenStartIndexAndEndIndex(
-                    canvas, displayAreas, middleIndex2, endIndex, baselineY);
+            addAxisLabel(middleIndex1);
+            addAxisLabel(middleIndex2);
+            addAxisLabelsBetweenStartIndexAndEndIndex(startIndex, middleIndex1);
+            addAxisLabelsBetweenStartIndexAndEndIndex(middleIndex1, middleIndex2);
+            addAxisLabelsBetweenStartIndexAndEndIndex(middleIndex2, endIndex);
         }
     }
 
-    private boolean hasOverlap(
-            final Rect[] displayAreas, final int leftIndex, final int rightIndex) {
-        return displayAreas[leftIndex].right + mTextPadding * 2.3f > displayAreas[rightIndex].left;
+    private boolean hasOverlap(final int leftIndex, final int rightIndex) {
+        return mAxisLabelDisplayAreas[leftIndex].right + mTextPadding * 2.3f
+                > mAxisLabelDisplayAreas[rightIndex].left;
     }
 
     private boolean isRTL() {
         return mLayoutDirection == View.LAYOUT_DIRECTION_RTL;
     }
 
-    private void drawAxisLabelText(
-            Canvas canvas, int index, final Rect displayArea, final float baselineY) {
-        mTextPaint.setColor(mTrapezoidSolidColor);
-        mTextPaint.setTextAlign(Paint.Align.CENTER);
+    private void addAxisLabel(int index) {
+        mIsAxisLabelDrawn[index] = true;
+        int textIndex = index;
         // Reverse the sort of axis labels for RTL
         if (isRTL()) {
-            index =
+            textIndex =
                     mViewModel.axisLabelPosition() == BETWEEN_TRAPEZOIDS
                             ? mViewModel.size() - index - 1 // for hourly
                             : mViewModel.size() - index - 2; // for daily
         }
-        canvas.drawText(mViewModel.getText(index), displayArea.centerX(), baselineY, mTextPaint);
-        mLabelDrawnIndexes.add(index);
+        mIsAxisLabelDrawn[textIndex] = true;
+        mAxisLabelTextIndexes[mAxisLabelCount] = textIndex;
+        mAxisLabelsX[mAxisLabelCount] = mAxisLabelDisplayAreas[index].centerX();
+        mAxisLabelCount++;
     }
 
-    private void drawTrapezoids(Canvas canvas) {
-        // Ignores invalid trapezoid data.
-        if (mViewModel == null) {
-            return;
-        }
-        final float trapezoidBottom =
+    private void updateTrapezoidsGeometry() {
+        mTrapezoidBottom =
                 getHeight() - mIndent.bottom - mDividerHeight - mDividerWidth - mTrapezoidVOffset;
         final float availableSpace =
-                trapezoidBottom - mDividerWidth * .5f - mIndent.top - mTrapezoidVOffset;
+                mTrapezoidBottom - mDividerWidth * .5f - mIndent.top - mTrapezoidVOffset;
         final float unitHeight = availableSpace / 100f;
-        // Draws all trapezoid shapes into the canvas.
-        final Path trapezoidPath = new Path();
-        Path trapezoidCurvePath = null;
         for (int index = 0; index < mTrapezoidSlots.length; index++) {
-            // Not draws the trapezoid for corner or not initialization cases.
-            if (!isValidToDraw(mViewModel, index)) {
+            final Path trapezoidPath = mTrapezoidPaths[index];
+            trapezoidPath.reset();
+            // Not builds the trapezoid for corner or not initialization cases.
+            if (!mIsTrapezoidValid[index]) {
                 continue;
             }
-            // Configures the trapezoid paint color.
-            final int trapezoidColor =
-                    (mViewModel.selectedIndex() == index
-                                    || mViewModel.selectedIndex() == SELECTED_INDEX_ALL)
-                            ? mTrapezoidSolidColor
-                            : mTrapezoidColor;
-            final boolean isHoverState =
-                    mHoveredIndex == index && isValidToDraw(mViewModel, mHoveredIndex);
-            mTrapezoidPaint.setColor(isHoverState ? mTrapezoidHoverColor : trapezoidColor);
-
             float leftTop =
                     round(
-                            trapezoidBottom
+                            mTrapezoidBottom
                                     - requireNonNull(mViewModel.getLevel(index)) * unitHeight);
             float rightTop =
                     round(
-                            trapezoidBottom
+                            mTrapezoidBottom
                                     - requireNonNull(mViewModel.getLevel(index + 1)) * unitHeight);
             // Mirror the shape of the trapezoid for RTL
             if (isRTL()) {
@@ -644,16 +615,96 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
                 leftTop = rightTop;
                 rightTop = temp;
             }
-            trapezoidPath.reset();
-            trapezoidPath.moveTo(mTrapezoidSlots[index].mLeft, trapezoidBottom);
-            trapezoidPath.lineTo(mTrapezoidSlots[index].mLeft, leftTop);
-            trapezoidPath.lineTo(mTrapezoidSlots[index].mRight, rightTop);
-            trapezoidPath.lineTo(mTrapezoidSlots[index].mRight, trapezoidBottom);
+            final TrapezoidSlot slot = mTrapezoidSlots[index];
+            trapezoidPath.moveTo(slot.mLeft, mTrapezoidBottom);
+            trapezoidPath.lineTo(slot.mLeft, leftTop);
+            trapezoidPath.lineTo(slot.mRight, rightTop);
+            trapezoidPath.lineTo(slot.mRight, mTrapezoidBottom);
             // A tricky way to make the trapezoid shape drawing the rounded corner.
-            trapezoidPath.lineTo(mTrapezoidSlots[index].mLeft, trapezoidBottom);
-            trapezoidPath.lineTo(mTrapezoidSlots[index].mLeft, leftTop);
-            // Draws the trapezoid shape into canvas.
-            canvas.drawPath(trapezoidPath, mTrapezoidPaint);
+            trapezoidPath.lineTo(slot.mLeft, mTrapezoidBottom);
+            trapezoidPath.lineTo(slot.mLeft, leftTop);
+        }
+    }
+
+    private void drawHorizontalDividers(Canvas canvas) {
+        final int width = getWidth() - abs(mIndent.width());
+        mDividerPaint.setColor(DIVIDER_COLOR);
+        // Draws 5 divider lines.
+        for (int index = 0; index < HORIZONTAL_DIVIDER_COUNT; index++) {
+            final float offsetY = mHorizontalDividersY[index];
+            canvas.drawLine(mIndent.left, offsetY, mIndent.left + width, offsetY, mDividerPaint);
+
+            //  Draws percentage text only for 100% / 50% / 0%
+            if (index % 2 == 0) {
+                drawPercentage(canvas, /* index= */ (index + 1) / 2, offsetY);
+            }
+        }
+    }
+
+    private void drawPercentage(Canvas canvas, int index, float offsetY) {
+        if (mTextPaint != null) {
+            mTextPaint.setTextAlign(isRTL() ? Paint.Align.RIGHT : Paint.Align.LEFT);
+            mTextPaint.setColor(mDefaultTextColor);
+            canvas.drawText(
+                    mPercentages[index],
+                    isRTL()
+                            ? mIndent.left - mTextPadding
+                            : getWidth() - mIndent.width() + mTextPadding,
+                    offsetY + mPercentageBounds[index].height() * .5f,
+                    mTextPaint);
+        }
+    }
+
+    private void drawVerticalDividers(Canvas canvas) {
+        final float bottomY = getHeight() - mIndent.bottom;
+        final float startY = bottomY - mDividerHeight;
+        drawAxisLabels(canvas);
+        // Draws each vertical dividers.
+        for (int index = 0; index < mVerticalDividersX.length; index++) {
+            final float startX = mVerticalDividersX[index];
+            float dividerY = bottomY;
+            if (mViewModel.axisLabelPosition() == BETWEEN_TRAPEZOIDS
+                    && mIsAxisLabelDrawn[index]) {
+                mDividerPaint.setColor(mTrapezoidSolidColor);
+                dividerY += mDividerHeight / 4f;
+            } else {
+                mDividerPaint.setColor(DIVIDER_COLOR);
+            }
+            canvas.drawLine(startX, startY, startX, dividerY, mDividerPaint);
+        }
+    }
+
+    private void drawAxisLabels(Canvas canvas) {
+        if (mTextPaint == null) {
+            return;
+        }
+        mTextPaint.setColor(mTrapezoidSolidColor);
+        mTextPaint.setTextAlign(Paint.Align.CENTER);
+        for (int index = 0; index < mAxisLabelCount; index++) {
+            canvas.drawText(
+                    mViewModel.getText(mAxisLabelTextIndexes[index]),
+                    mAxisLabelsX[index],
+                    mAxisLabelBaselineY,
+                    mTextPaint);
+        }
+    }
+
+    private void drawTrapezoids(Canvas canvas) {
+        // Draws all the precomputed trapezoid shapes into the canvas.
+        for (int index = 0; index < mTrapezoidSlots.length; index++) {
+            // Not draws the trapezoid for corner or not initialization cases.
+            if (!mIsTrapezoidValid[index]) {
+                continue;
+            }
+            // Configures the trapezoid paint color.
+            final int trapezoidColor =
+                    (mViewModel.selectedIndex() == index
+                                    || mViewModel.selectedIndex() == SELECTED_INDEX_ALL)
+                            ? mTrapezoidSolidColor
+                            : mTrapezoidColor;
+            final boolean isHoverState = mHoveredIndex == index;
+            mTrapezoidPaint.setColor(isHoverState ? mTrapezoidHoverColor : trapezoidColor);
+            canvas.drawPath(mTrapezoidPaths[index], mTrapezoidPaint);
         }
     }
 
@@ -670,8 +721,6 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
         mTransomLinePaint.setColor(mTransomLineDefaultColor);
         final int width = getWidth() - abs(mIndent.width());
         final float transomOffset = mTrapezoidHOffset + mDividerWidth * .5f + mTransomPadding;
-        final float trapezoidBottom =
-                getHeight() - mIndent.bottom - mDividerHeight - mDividerWidth - mTrapezoidVOffset;
         canvas.drawLine(
                 mIndent.left + transomOffset,
                 mTransomTop,
@@ -690,7 +739,7 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
                 endX - mTransomPadding,
                 mTransomTop,
                 mTransomLinePaint);
-        canvas.drawRect(startX, mTransomTop, endX, trapezoidBottom, mTransomSelectedSlotPaint);
+        canvas.drawRect(startX, mTransomTop, endX, mTrapezoidBottom, mTransomSelectedSlotPaint);
     }
 
     private void drawTransomIcon(Canvas canvas) {
@@ -724,10 +773,17 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
     }
 
     private void initializeAxisLabelsBounds() {
+        final int size = mViewModel.size();
         mAxisLabelsBounds.clear();
-        for (int i = 0; i < mViewModel.size(); i++) {
+        mAxisLabelDisplayAreas = new Rect[size];
+        for (int i = 0; i < size; i++) {
             mAxisLabelsBounds.add(new Rect());
+            mAxisLabelDisplayAreas[i] = new Rect();
         }
+        mAxisLabelTextIndexes = new int[size];
+        mAxisLabelsX = new float[size];
+        mIsAxisLabelDrawn = new boolean[size];
+        mVerticalDividersX = new float[size];
     }
 
     private static boolean isTrapezoidValid(
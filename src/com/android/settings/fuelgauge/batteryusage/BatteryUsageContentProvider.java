@@ -17,7 +17,10 @@
 package com.android.settings.fuelgauge.batteryusage;
 
 import android.content.ContentProvider;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentValues;
+import android.content.OperationApplicationException;
 import android.content.UriMatcher;
 import android.database.Cursor;
 import android.net.Uri;
@@ -44,6 +47,7 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Function;
 
 /** {@link ContentProvider} class to fetch battery usage data. */
 public class BatteryUsageContentProvider extends ContentProvider {
@@ -98,6 +102,7 @@ public class BatteryUsageContentProvider extends ContentProvider {
     }
 
     private Clock mClock;
+    private BatteryStateDatabase mDatabase;
     private BatteryStateDao mBatteryStateDao;
     private AppUsageEventDao mAppUsageEventDao;
     private BatteryEventDao mBatteryEventDao;
@@ -115,11 +120,11 @@ public class BatteryUsageContentProvider extends ContentProvider {
             return false;
         }
         mClock = Clock.systemUTC();
-        final BatteryStateDatabase database = BatteryStateDatabase.getInstance(getContext());
-        mBatteryStateDao = database.batteryStateDao();
-        mAppUsageEventDao = database.appUsageEventDao();
-        mBatteryEventDao = database.batteryEventDao();
-        mBatteryUsageSlotDao = database.batteryUsageSlotDao();
+        mDatabase = BatteryStateDatabase.getInstance(getContext());
+        mBatteryStateDao = mDatabase.batteryStateDao();
+        mAppUsageEventDao = mDatabase.appUsageEventDao();
+        mBatteryEventDao = mDatabase.batteryEventDao();
+        mBatteryUsageSlotDao = mDatabase.batteryUsageSlotDao();
         Log.w(TAG, "create content provider from " + getCallingPackage());
         return true;
     }
@@ -188,6 +193,62 @@ public class BatteryUsageContentProvider extends ContentProvider {
         return uri;
     }
 
+    @Override
+    public int bulkInsert(@NonNull Uri uri, @NonNull ContentValues[] values) {
+        final long timestamp = mClock.millis();
+        // Inserts all rows with the DAO insertAll() method in a single transaction.
+        try {
+            switch (sUriMatcher.match(uri)) {
+                case BATTERY_STATE_CODE:
+                    mBatteryStateDao.insertAll(createEntities(values, BatteryState::create));
+                    break;
+                case APP_USAGE_EVENT_CODE:
+                    mAppUsageEventDao.insertAll(
+                            createEntities(values, AppUsageEventEntity::create));
+                    break;
+                case BATTERY_EVENT_CODE:
+                    mBatteryEventDao.insertAll(createEntities(values, BatteryEventEntity::create));
+                    break;
+                case BATTERY_USAGE_SLOT_CODE:
+                    mBatteryUsageSlotDao.insertAll(
+                            createEntities(values, BatteryUsageSlotEntity::create));
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown URI: " + uri);
+            }
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            Log.e(TAG, "bulkInsert() from:" + uri + " error:", e);
+            return 0;
+        }
+        Log.d(
+                TAG,
+                String.format(
+                        "bulkInsert() size=%d into %s in %d/ms",
+                        values.length, uri.getPath(), mClock.millis() - timestamp));
+        return values.length;
+    }
+
+    @NonNull
+    @Override
+    public ContentProviderResult[] applyBatch(
+            @NonNull ArrayList<ContentProviderOperation> operations)
+            throws OperationApplicationException {
+        final long timestamp = mClock.millis();
+        // Applies all operations in a single transaction rather than one for each insert(). The
+        // OperationApplicationException is rethrown by runInTransaction() as it is.
+        try {
+            return mDatabase.runInTransaction(() -> super.applyBatch(operations));
+        } finally {
+            Log.d(
+                    TAG,
+                    String.format(
+                            "applyBatch() size=%d in %d/ms",
+                            operations.size(), mClock.millis() - timestamp));
+        }
+    }
+
     @Override
     public int delete(@NonNull Uri uri, @Nullable String s, @Nullable String[] strings) {
         throw new UnsupportedOperationException("unsupported!");
@@ -318,6 +379,15 @@ public class BatteryUsageContentProvider extends ContentProvider {
         return cursor;
     }
 
+    private static <T> List<T> createEntities(
+            ContentValues[] values, Function<ContentValues, T> creator) {
+        final List<T> entities = new ArrayList<>(values.length);
+        for (ContentValues contentValues : values) {
+            entities.add(creator.apply(contentValues));
+        }
+        return entities;
+    }
+
     private List<Integer> getQueryBatteryEventTypes(Uri uri) {
         Log.d(TAG, "getQueryBatteryEventTypes from uri: " + uri);
         final String batteryEventTypesParameter =
@@ -0,0 +1,279 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import android.content.Context;
+import android.os.BatteryStatsManager;
+import android.os.BatteryUsageStats;
+import android.os.BatteryUsageStatsQuery;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.time.Duration;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A process-wide cache of {@link BatteryUsageStats} snapshots shared by the fuelgauge loaders.
+ *
+ * <p>A snapshot newer than the requested max age is reused, and concurrent requests wait for the
+ * same in-flight query to the {@link BatteryStatsManager}. Callers must hand the acquired snapshot
+ * back with {@link #release(BatteryUsageStats)} instead of closing it, and the snapshot is closed
+ * once it is replaced by a newer one and no longer in use.
+ */
+public final class BatteryUsageStatsCache {
+    private static final String TAG = "BatteryUsageStatsCache";
+
+    @VisibleForTesting
+    static final long DEFAULT_MAX_AGE_MS = Duration.ofSeconds(10).toMillis();
+
+    private static final int SLOT_WITHOUT_HISTORY = 0;
+    private static final int SLOT_WITH_HISTORY = 1;
+
+    private static final Object sLock = new Object();
+
+    @GuardedBy("sLock")
+    private static final Snapshot[] sLatestSnapshots = new Snapshot[2];
+
+    @GuardedBy("sLock")
+    private static final PendingQuery[] sPendingQueries = new PendingQuery[2];
+
+    @GuardedBy("sLock")
+    private static final Map<BatteryUsageStats, Snapshot> sAcquiredSnapshots =
+            new IdentityHashMap<>();
+
+    private BatteryUsageStatsCache() {}
+
+    /** Acquires a {@link BatteryUsageStats} snapshot no older than {@link #DEFAULT_MAX_AGE_MS}. */
+    public static BatteryUsageStats acquire(Context context, boolean includeBatteryHistory) {
+        return acquire(
+                context,
+                context.getSystemService(BatteryStatsManager.class),
+                includeBatteryHistory,
+                DataProcessor.BATTERY_STATS_MAX_AGE_UNSET);
+    }
+
+    /**
+     * Acquires a {@link BatteryUsageStats} snapshot no older than {@code maxStatsAgeMs}, or
+     * {@link #DEFAULT_MAX_AGE_MS} if it is {@link DataProcessor#BATTERY_STATS_MAX_AGE_UNSET}.
+     */
+    public static BatteryUsageStats acquire(
+            Context context,
+            BatteryStatsManager batteryStatsManager,
+            boolean includeBatteryHistory,
+            long maxStatsAgeMs) {
+        final Context appContext = context.getApplicationContext();
+        final int slot = includeBatteryHistory ? SLOT_WITH_HISTORY : SLOT_WITHOUT_HISTORY;
+        final long maxAgeMs =
+                maxStatsAgeMs == DataProcessor.BATTERY_STATS_MAX_AGE_UNSET
+                        ? DEFAULT_MAX_AGE_MS
+                        : maxStatsAgeMs;
+        final PendingQuery pendingQuery;
+        synchronized (sLock) {
+            final Snapshot latestSnapshot = sLatestSnapshots[slot];
+            if (latestSnapshot != null
+                    && latestSnapshot.mAppContext == appContext
+                    && SystemClock.elapsedRealtime() - latestSnapshot.mElapsedRealtime
+                            <= maxAgeMs) {
+                latestSnapshot.mRefCount++;
+                return latestSnapshot.mBatteryUsageStats;
+            }
+            final PendingQuery inFlightQuery = sPendingQueries[slot];
+            if (inFlightQuery != null && inFlightQuery.mAppContext == appContext) {
+                // Waits for the in-flight query rather than sending a duplicated one.
+                inFlightQuery.mWaiterCount++;
+                return getOrCreateDefault(waitForSnapshot(inFlightQuery));
+            }
+            pendingQuery = new PendingQuery(appContext);
+            pendingQuery.mWaiterCount++;
+            sPendingQueries[slot] = pendingQuery;
+        }
+        BatteryUsageStats batteryUsageStats = null;
+        try {
+            batteryUsageStats = query(batteryStatsManager, includeBatteryHistory, maxStatsAgeMs);
+        } finally {
+            publish(slot, pendingQuery, batteryUsageStats);
+        }
+        return getOrCreateDefault(pendingQuery.mSnapshot);
+    }
+
+    /** Releases the {@link BatteryUsageStats} returned by {@link #acquire}. */
+    public static void release(@Nullable BatteryUsageStats batteryUsageStats) {
+        if (batteryUsageStats == null) {
+            return;
+        }
+        synchronized (sLock) {
+            final Snapshot snapshot = sAcquiredSnapshots.get(batteryUsageStats);
+            if (snapshot != null) {
+                snapshot.mRefCount--;
+                // Keeps the latest snapshot for reusing in the following requests.
+                if (snapshot.mRefCount > 0 || !snapshot.mIsReplaced) {
+                    return;
+                }
+                sAcquiredSnapshots.remove(batteryUsageStats);
+            }
+        }
+        close(batteryUsageStats);
+    }
+
+    /** Returns the number of the unreleased references of the {@link BatteryUsageStats}. */
+    @VisibleForTesting
+    static int getRefCount(BatteryUsageStats batteryUsageStats) {
+        synchronized (sLock) {
+            final Snapshot snapshot = sAcquiredSnapshots.get(batteryUsageStats);
+            return snapshot != null ? snapshot.mRefCount : 0;
+        }
+    }
+
+    /** Drops all cached snapshots, which are closed once they are no longer in use. */
+    @VisibleForTesting
+    static void clear() {
+        synchronized (sLock) {
+            for (int slot = 0; slot < sLatestSnapshots.length; slot++) {
+                replaceLatestSnapshot(slot, /* snapshot= */ null);
+            }
+        }
+    }
+
+    private static void publish(
+            int slot, PendingQuery pendingQuery, @Nullable BatteryUsageStats batteryUsageStats) {
+        synchronized (sLock) {
+            if (sPendingQueries[slot] == pendingQuery) {
+                sPendingQueries[slot] = null;
+            }
+            if (batteryUsageStats != null) {
+                final Snapshot snapshot =
+                        new Snapshot(
+                                pendingQuery.mAppContext,
+                                batteryUsageStats,
+                                SystemClock.elapsedRealtime());
+                // Each waiter holds a reference of the published snapshot.
+                snapshot.mRefCount = pendingQuery.mWaiterCount;
+                sAcquiredSnapshots.put(batteryUsageStats, snapshot);
+                replaceLatestSnapshot(slot, snapshot);
+                pendingQuery.mSnapshot = snapshot;
+            }
+            pendingQuery.mIsDone = true;
+            sLock.notifyAll();
+        }
+    }
+
+    @GuardedBy("sLock")
+    @Nullable
+    private static Snapshot waitForSnapshot(PendingQuery pendingQuery) {
+        boolean isInterrupted = false;
+        while (!pendingQuery.mIsDone) {
+            try {
+                sLock.wait();
+            } catch (InterruptedException e) {
+                // The waiter reference is counted, so keeps waiting until it is published.
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return pendingQuery.mSnapshot;
+    }
+
+    private static BatteryUsageStats getOrCreateDefault(@Nullable Snapshot snapshot) {
+        // Use default BatteryUsageStats if the query is failed.
+        return snapshot != null
+                ? snapshot.mBatteryUsageStats
+                : new BatteryUsageStats.Builder(new String[0]).build();
+    }
+
+    @GuardedBy("sLock")
+    private static void replaceLatestSnapshot(int slot, @Nullable Snapshot snapshot) {
+        final Snapshot previousSnapshot = sLatestSnapshots[slot];
+        sLatestSnapshots[slot] = snapshot;
+        if (previousSnapshot == null) {
+            return;
+        }
+        previousSnapshot.mIsReplaced = true;
+        if (previousSnapshot.mRefCount == 0) {
+            sAcquiredSnapshots.remove(previousSnapshot.mBatteryUsageStats);
+            close(previousSnapshot.mBatteryUsageStats);
+        }
+    }
+
+    @Nullable
+    private static BatteryUsageStats query(
+            BatteryStatsManager batteryStatsManager,
+            boolean includeBatteryHistory,
+            long maxStatsAgeMs) {
+        final long startTime = System.currentTimeMillis();
+        final BatteryUsageStatsQuery.Builder builder = new BatteryUsageStatsQuery.Builder();
+        if (includeBatteryHistory) {
+            builder.includeBatteryHistory();
+        }
+        if (maxStatsAgeMs != DataProcessor.BATTERY_STATS_MAX_AGE_UNSET) {
+            builder.setMaxStatsAgeMs(maxStatsAgeMs);
+        }
+        BatteryUsageStats batteryUsageStats = null;
+        try {
+            batteryUsageStats =
+                    batteryStatsManager.getBatteryUsageStats(
+                            builder.includeProcessStateData().accumulated().build());
+        } catch (RuntimeException e) {
+            Log.e(TAG, "query() for getBatteryUsageStats()", e);
+        }
+        Log.d(
+                TAG,
+                String.format(
+                        "getBatteryUsageStats() includeBatteryHistory=%b in %d/ms",
+                        includeBatteryHistory, System.currentTimeMillis() - startTime));
+        return batteryUsageStats;
+    }
+
+    private static void close(BatteryUsageStats batteryUsageStats) {
+        try {
+            batteryUsageStats.close();
+        } catch (Exception e) {
+            Log.e(TAG, "BatteryUsageStats.close() failed", e);
+        }
+    }
+
+    private static final class Snapshot {
+        final Context mAppContext;
+        final BatteryUsageStats mBatteryUsageStats;
+        final long mElapsedRealtime;
+        int mRefCount;
+        boolean mIsReplaced;
+
+        Snapshot(Context appContext, BatteryUsageStats batteryUsageStats, long elapsedRealtime) {
+            mAppContext = appContext;
+            mBatteryUsageStats = batteryUsageStats;
+            mElapsedRealtime = elapsedRealtime;
+        }
+    }
+
+    private static final class PendingQuery {
+        final Context mAppContext;
+        int mWaiterCount;
+        boolean mIsDone;
+        @Nullable Snapshot mSnapshot;
+
+        PendingQuery(Context appContext) {
+            mAppContext = appContext;
+        }
+    }
+}
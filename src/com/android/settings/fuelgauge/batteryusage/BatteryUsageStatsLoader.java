@@ -19,17 +19,23 @@ package com.android.settings.fuelgauge.batteryusage;
 import android.content.Context;
 import android.os.BatteryStatsManager;
 import android.os.BatteryUsageStats;
-import android.os.BatteryUsageStatsQuery;
-import android.util.Log;
 
 import com.android.settingslib.utils.AsyncLoaderCompat;
 
-/** Loader to get new {@link BatteryUsageStats} in the background */
+/**
+ * Loader to get new {@link BatteryUsageStats} in the background.
+ *
+ * <p>The loader owns the loaded result, which is released to the {@link BatteryUsageStatsCache}
+ * once it's discarded, so the callers must not release or close it.
+ */
 public class BatteryUsageStatsLoader extends AsyncLoaderCompat<BatteryUsageStats> {
-    private static final String TAG = "BatteryUsageStatsLoader";
     private final BatteryStatsManager mBatteryStatsManager;
     private final boolean mIncludeBatteryHistory;
 
+    // The result held by this loader, only accessed in the main thread.
+    private BatteryUsageStats mResult;
+    private boolean mIsRedelivering;
+
     public BatteryUsageStatsLoader(Context context, boolean includeBatteryHistory) {
         super(context);
         mBatteryStatsManager = context.getSystemService(BatteryStatsManager.class);
@@ -38,20 +44,48 @@ public class BatteryUsageStatsLoader extends AsyncLoaderCompat<BatteryUsageStats
 
     @Override
     public BatteryUsageStats loadInBackground() {
-        final BatteryUsageStatsQuery.Builder builder = new BatteryUsageStatsQuery.Builder();
-        if (mIncludeBatteryHistory) {
-            builder.includeBatteryHistory();
-        }
+        return BatteryUsageStatsCache.acquire(
+                getContext(),
+                mBatteryStatsManager,
+                mIncludeBatteryHistory,
+                DataProcessor.BATTERY_STATS_MAX_AGE_UNSET);
+    }
+
+    @Override
+    protected void onStartLoading() {
+        // The held result is delivered again without being acquired.
+        mIsRedelivering = true;
         try {
-            return mBatteryStatsManager.getBatteryUsageStats(
-                    builder.includeProcessStateData().accumulated().build());
-        } catch (RuntimeException e) {
-            Log.e(TAG, "loadInBackground() for getBatteryUsageStats()", e);
-            // Use default BatteryUsageStats.
-            return new BatteryUsageStats.Builder(new String[0]).build();
+            super.onStartLoading();
+        } finally {
+            mIsRedelivering = false;
+        }
+    }
+
+    @Override
+    public void deliverResult(BatteryUsageStats result) {
+        if (isReset()) {
+            super.deliverResult(result);
+            return;
+        }
+        final boolean isReacquired = !mIsRedelivering && result != null && result == mResult;
+        mResult = result;
+        super.deliverResult(result);
+        if (isReacquired) {
+            // The same shared snapshot is not discarded as a replaced result, so releases the
+            // reference acquired by the latest load here.
+            BatteryUsageStatsCache.release(result);
         }
     }
 
     @Override
-    protected void onDiscardResult(BatteryUsageStats result) {}
+    protected void onReset() {
+        super.onReset();
+        mResult = null;
+    }
+
+    @Override
+    protected void onDiscardResult(BatteryUsageStats result) {
+        BatteryUsageStatsCache.release(result);
+    }
 }
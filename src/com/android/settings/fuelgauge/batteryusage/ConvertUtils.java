@@ -42,6 +42,8 @@ import com.android.settings.fuelgauge.batteryusage.db.AppUsageEventEntity;
 import com.android.settings.fuelgauge.batteryusage.db.BatteryEventEntity;
 import com.android.settings.fuelgauge.batteryusage.db.BatteryUsageSlotEntity;
 
+import com.google.protobuf.InvalidProtocolBufferException;
+
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.ArrayList;
@@ -133,7 +135,7 @@ public final class ConvertUtils {
                         bootTimestamp);
         values.put(
                 BatteryHistEntry.KEY_BATTERY_INFORMATION,
-                convertBatteryInformationToString(batteryInformation));
+                convertBatteryInformationToBytes(batteryInformation));
         // Save the BatteryInformation unencoded string into database for debugging.
         if (Build.TYPE.equals("userdebug")) {
             values.put(
@@ -181,23 +183,53 @@ public final class ConvertUtils {
         return Base64.encodeToString(batteryInformation.toByteArray(), Base64.DEFAULT);
     }
 
-    /** Gets the {@link BatteryInformation} instance from {@link ContentValues}. */
+    /** Gets the serialized bytes from {@link BatteryInformation} instance. */
+    public static byte[] convertBatteryInformationToBytes(
+            final BatteryInformation batteryInformation) {
+        return batteryInformation.toByteArray();
+    }
+
+    /** Gets the {@link BatteryInformation} instance from serialized bytes. */
+    public static BatteryInformation parseBatteryInformation(@Nullable final byte[] content) {
+        if (content == null || content.length == 0) {
+            return BatteryInformation.getDefaultInstance();
+        }
+        try {
+            return BatteryInformation.parseFrom(content);
+        } catch (InvalidProtocolBufferException e) {
+            Log.e(TAG, "Failed to deserialize BatteryInformation", e);
+            return BatteryInformation.getDefaultInstance();
+        }
+    }
+
+    /**
+     * Gets the {@link BatteryInformation} instance from {@link ContentValues}. Supports both the
+     * serialized bytes and the legacy Base64 encoded string.
+     */
     public static BatteryInformation getBatteryInformation(
             final ContentValues values, final String key) {
         final BatteryInformation defaultInstance = BatteryInformation.getDefaultInstance();
         if (values != null && values.containsKey(key)) {
-            return BatteryUtils.parseProtoFromString(values.getAsString(key), defaultInstance);
+            final Object value = values.get(key);
+            return value instanceof byte[]
+                    ? parseBatteryInformation((byte[]) value)
+                    : BatteryUtils.parseProtoFromString(values.getAsString(key), defaultInstance);
         }
         return defaultInstance;
     }
 
-    /** Gets the {@link BatteryInformation} instance from {@link Cursor}. */
+    /**
+     * Gets the {@link BatteryInformation} instance from {@link Cursor}. Supports both the
+     * serialized bytes and the legacy Base64 encoded string.
+     */
     public static BatteryInformation getBatteryInformation(final Cursor cursor, final String key) {
         final BatteryInformation defaultInstance = BatteryInformation.getDefaultInstance();
         final int columnIndex = cursor.getColumnIndex(key);
         if (columnIndex >= 0) {
-            return BatteryUtils.parseProtoFromString(
-                    cursor.getString(columnIndex), defaultInstance);
+            return cursor.getType(columnIndex) == Cursor.FIELD_TYPE_BLOB
+                    ? parseBatteryInformation(cursor.getBlob(columnIndex))
+                    : BatteryUtils.parseProtoFromString(
+                            cursor.getString(columnIndex), defaultInstance);
         }
         return defaultInstance;
     }
@@ -68,6 +68,14 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -90,6 +98,10 @@ public final class DataProcessor {
     private static final Map<String, BatteryHistEntry> EMPTY_BATTERY_MAP = new ArrayMap<>();
     private static final BatteryHistEntry EMPTY_BATTERY_HIST_ENTRY =
             new BatteryHistEntry(new ContentValues());
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+    private static final long PARALLEL_THREAD_KEEP_ALIVE_SECONDS = 30L;
+
+    private static ExecutorService sParallelExecutor;
 
     @VisibleForTesting
     static final long DEFAULT_USAGE_DURATION_FOR_INCOMPLETE_INTERVAL =
@@ -108,6 +120,8 @@ public final class DataProcessor {
 
     @VisibleForTesting static boolean sDebug = false;
 
+    @VisibleForTesting static boolean sParallelProcessingEnabled = true;
+
     @VisibleForTesting static long sTestCurrentTimeMillis = 0;
 
     @VisibleForTesting static Set<String> sTestSystemAppsPackageNames;
@@ -148,16 +162,7 @@ public final class DataProcessor {
         // Wrap and processed history map into easy-to-use format for UI rendering.
         final BatteryLevelData batteryLevelData =
                 getLevelDataThroughProcessedHistoryMap(context, processedBatteryHistoryMap);
-        // Loads the current battery usage data from the battery stats service.
-        final Map<String, BatteryHistEntry> currentBatteryHistoryMap =
-                getCurrentBatteryHistoryMapFromStatsService(context);
-        // Replaces the placeholder in processedBatteryHistoryMap.
-        for (Map.Entry<Long, Map<String, BatteryHistEntry>> mapEntry :
-                processedBatteryHistoryMap.entrySet()) {
-            if (mapEntry.getValue().containsKey(CURRENT_TIME_BATTERY_HISTORY_PLACEHOLDER)) {
-                mapEntry.setValue(currentBatteryHistoryMap);
-            }
-        }
+        replaceCurrentBatteryHistoryPlaceholder(context, processedBatteryHistoryMap);
         return batteryLevelData == null
                 ? null
                 : generateBatteryUsageMap(
@@ -173,6 +178,41 @@ public final class DataProcessor {
                         batteryLevelData);
     }
 
+    /**
+     * @return Returns battery usage data of different entries since last full charge. <br>
+     *     The hourly slots already persisted in the battery usage slot table are reused and only
+     *     the slots after the latest battery level record are recomputed from battery history.
+     *     Falls back to process the whole history since last full charge if the persisted slots
+     *     could not cover all the hourly slots. <br>
+     *     Returns null if the input is invalid or there is no enough data.
+     */
+    @Nullable
+    public static Map<Integer, Map<Integer, BatteryDiffData>> getBatteryUsageDataIncrementally(
+            Context context, UserIdsSeries userIdsSeries) {
+        final long start = System.currentTimeMillis();
+        final Calendar calendar = Calendar.getInstance();
+        final long lastFullChargeTime = DatabaseUtils.getLastFullChargeTime(context);
+        // Only the main user profile data is persisted into the battery usage slot table.
+        if (userIdsSeries.isMainUserProfileOnly()) {
+            final Map<Integer, Map<Integer, BatteryDiffData>> incrementalUsageData =
+                    getIncrementalBatteryUsageData(
+                            context, userIdsSeries, calendar, lastFullChargeTime);
+            if (incrementalUsageData != null) {
+                Log.d(
+                        TAG,
+                        String.format(
+                                "getBatteryUsageDataIncrementally() in %d/ms",
+                                (System.currentTimeMillis() - start)));
+                return incrementalUsageData;
+            }
+        }
+        return getBatteryUsageData(
+                context,
+                userIdsSeries,
+                DatabaseUtils.getHistoryMapSinceLatestRecordBeforeQueryTimestamp(
+                        context, calendar, /* queryTimestamp= */ 0, lastFullChargeTime));
+    }
+
     /** Gets the {@link BatteryUsageStats} from system service. */
     @NonNull
     public static BatteryUsageStats getBatteryUsageStats(final Context context) {
@@ -276,6 +316,13 @@ public final class DataProcessor {
         final Map<Integer, Map<Integer, Map<Long, Map<String, List<AppUsagePeriod>>>>> resultMap =
                 new ArrayMap<>();
 
+        // Each hourly slot only reads the sorted event lists, so the slots are computed in parallel
+        // and merged back into the result map in the original daily and hourly order.
+        final List<Map<Integer, Map<Long, Map<String, List<AppUsagePeriod>>>>> dailyMapList =
+                new ArrayList<>();
+        final List<Integer> hourlyIndexList = new ArrayList<>();
+        final List<Supplier<Map<Long, Map<String, List<AppUsagePeriod>>>>> slotTasks =
+                new ArrayList<>();
         for (int dailyIndex = 0; dailyIndex < hourlyBatteryLevelsPerDay.size(); dailyIndex++) {
             final Map<Integer, Map<Long, Map<String, List<AppUsagePeriod>>>> dailyMap =
                     new ArrayMap<>();
@@ -287,22 +334,29 @@ public final class DataProcessor {
             for (int hourlyIndex = 0; hourlyIndex < timestamps.size() - 1; hourlyIndex++) {
                 final long startTimestamp = timestamps.get(hourlyIndex);
                 final long endTimestamp = timestamps.get(hourlyIndex + 1);
-                // Gets the app usage event list for this hourly slot first.
-                final List<AppUsageEvent> hourlyAppUsageEventList =
-                        getAppUsageEventListWithinTimeRangeWithBuffer(
-                                appUsageEventList, startTimestamp, endTimestamp);
-
-                // The value could be null when there is no data in the hourly slot.
-                dailyMap.put(
-                        hourlyIndex,
-                        buildAppUsagePeriodList(
-                                context,
-                                hourlyAppUsageEventList,
-                                batteryEventList,
-                                startTimestamp,
-                                endTimestamp));
+                dailyMapList.add(dailyMap);
+                hourlyIndexList.add(hourlyIndex);
+                slotTasks.add(
+                        () -> {
+                            // Gets the app usage event list for this hourly slot first.
+                            final List<AppUsageEvent> hourlyAppUsageEventList =
+                                    getAppUsageEventListWithinTimeRangeWithBuffer(
+                                            appUsageEventList, startTimestamp, endTimestamp);
+                            return buildAppUsagePeriodList(
+                                    context,
+                                    hourlyAppUsageEventList,
+                                    batteryEventList,
+                                    startTimestamp,
+                                    endTimestamp);
+                        });
             }
         }
+        final List<Map<Long, Map<String, List<AppUsagePeriod>>>> slotResults =
+                invokeAllInOrder(slotTasks);
+        for (int i = 0; i < slotResults.size(); i++) {
+            // The value could be null when there is no data in the hourly slot.
+            dailyMapList.get(i).put(hourlyIndexList.get(i), slotResults.get(i));
+        }
         return resultMap;
     }
 
@@ -500,22 +554,24 @@ public final class DataProcessor {
         return BatteryStatus.isCharged(firstHistEntry.mBatteryStatus, firstHistEntry.mBatteryLevel);
     }
 
+    /** Searches the nearest lower and upper timestamp value in the sorted timestamp list. */
     @VisibleForTesting
     static long[] findNearestTimestamp(final List<Long> timestamps, final long target) {
-        final long[] results = new long[] {Long.MIN_VALUE, Long.MAX_VALUE};
-        // Searches the nearest lower and upper timestamp value.
-        timestamps.forEach(
-                timestamp -> {
-                    if (timestamp <= target && timestamp > results[0]) {
-                        results[0] = timestamp;
-                    }
-                    if (timestamp >= target && timestamp < results[1]) {
-                        results[1] = timestamp;
-                    }
-                });
         // Uses zero value to represent invalid searching result.
-        results[0] = results[0] == Long.MIN_VALUE ? 0 : results[0];
-        results[1] = results[1] == Long.MAX_VALUE ? 0 : results[1];
+        final long[] results = new long[] {0L, 0L};
+        final int index = Collections.binarySearch(timestamps, target);
+        if (index >= 0) {
+            results[0] = target;
+            results[1] = target;
+            return results;
+        }
+        final int insertionIndex = -(index + 1);
+        if (insertionIndex > 0) {
+            results[0] = timestamps.get(insertionIndex - 1);
+        }
+        if (insertionIndex < timestamps.size()) {
+            results[1] = timestamps.get(insertionIndex);
+        }
         return results;
     }
 
@@ -532,6 +588,10 @@ public final class DataProcessor {
         // Each time slot usage diff data =
         //     sum(Math.abs(timestamp[i+1] data - timestamp[i] data));
         // since we want to aggregate every hour usage diff data into a single time slot.
+        // The slots are independent of each other, so they are computed in parallel and merged
+        // back in the original slot order.
+        final List<Long> slotTimestamps = new ArrayList<>();
+        final List<Supplier<BatteryDiffData>> slotTasks = new ArrayList<>();
         for (int dailyIndex = 0; dailyIndex < hourlyBatteryLevelsPerDay.size(); dailyIndex++) {
             if (hourlyBatteryLevelsPerDay.get(dailyIndex) == null) {
                 continue;
@@ -557,26 +617,32 @@ public final class DataProcessor {
                 }
                 slotBatteryHistoryList.add(
                         batteryHistoryMap.getOrDefault(endTimestamp, EMPTY_BATTERY_MAP));
-
-                final BatteryDiffData hourlyBatteryDiffData =
-                        insertHourlyUsageDiffDataPerSlot(
-                                context,
-                                startTimestamp,
-                                endTimestamp,
-                                startBatteryLevel,
-                                endBatteryLevel,
-                                userIdsSeries,
-                                slotDuration,
-                                systemAppsPackageNames,
-                                systemAppsUids,
-                                appUsagePeriodMap == null
-                                                || appUsagePeriodMap.get(dailyIndex) == null
-                                        ? null
-                                        : appUsagePeriodMap.get(dailyIndex).get(hourlyIndex),
-                                slotBatteryHistoryList);
-                batteryDiffDataMap.put(startTimestamp, hourlyBatteryDiffData);
+                final Map<Long, Map<String, List<AppUsagePeriod>>> appUsageMap =
+                        appUsagePeriodMap == null || appUsagePeriodMap.get(dailyIndex) == null
+                                ? null
+                                : appUsagePeriodMap.get(dailyIndex).get(hourlyIndex);
+
+                slotTimestamps.add(startTimestamp);
+                slotTasks.add(
+                        () ->
+                                insertHourlyUsageDiffDataPerSlot(
+                                        context,
+                                        startTimestamp,
+                                        endTimestamp,
+                                        startBatteryLevel,
+                                        endBatteryLevel,
+                                        userIdsSeries,
+                                        slotDuration,
+                                        systemAppsPackageNames,
+                                        systemAppsUids,
+                                        appUsageMap,
+                                        slotBatteryHistoryList));
             }
         }
+        final List<BatteryDiffData> slotResults = invokeAllInOrder(slotTasks);
+        for (int i = 0; i < slotResults.size(); i++) {
+            batteryDiffDataMap.put(slotTimestamps.get(i), slotResults.get(i));
+        }
         return batteryDiffDataMap;
     }
 
@@ -946,6 +1012,108 @@ public final class DataProcessor {
         return result;
     }
 
+    /**
+     * Generates the battery usage data from the persisted {@link BatteryUsageSlot} and the battery
+     * history after the latest slot, returns {@code null} if the persisted slots can't be reused.
+     */
+    @Nullable
+    private static Map<Integer, Map<Integer, BatteryDiffData>> getIncrementalBatteryUsageData(
+            Context context,
+            final UserIdsSeries userIdsSeries,
+            final Calendar calendar,
+            final long lastFullChargeTime) {
+        final List<BatteryEvent> batteryLevelRecordEvents =
+                DatabaseUtils.getBatteryEvents(
+                        context,
+                        calendar,
+                        lastFullChargeTime,
+                        DatabaseUtils.BATTERY_LEVEL_RECORD_EVENTS);
+        final List<BatteryUsageSlot> batteryUsageSlotList =
+                DatabaseUtils.getBatteryUsageSlots(context, calendar, lastFullChargeTime);
+        if (batteryLevelRecordEvents.isEmpty() || batteryUsageSlotList.isEmpty()) {
+            Log.d(TAG, "no persisted battery usage slots to reuse");
+            return null;
+        }
+        // The battery level record events are sorted in descending order, so the first one is the
+        // end timestamp of the latest persisted battery usage slot.
+        final long startTimestamp = batteryLevelRecordEvents.get(0).getTimestamp();
+        final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap =
+                DatabaseUtils.getHistoryMapSinceLatestRecordBeforeQueryTimestamp(
+                        context, calendar, startTimestamp, lastFullChargeTime);
+        if (batteryHistoryMap == null || batteryHistoryMap.isEmpty()) {
+            return null;
+        }
+        // Only processes the battery history after the latest persisted battery usage slot.
+        final Map<Long, Map<String, BatteryHistEntry>> processedBatteryHistoryMap =
+                getHistoryMapWithExpectedTimestamps(context, batteryHistoryMap);
+        final BatteryLevelData latestBatteryLevelData =
+                getLevelDataThroughProcessedHistoryMap(context, processedBatteryHistoryMap);
+        final BatteryLevelData batteryLevelData =
+                BatteryLevelData.combine(latestBatteryLevelData, batteryLevelRecordEvents);
+        if (latestBatteryLevelData == null || batteryLevelData == null) {
+            return null;
+        }
+        replaceCurrentBatteryHistoryPlaceholder(context, processedBatteryHistoryMap);
+
+        final Set<String> systemAppsPackageNames = getSystemAppsPackageNames(context);
+        final Set<Integer> systemAppsUids = getSystemAppsUids(context);
+        final Map<Long, BatteryDiffData> batteryDiffDataMap = new ArrayMap<>();
+        for (BatteryUsageSlot batteryUsageSlot : batteryUsageSlotList) {
+            batteryDiffDataMap.put(
+                    batteryUsageSlot.getStartTimestamp(),
+                    ConvertUtils.convertToBatteryDiffData(
+                            context, batteryUsageSlot, systemAppsPackageNames, systemAppsUids));
+        }
+        batteryDiffDataMap.putAll(
+                getBatteryDiffDataMap(
+                        context,
+                        userIdsSeries,
+                        latestBatteryLevelData.getHourlyBatteryLevelsPerDay(),
+                        processedBatteryHistoryMap,
+                        /* appUsagePeriodMap= */ null,
+                        systemAppsPackageNames,
+                        systemAppsUids));
+        if (!containsAllHourlySlots(
+                batteryLevelData.getHourlyBatteryLevelsPerDay(), batteryDiffDataMap)) {
+            Log.w(TAG, "persisted battery usage slots are incomplete, recompute all slots");
+            return null;
+        }
+        return generateBatteryUsageMap(context, batteryDiffDataMap, batteryLevelData);
+    }
+
+    private static boolean containsAllHourlySlots(
+            final List<BatteryLevelData.PeriodBatteryLevelData> hourlyBatteryLevelsPerDay,
+            final Map<Long, BatteryDiffData> batteryDiffDataMap) {
+        for (BatteryLevelData.PeriodBatteryLevelData hourlyBatteryLevels :
+                hourlyBatteryLevelsPerDay) {
+            if (hourlyBatteryLevels == null) {
+                continue;
+            }
+            final List<Long> hourlyTimestamps = hourlyBatteryLevels.getTimestamps();
+            for (int hourlyIndex = 0; hourlyIndex < hourlyTimestamps.size() - 1; hourlyIndex++) {
+                if (!batteryDiffDataMap.containsKey(hourlyTimestamps.get(hourlyIndex))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void replaceCurrentBatteryHistoryPlaceholder(
+            Context context,
+            final Map<Long, Map<String, BatteryHistEntry>> processedBatteryHistoryMap) {
+        // Loads the current battery usage data from the battery stats service.
+        final Map<String, BatteryHistEntry> currentBatteryHistoryMap =
+                getCurrentBatteryHistoryMapFromStatsService(context);
+        // Replaces the placeholder in processedBatteryHistoryMap.
+        for (Map.Entry<Long, Map<String, BatteryHistEntry>> mapEntry :
+                processedBatteryHistoryMap.entrySet()) {
+            if (mapEntry.getValue().containsKey(CURRENT_TIME_BATTERY_HISTORY_PLACEHOLDER)) {
+                mapEntry.setValue(currentBatteryHistoryMap);
+            }
+        }
+    }
+
     /** Gets the {@link BatteryUsageStats} from system service with tolerance age. */
     @NonNull
     private static BatteryUsageStats getBatteryUsageStats(final Context context,
@@ -1101,14 +1269,24 @@ public final class DataProcessor {
 
     @Nullable
     private static List<BatteryHistEntry> getBatteryHistListFromFromStatsService(Context context) {
-        try (BatteryUsageStats batteryUsageStats = getBatteryUsageStats(
-                context, /* isFromPeriodJob= */ false)) {
+        // Shares the snapshot with the battery usage page loaders.
+        final BatteryUsageStats batteryUsageStats =
+                BatteryUsageStatsCache.acquire(
+                        context,
+                        context.getSystemService(BatteryStatsManager.class),
+                        /* includeBatteryHistory= */ true,
+                        FeatureFactory.getFeatureFactory()
+                                .getPowerUsageFeatureProvider()
+                                .getBatteryUsageStatsMaxAgeMs(/* isFromPeriodJob= */ false));
+        try {
             final List<BatteryEntry> batteryEntryList =
                     generateBatteryEntryListFromBatteryUsageStats(context, batteryUsageStats);
             return convertToBatteryHistEntry(batteryEntryList, batteryUsageStats);
         } catch (Exception e) {
             Log.e(TAG, "getBatteryHistListFromFromStatsService:", e);
             return null;
+        } finally {
+            BatteryUsageStatsCache.release(batteryUsageStats);
         }
     }
 
@@ -1715,7 +1893,8 @@ public final class DataProcessor {
      *
      * @return A sorted list of apps using power.
      */
-    private static List<BatteryEntry> getCoalescedUsageList(
+    @VisibleForTesting
+    static List<BatteryEntry> getCoalescedUsageList(
             final Context context,
             final BatteryUtils batteryUtils,
             final BatteryUsageStats batteryUsageStats,
@@ -1919,6 +2098,59 @@ public final class DataProcessor {
         return v2 > v1 ? v2 - v1 : 0;
     }
 
+    /**
+     * Runs the independent {@code tasks} on the shared bounded executor and returns the results in
+     * the same order as the tasks, so the merged output is identical to the sequential one.
+     */
+    @VisibleForTesting
+    static <T> List<T> invokeAllInOrder(final List<Supplier<T>> tasks) {
+        final List<T> results = new ArrayList<>(tasks.size());
+        if (!sParallelProcessingEnabled || PARALLELISM <= 1 || tasks.size() <= 1) {
+            for (Supplier<T> task : tasks) {
+                results.add(task.get());
+            }
+            return results;
+        }
+        final List<Callable<T>> callables = new ArrayList<>(tasks.size());
+        for (Supplier<T> task : tasks) {
+            callables.add(task::get);
+        }
+        try {
+            for (Future<T> future : getParallelExecutor().invokeAll(callables)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Log.w(TAG, "interrupted while processing in parallel, fallback to sequential", e);
+            results.clear();
+            for (Supplier<T> task : tasks) {
+                results.add(task.get());
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    private static synchronized ExecutorService getParallelExecutor() {
+        if (sParallelExecutor == null) {
+            final ThreadPoolExecutor executor =
+                    new ThreadPoolExecutor(
+                            PARALLELISM,
+                            PARALLELISM,
+                            PARALLEL_THREAD_KEEP_ALIVE_SECONDS,
+                            TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<>());
+            // Releases the idle threads since the data is only processed occasionally.
+            executor.allowCoreThreadTimeOut(true);
+            sParallelExecutor = executor;
+        }
+        return sParallelExecutor;
+    }
+
     private static long getCurrentTimeMillis() {
         return sTestCurrentTimeMillis > 0 ? sTestCurrentTimeMillis : System.currentTimeMillis();
     }
@@ -351,21 +351,12 @@ public final class DatabaseUtils {
                         .appendQueryParameter(QUERY_KEY_TIMESTAMP, Long.toString(queryTimestamp))
                         .build();
 
-        final List<BatteryHistEntry> batteryHistEntryList =
-                loadListFromContentProvider(
-                        context, batteryStateUri, cursor -> new BatteryHistEntry(cursor));
-        final Map<Long, Map<String, BatteryHistEntry>> resultMap = new ArrayMap();
-        for (final BatteryHistEntry entry : batteryHistEntryList) {
-            final long timestamp = entry.mTimestamp;
-            final String key = entry.getKey();
-            Map batteryHistEntryMap = resultMap.get(timestamp);
-            // Creates new one if there is no corresponding map.
-            if (batteryHistEntryMap == null) {
-                batteryHistEntryMap = new ArrayMap();
-                resultMap.put(timestamp, batteryHistEntryMap);
-            }
-            batteryHistEntryMap.put(key, entry);
-        }
+        final Map<Long, Map<String, BatteryHistEntry>> resultMap =
+                loadFromContentProvider(
+                        context,
+                        batteryStateUri,
+                        new ArrayMap<>(),
+                        DatabaseUtils::convertToBatteryHistoryMap);
 
         if (resultMap == null || resultMap.isEmpty()) {
             Log.d(TAG, "getBatteryHistoryMap() returns empty or null");
@@ -481,6 +472,8 @@ public final class DatabaseUtils {
                         database.batteryStateDao().clearAllBefore(earliestTimestamp);
                         database.batteryUsageSlotDao().clearAllBefore(earliestTimestamp);
                         database.batteryReattributeDao().clearAllBefore(earliestTimestamp);
+                        BatteryStateDatabase.vacuumIfNeeded(
+                                database.getOpenHelper().getWritableDatabase());
                     } catch (RuntimeException e) {
                         Log.e(TAG, "clearAllBefore() failed", e);
                     }
@@ -777,13 +770,13 @@ public final class DatabaseUtils {
             valuesList.add(contentValues);
         }
         resolver.notifyChange(BATTERY_CONTENT_URI, /* observer= */ null);
+        final long elapsedTime = System.currentTimeMillis() - startTime;
+        // Records the insert latency into the periodic job history for the dump.
         BatteryUsageLogUtils.writeLog(
-                context, Action.INSERT_USAGE_DATA, "size=" + size + " " + errorMessage);
-        Log.d(
-                TAG,
-                String.format(
-                        "sendBatteryEntryData() size=%d in %d/ms",
-                        size, (System.currentTimeMillis() - startTime)));
+                context,
+                Action.INSERT_USAGE_DATA,
+                String.format("size=%d in %d/ms %s", size, elapsedTime, errorMessage));
+        Log.d(TAG, String.format("sendBatteryEntryData() size=%d in %d/ms", size, elapsedTime));
         if (isFullChargeStart) {
             recordDateTime(context, KEY_LAST_UPLOAD_FULL_CHARGE_TIME);
         }
@@ -946,6 +939,23 @@ public final class DatabaseUtils {
                         cursor.moveToFirst() ? cursor.getLong(/* columnIndex= */ 0) : defaultValue);
     }
 
+    /** Groups the battery states by timestamp without building an intermediate list. */
+    private static Map<Long, Map<String, BatteryHistEntry>> convertToBatteryHistoryMap(
+            Cursor cursor) {
+        final Map<Long, Map<String, BatteryHistEntry>> resultMap = new ArrayMap<>();
+        while (cursor.moveToNext()) {
+            final BatteryHistEntry entry = new BatteryHistEntry(cursor);
+            Map<String, BatteryHistEntry> batteryHistEntryMap = resultMap.get(entry.mTimestamp);
+            // Creates new one if there is no corresponding map.
+            if (batteryHistEntryMap == null) {
+                batteryHistEntryMap = new ArrayMap<>();
+                resultMap.put(entry.mTimestamp, batteryHistEntryMap);
+            }
+            batteryHistEntryMap.put(entry.getKey(), entry);
+        }
+        return resultMap;
+    }
+
     private static <E> List<E> loadListFromContentProvider(
             Context context, Uri uri, Function<Cursor, E> converter) {
         return loadFromContentProvider(
@@ -22,7 +22,6 @@ import android.content.Context;
 import android.os.BatteryUsageStats;
 import android.os.Bundle;
 import android.os.UserManager;
-import android.util.Log;
 
 import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
@@ -38,7 +37,6 @@ import java.lang.annotation.RetentionPolicy;
 
 /** Common base class for things that need to show the battery usage graph. */
 public abstract class PowerUsageBase extends DashboardFragment {
-    private static final String TAG = "PowerUsageBase";
 
     @VisibleForTesting static final String KEY_REFRESH_TYPE = "refresh_type";
     @VisibleForTesting static final String KEY_INCLUDE_HISTORY = "include_history";
@@ -96,7 +94,6 @@ public abstract class PowerUsageBase extends DashboardFragment {
     public void onStop() {
         super.onStop();
         mBatteryBroadcastReceiver.unRegister();
-        closeBatteryUsageStatsIfNeeded();
     }
 
     protected void restartBatteryStatsLoader(int refreshType) {
@@ -142,24 +139,13 @@ public abstract class PowerUsageBase extends DashboardFragment {
         @Override
         public void onLoadFinished(
                 Loader<BatteryUsageStats> loader, BatteryUsageStats batteryUsageStats) {
-            closeBatteryUsageStatsIfNeeded();
+            // The loader owns the result and releases it once it's discarded.
             mBatteryUsageStats = batteryUsageStats;
             PowerUsageBase.this.onLoadFinished(mRefreshType);
         }
 
         @Override
-        public void onLoaderReset(Loader<BatteryUsageStats> loader) {}
-    }
-
-    private void closeBatteryUsageStatsIfNeeded() {
-        if (mBatteryUsageStats == null) {
-            return;
-        }
-        try {
-            mBatteryUsageStats.close();
-        } catch (Exception e) {
-            Log.e(TAG, "BatteryUsageStats.close() failed", e);
-        } finally {
+        public void onLoaderReset(Loader<BatteryUsageStats> loader) {
             mBatteryUsageStats = null;
         }
     }
@@ -29,6 +29,10 @@ interface BatteryEventDao {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     fun insert(event: BatteryEventEntity)
 
+    /** Inserts [BatteryEventEntity] data into the database. */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    fun insertAll(events: List<BatteryEventEntity>)
+
     /** Gets all recorded data. */
     @Query("SELECT * FROM BatteryEventEntity ORDER BY timestamp DESC")
     fun getAll(): List<BatteryEventEntity>
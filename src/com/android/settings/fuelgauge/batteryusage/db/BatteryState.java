@@ -19,9 +19,9 @@ package com.android.settings.fuelgauge.batteryusage.db;
 import android.content.ContentValues;
 
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
-import com.android.settings.fuelgauge.BatteryUtils;
 import com.android.settings.fuelgauge.batteryusage.BatteryInformation;
 import com.android.settings.fuelgauge.batteryusage.ConvertUtils;
 
@@ -30,7 +30,7 @@ import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import java.util.Locale;
 
 /** A {@link Entity} class to save battery states snapshot into database. */
-@Entity
+@Entity(indices = {@Index(value = {"timestamp", "userId"})})
 public class BatteryState {
     @PrimaryKey(autoGenerate = true)
     private long mId;
@@ -42,7 +42,9 @@ public class BatteryState {
     public final long timestamp;
     public final int consumerType;
     public final boolean isFullChargeCycleStart;
-    public final String batteryInformation;
+
+    /** The serialized {@link BatteryInformation} proto, which is stored as a BLOB column. */
+    public final byte[] batteryInformation;
 
     /**
      * This field is filled only when build type is "userdebug".
@@ -64,7 +66,7 @@ public class BatteryState {
             long timestamp,
             int consumerType,
             boolean isFullChargeCycleStart,
-            String batteryInformation,
+            byte[] batteryInformation,
             String batteryInformationDebug) {
         // Records the app relative information.
         this.uid = uid;
@@ -91,8 +93,7 @@ public class BatteryState {
     public String toString() {
         final String recordAtDateTime = ConvertUtils.utcToLocalTimeForLogging(timestamp);
         final BatteryInformation batteryInformationInstance =
-                BatteryUtils.parseProtoFromString(
-                        batteryInformation, BatteryInformation.getDefaultInstance());
+                ConvertUtils.parseBatteryInformation(batteryInformation);
         final StringBuilder builder =
                 new StringBuilder()
                         .append("\nBatteryState{")
@@ -137,7 +138,14 @@ public class BatteryState {
             builder.setIsFullChargeCycleStart(contentValues.getAsBoolean("isFullChargeCycleStart"));
         }
         if (contentValues.containsKey("batteryInformation")) {
-            builder.setBatteryInformation(contentValues.getAsString("batteryInformation"));
+            final Object batteryInformation = contentValues.get("batteryInformation");
+            // Converts the legacy Base64 encoded string into the serialized bytes.
+            builder.setBatteryInformation(
+                    batteryInformation instanceof byte[]
+                            ? (byte[]) batteryInformation
+                            : ConvertUtils.convertBatteryInformationToBytes(
+                                    ConvertUtils.getBatteryInformation(
+                                            contentValues, "batteryInformation")));
         }
         if (contentValues.containsKey("batteryInformationDebug")) {
             builder.setBatteryInformationDebug(
@@ -159,7 +167,7 @@ public class BatteryState {
         private long mTimestamp;
         private int mConsumerType;
         private boolean mIsFullChargeCycleStart;
-        private String mBatteryInformation;
+        private byte[] mBatteryInformation;
         private String mBatteryInformationDebug;
 
         /** Sets the uid. */
@@ -206,7 +214,7 @@ public class BatteryState {
 
         /** Sets the battery information. */
         @CanIgnoreReturnValue
-        public Builder setBatteryInformation(String batteryInformation) {
+        public Builder setBatteryInformation(byte[] batteryInformation) {
             this.mBatteryInformation = batteryInformation;
             return this;
         }
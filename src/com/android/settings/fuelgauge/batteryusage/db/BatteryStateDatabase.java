@@ -16,13 +16,20 @@
 
 package com.android.settings.fuelgauge.batteryusage.db;
 
+import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Base64;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
 /** A {@link RoomDatabase} for battery usage states history. */
 @Database(
@@ -33,13 +40,81 @@ import androidx.room.RoomDatabase;
             BatteryUsageSlotEntity.class,
             BatteryReattributeEntity.class
         },
-        version = 3)
+        version = 5)
 public abstract class BatteryStateDatabase extends RoomDatabase {
     private static final String TAG = "BatteryStateDatabase";
     private static final String DB_FILE_NAME = "battery-usage-db-v11";
 
+    private static final long AUTO_VACUUM_INCREMENTAL = 2L;
+
+    /** The minimum number of free pages to reclaim them from the database file. */
+    @VisibleForTesting static final long VACUUM_MIN_FREE_PAGES = 64L;
+
     private static BatteryStateDatabase sBatteryStateDatabase;
 
+    /**
+     * Migrates the {@link BatteryState} table to store the battery information proto as a BLOB
+     * instead of the Base64 encoded string.
+     */
+    @VisibleForTesting
+    static final Migration MIGRATION_3_4 =
+            new Migration(3, 4) {
+                @Override
+                public void migrate(@NonNull SupportSQLiteDatabase database) {
+                    database.execSQL(
+                            "CREATE TABLE IF NOT EXISTS `BatteryState_new` ("
+                                    + "`mId` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL,"
+                                    + " `uid` INTEGER NOT NULL,"
+                                    + " `userId` INTEGER NOT NULL,"
+                                    + " `packageName` TEXT,"
+                                    + " `timestamp` INTEGER NOT NULL,"
+                                    + " `consumerType` INTEGER NOT NULL,"
+                                    + " `isFullChargeCycleStart` INTEGER NOT NULL,"
+                                    + " `batteryInformation` BLOB,"
+                                    + " `batteryInformationDebug` TEXT)");
+                    try (Cursor cursor = database.query("SELECT * FROM `BatteryState`")) {
+                        while (cursor.moveToNext()) {
+                            database.insert(
+                                    "BatteryState_new",
+                                    SQLiteDatabase.CONFLICT_REPLACE,
+                                    convertToBlobContentValues(cursor));
+                        }
+                    }
+                    database.execSQL("DROP TABLE `BatteryState`");
+                    database.execSQL("ALTER TABLE `BatteryState_new` RENAME TO `BatteryState`");
+                }
+            };
+
+    /** Creates the indices for the timestamp range queries and the expired data cleanup. */
+    @VisibleForTesting
+    static final Migration MIGRATION_4_5 =
+            new Migration(4, 5) {
+                @Override
+                public void migrate(@NonNull SupportSQLiteDatabase database) {
+                    database.execSQL(
+                            "CREATE INDEX IF NOT EXISTS `index_BatteryState_timestamp_userId`"
+                                    + " ON `BatteryState` (`timestamp`, `userId`)");
+                    database.execSQL(
+                            "CREATE INDEX IF NOT EXISTS"
+                                    + " `index_AppUsageEventEntity_timestamp_userId`"
+                                    + " ON `AppUsageEventEntity` (`timestamp`, `userId`)");
+                    database.execSQL(
+                            "CREATE INDEX IF NOT EXISTS"
+                                    + " `index_AppUsageEventEntity_userId_timestamp`"
+                                    + " ON `AppUsageEventEntity` (`userId`, `timestamp`)");
+                    database.execSQL(
+                            "CREATE INDEX IF NOT EXISTS `index_BatteryEventEntity_timestamp`"
+                                    + " ON `BatteryEventEntity` (`timestamp`)");
+                    database.execSQL(
+                            "CREATE INDEX IF NOT EXISTS"
+                                    + " `index_BatteryEventEntity_batteryEventType_timestamp`"
+                                    + " ON `BatteryEventEntity` (`batteryEventType`, `timestamp`)");
+                    database.execSQL(
+                            "CREATE INDEX IF NOT EXISTS `index_BatteryUsageSlotEntity_timestamp`"
+                                    + " ON `BatteryUsageSlotEntity` (`timestamp`)");
+                }
+            };
+
     /** Provides DAO for app usage event table. */
     public abstract AppUsageEventDao appUsageEventDao();
 
@@ -63,6 +138,7 @@ public abstract class BatteryStateDatabase extends RoomDatabase {
                     Room.databaseBuilder(context, BatteryStateDatabase.class, DB_FILE_NAME)
                             // Allows accessing data in the main thread for dumping bugreport.
                             .allowMainThreadQueries()
+                            .addMigrations(MIGRATION_3_4, MIGRATION_4_5)
                             .fallbackToDestructiveMigration()
                             .build();
             Log.d(TAG, "initialize battery states database");
@@ -74,4 +150,65 @@ public abstract class BatteryStateDatabase extends RoomDatabase {
     public static void setBatteryStateDatabase(BatteryStateDatabase database) {
         BatteryStateDatabase.sBatteryStateDatabase = database;
     }
+
+    /**
+     * Reclaims the free pages left by the expired data cleanup. The database file is converted
+     * into the incremental auto vacuum mode with a full VACUUM once, and only the free pages are
+     * released incrementally afterwards.
+     */
+    public static void vacuumIfNeeded(SupportSQLiteDatabase database) {
+        final long freePages = queryForLong(database, "PRAGMA freelist_count");
+        if (freePages < VACUUM_MIN_FREE_PAGES) {
+            return;
+        }
+        final long timestamp = System.currentTimeMillis();
+        final boolean isIncremental =
+                queryForLong(database, "PRAGMA auto_vacuum") == AUTO_VACUUM_INCREMENTAL;
+        if (isIncremental) {
+            try (Cursor cursor = database.query("PRAGMA incremental_vacuum")) {
+                // Steps through the statement to release all free pages.
+                cursor.getCount();
+            }
+        } else {
+            database.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+            database.execSQL("VACUUM");
+        }
+        Log.d(
+                TAG,
+                String.format(
+                        "vacuumIfNeeded() incremental=%b free pages=%d in %d/ms",
+                        isIncremental, freePages, System.currentTimeMillis() - timestamp));
+    }
+
+    private static long queryForLong(SupportSQLiteDatabase database, String sql) {
+        try (Cursor cursor = database.query(sql)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0L;
+        }
+    }
+
+    private static ContentValues convertToBlobContentValues(Cursor cursor) {
+        final ContentValues values = new ContentValues();
+        values.put("mId", cursor.getLong(cursor.getColumnIndexOrThrow("mId")));
+        values.put("uid", cursor.getLong(cursor.getColumnIndexOrThrow("uid")));
+        values.put("userId", cursor.getLong(cursor.getColumnIndexOrThrow("userId")));
+        values.put("packageName", cursor.getString(cursor.getColumnIndexOrThrow("packageName")));
+        values.put("timestamp", cursor.getLong(cursor.getColumnIndexOrThrow("timestamp")));
+        values.put("consumerType", cursor.getInt(cursor.getColumnIndexOrThrow("consumerType")));
+        values.put(
+                "isFullChargeCycleStart",
+                cursor.getInt(cursor.getColumnIndexOrThrow("isFullChargeCycleStart")));
+        values.put(
+                "batteryInformationDebug",
+                cursor.getString(cursor.getColumnIndexOrThrow("batteryInformationDebug")));
+        final String batteryInformation =
+                cursor.getString(cursor.getColumnIndexOrThrow("batteryInformation"));
+        if (batteryInformation != null) {
+            try {
+                values.put("batteryInformation", Base64.decode(batteryInformation, Base64.DEFAULT));
+            } catch (IllegalArgumentException e) {
+                Log.e(TAG, "invalid batteryInformation for BatteryState:" + values.get("mId"), e);
+            }
+        }
+        return values;
+    }
 }
@@ -27,6 +27,10 @@ interface BatteryUsageSlotDao {
     /** Inserts a [BatteryUsageSlotEntity] data into the database. */
     @Insert(onConflict = OnConflictStrategy.REPLACE) fun insert(event: BatteryUsageSlotEntity)
 
+    /** Inserts [BatteryUsageSlotEntity] data into the database. */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    fun insertAll(events: List<BatteryUsageSlotEntity>)
+
     /** Gets all recorded data. */
     @Query("SELECT * FROM BatteryUsageSlotEntity ORDER BY timestamp ASC")
     fun getAll(): List<BatteryUsageSlotEntity>
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.homepage.contextualcards;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.ArrayMap;
+import android.util.Log;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.slice.Slice;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A process-wide cache of the slices bound by {@link EligibleCardChecker}, so the eligibility of
+ * the contextual cards could be reused when the homepage is resumed again shortly.
+ *
+ * <p>A cached slice expires after {@link #MAX_AGE_MS}, and is dropped once its content is notified
+ * to be changed.
+ */
+final class BoundSliceCache {
+    private static final String TAG = "BoundSliceCache";
+
+    @VisibleForTesting
+    static final long MAX_AGE_MS = Duration.ofSeconds(10).toMillis();
+
+    private static final Object sLock = new Object();
+
+    @GuardedBy("sLock")
+    private static final Map<Uri, Entry> sEntries = new ArrayMap<>();
+
+    private BoundSliceCache() {}
+
+    /** Returns the slice bound within {@link #MAX_AGE_MS} and not changed since, or null. */
+    @Nullable
+    static Slice get(Uri uri) {
+        final Entry entry;
+        synchronized (sLock) {
+            entry = sEntries.get(uri);
+            if (entry == null) {
+                return null;
+            }
+            if (!entry.isExpired(SystemClock.elapsedRealtime())) {
+                return entry.mSlice;
+            }
+            sEntries.remove(uri);
+        }
+        entry.unregister();
+        return null;
+    }
+
+    /** Caches the {@code slice} bound from {@code uri}. */
+    static void put(Context context, Uri uri, Slice slice) {
+        final Entry entry = new Entry(context.getApplicationContext().getContentResolver(), uri,
+                slice, SystemClock.elapsedRealtime());
+        try {
+            entry.mContentResolver.registerContentObserver(uri, false /* notifyForDescendants */,
+                    entry.mObserver);
+        } catch (SecurityException e) {
+            // The slice change can't be observed, so don't cache it.
+            Log.d(TAG, "Failed to observe slice: " + uri, e);
+            return;
+        }
+        final List<Entry> removedEntries = new ArrayList<>();
+        synchronized (sLock) {
+            final Iterator<Entry> iterator = sEntries.values().iterator();
+            while (iterator.hasNext()) {
+                final Entry cachedEntry = iterator.next();
+                if (cachedEntry.isExpired(entry.mBoundTime)) {
+                    iterator.remove();
+                    removedEntries.add(cachedEntry);
+                }
+            }
+            final Entry previousEntry = sEntries.put(uri, entry);
+            if (previousEntry != null) {
+                removedEntries.add(previousEntry);
+            }
+        }
+        removedEntries.forEach(Entry::unregister);
+    }
+
+    /** Drops all cached slices. */
+    @VisibleForTesting
+    static void clear() {
+        final List<Entry> entries;
+        synchronized (sLock) {
+            entries = new ArrayList<>(sEntries.values());
+            sEntries.clear();
+        }
+        entries.forEach(Entry::unregister);
+    }
+
+    private static void onSliceChanged(Entry entry) {
+        synchronized (sLock) {
+            // Skip if the entry has been replaced by a newly bound slice.
+            if (sEntries.get(entry.mUri) != entry) {
+                return;
+            }
+            sEntries.remove(entry.mUri);
+        }
+        entry.unregister();
+    }
+
+    private static final class Entry {
+        final ContentResolver mContentResolver;
+        final Uri mUri;
+        final Slice mSlice;
+        final long mBoundTime;
+        final ContentObserver mObserver = new ContentObserver(null /* handler */) {
+            @Override
+            public void onChange(boolean selfChange) {
+                onSliceChanged(Entry.this);
+            }
+        };
+
+        Entry(ContentResolver contentResolver, Uri uri, Slice slice, long boundTime) {
+            mContentResolver = contentResolver;
+            mUri = uri;
+            mSlice = slice;
+            mBoundTime = boundTime;
+        }
+
+        boolean isExpired(long now) {
+            return now - mBoundTime > MAX_AGE_MS;
+        }
+
+        void unregister() {
+            mContentResolver.unregisterContentObserver(mObserver);
+        }
+    }
+}
@@ -41,8 +41,9 @@ import com.android.settingslib.utils.AsyncLoaderCompat;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -56,6 +57,11 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
 
     private static final String TAG = "ContextualCardLoader";
     private static final long ELIGIBILITY_CHECKER_TIMEOUT_MS = 400;
+    @VisibleForTesting
+    static final int ELIGIBILITY_CHECKER_THREAD_COUNT = 8;
+    private static final long ELIGIBILITY_CHECKER_KEEP_ALIVE_SECONDS = 30;
+
+    private static ExecutorService sEligibilityCheckerExecutor;
 
     private final ContentObserver mObserver = new ContentObserver(
             new Handler(Looper.getMainLooper())) {
@@ -187,7 +193,7 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
             return candidates;
         }
 
-        final ExecutorService executor = Executors.newFixedThreadPool(candidates.size());
+        final ExecutorService executor = getEligibilityCheckerExecutor();
         final List<ContextualCard> cards = new ArrayList<>();
         List<Future<ContextualCard>> eligibleCards = new ArrayList<>();
 
@@ -200,7 +206,6 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
         } catch (InterruptedException e) {
             Log.w(TAG, "Failed to get eligible states for all cards", e);
         }
-        executor.shutdown();
 
         // Collect future and eligible cards
         for (int i = 0; i < eligibleCards.size(); i++) {
@@ -223,6 +228,23 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
         return cards;
     }
 
+    /**
+     * Returns the executor shared by all loads, whose idle threads are terminated after a while
+     * rather than creating and shutting down a thread pool in every load.
+     */
+    @VisibleForTesting
+    static synchronized ExecutorService getEligibilityCheckerExecutor() {
+        if (sEligibilityCheckerExecutor == null) {
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                    ELIGIBILITY_CHECKER_THREAD_COUNT, ELIGIBILITY_CHECKER_THREAD_COUNT,
+                    ELIGIBILITY_CHECKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>());
+            executor.allowCoreThreadTimeOut(true);
+            sEligibilityCheckerExecutor = executor;
+        }
+        return sEligibilityCheckerExecutor;
+    }
+
     private boolean isLargeCard(ContextualCard card) {
         return card.getSliceUri().equals(BLUETOOTH_DEVICES_SLICE_URI);
     }
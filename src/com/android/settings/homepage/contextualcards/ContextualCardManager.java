@@ -28,6 +28,7 @@ import android.os.Bundle;
 import android.provider.Settings;
 import android.text.format.DateUtils;
 import android.util.ArrayMap;
+import android.util.EventLog;
 import android.util.FeatureFlagUtils;
 import android.util.Log;
 import android.widget.BaseAdapter;
@@ -38,6 +39,7 @@ import androidx.annotation.VisibleForTesting;
 import androidx.loader.app.LoaderManager;
 import androidx.loader.content.Loader;
 
+import com.android.settings.EventLogTags;
 import com.android.settings.R;
 import com.android.settings.core.FeatureFlags;
 import com.android.settings.homepage.contextualcards.conditional.ConditionalCardController;
@@ -50,6 +52,7 @@ import com.android.settingslib.core.lifecycle.LifecycleObserver;
 import com.android.settingslib.core.lifecycle.events.OnSaveInstanceState;
 import com.android.settingslib.core.lifecycle.events.OnStart;
 import com.android.settingslib.core.lifecycle.events.OnStop;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -68,6 +71,10 @@ import java.util.stream.Collectors;
  * {@link ContextualCardController} will end up building a list of {@link ContextualCard} for
  * {@link ContextualCardsAdapter} and {@link BaseAdapter#notifyDataSetChanged()} will be called to
  * get the page refreshed.
+ *
+ * On a fresh launch, the slice cards displayed last time are restored from
+ * {@link ContextualCardSnapshotStore} and shown until the {@link ContextualCardLoader} finishes,
+ * then they're replaced by the loaded cards.
  */
 public class ContextualCardManager implements ContextualCardLoader.CardContentLoaderListener,
         ContextualCardUpdateListener, LifecycleObserver, OnSaveInstanceState {
@@ -81,6 +88,9 @@ public class ContextualCardManager implements ContextualCardLoader.CardContentLo
 
     private static final String TAG = "ContextualCardManager";
 
+    private static final ContextualCardSnapshotStore SNAPSHOT_STORE =
+            new ContextualCardSnapshotStore();
+
     private final Context mContext;
     private final Lifecycle mLifecycle;
     private final List<LifecycleObserver> mLifecycleObservers;
@@ -96,6 +106,14 @@ public class ContextualCardManager implements ContextualCardLoader.CardContentLo
     boolean mIsFirstLaunch;
     @VisibleForTesting
     List<String> mSavedCards;
+    @VisibleForTesting
+    ContextualCardSnapshotStore mSnapshotStore = SNAPSHOT_STORE;
+    @VisibleForTesting
+    boolean mIsSnapshotShown;
+
+    private boolean mIsSnapshotRequested;
+    private boolean mIsCardLoaded;
+    private boolean mIsFirstCardPending;
 
     public ContextualCardManager(Context context, Lifecycle lifecycle, Bundle savedInstanceState) {
         mContext = context;
@@ -106,6 +124,7 @@ public class ContextualCardManager implements ContextualCardLoader.CardContentLo
         mLifecycle.addObserver(this);
         if (savedInstanceState == null) {
             mIsFirstLaunch = true;
+            mIsFirstCardPending = true;
             mSavedCards = null;
         } else {
             mSavedCards = savedInstanceState.getStringArrayList(KEY_CONTEXTUAL_CARDS);
@@ -122,6 +141,10 @@ public class ContextualCardManager implements ContextualCardLoader.CardContentLo
             return;
         }
         mStartTime = System.currentTimeMillis();
+        if (mIsFirstLaunch && !mIsSnapshotRequested && !hasSliceCards()) {
+            mIsSnapshotRequested = true;
+            loadSnapshot();
+        }
         final CardContentLoaderCallbacks cardContentLoaderCallbacks =
                 new CardContentLoaderCallbacks(mContext);
         cardContentLoaderCallbacks.setListener(this);
@@ -138,6 +161,36 @@ public class ContextualCardManager implements ContextualCardLoader.CardContentLo
         }
     }
 
+    private void loadSnapshot() {
+        final Context appContext = mContext.getApplicationContext();
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final List<ContextualCard> cards = mSnapshotStore.load(appContext);
+            ThreadUtils.postOnMainThread(() -> onSnapshotLoaded(cards));
+        });
+    }
+
+    @VisibleForTesting
+    void onSnapshotLoaded(@Nullable List<ContextualCard> cards) {
+        // Skip if the fresh cards are shown first.
+        if (cards == null || cards.isEmpty() || mIsCardLoaded || hasSliceCards()) {
+            return;
+        }
+        Log.d(TAG, "Show " + cards.size() + " cards from snapshot");
+        mIsSnapshotShown = true;
+        onContextualCardUpdated(cards.stream().collect(groupingBy(ContextualCard::getCardType)));
+    }
+
+    private void saveSnapshot() {
+        final Context appContext = mContext.getApplicationContext();
+        final List<ContextualCard> cards = new ArrayList<>(mContextualCards);
+        ThreadUtils.postOnBackgroundThread(() -> mSnapshotStore.write(appContext, cards));
+    }
+
+    private boolean hasSliceCards() {
+        return mContextualCards.stream()
+                .anyMatch(card -> card.getCardType() == ContextualCard.CardType.SLICE);
+    }
+
     private void loadCardControllers() {
         for (ContextualCard card : mContextualCards) {
             setupController(card.getCardType());
@@ -224,6 +277,13 @@ public class ContextualCardManager implements ContextualCardLoader.CardContentLo
             final Map<Integer, List<ContextualCard>> cardsToUpdate = new ArrayMap<>();
             cardsToUpdate.put(ContextualCard.CardType.DEFAULT, mContextualCards);
             mListener.onContextualCardUpdated(cardsToUpdate);
+
+            if (mIsFirstCardPending && mStartTime > 0 && !mContextualCards.isEmpty()) {
+                mIsFirstCardPending = false;
+                EventLog.writeEvent(EventLogTags.SETTINGS_CONTEXTUAL_CARD_FIRST_SHOW,
+                        System.currentTimeMillis() - mStartTime, mIsSnapshotShown ? 1 : 0,
+                        mContextualCards.size());
+            }
         }
     }
 
@@ -231,6 +291,7 @@ public class ContextualCardManager implements ContextualCardLoader.CardContentLo
     public void onFinishCardLoading(List<ContextualCard> cards) {
         final long loadTime = System.currentTimeMillis() - mStartTime;
         Log.d(TAG, "Total loading time = " + loadTime);
+        mIsCardLoaded = true;
 
         final List<ContextualCard> cardsToKeep = getCardsToKeep(cards);
 
@@ -244,16 +305,19 @@ public class ContextualCardManager implements ContextualCardLoader.CardContentLo
             metricsFeatureProvider.action(mContext,
                     SettingsEnums.ACTION_CONTEXTUAL_CARD_SHOW,
                     ContextualCardLogUtils.buildCardListLog(cardsToKeep));
+            saveSnapshot();
             return;
         }
 
         final long timeoutLimit = getCardLoaderTimeout();
-        if (loadTime <= timeoutLimit) {
+        // The cards restored from the snapshot are always replaced, as they're shown already.
+        if (loadTime <= timeoutLimit || mIsSnapshotShown) {
             onContextualCardUpdated(cards.stream()
                     .collect(groupingBy(ContextualCard::getCardType)));
             metricsFeatureProvider.action(mContext,
                     SettingsEnums.ACTION_CONTEXTUAL_CARD_SHOW,
                     ContextualCardLogUtils.buildCardListLog(cards));
+            saveSnapshot();
         } else {
             // log timeout occurrence
             metricsFeatureProvider.action(SettingsEnums.PAGE_UNKNOWN,
@@ -267,6 +331,7 @@ public class ContextualCardManager implements ContextualCardLoader.CardContentLo
                 SettingsEnums.ACTION_CONTEXTUAL_HOME_SHOW, (int) totalTime);
 
         mIsFirstLaunch = false;
+        mIsSnapshotShown = false;
     }
 
     @Override
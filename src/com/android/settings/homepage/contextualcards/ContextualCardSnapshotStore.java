@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.homepage.contextualcards;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Parcel;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.slice.Slice;
+import androidx.slice.SliceUtils;
+
+import com.android.settings.homepage.contextualcards.slices.SliceContextualCardRenderer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persists the last displayed slice cards with their slice content, so the homepage could show
+ * them right away on a cold start, before the {@link ContextualCardLoader} finishes.
+ *
+ * <p>The actions of the persisted slices are dropped, so the restored cards must be replaced by
+ * the loaded ones. The snapshot is dropped if the build or the locales are changed, or it's older
+ * than {@link #MAX_AGE_MS}.
+ */
+class ContextualCardSnapshotStore {
+    private static final String TAG = "ContextualCardSnapshot";
+
+    @VisibleForTesting
+    static final String SNAPSHOT_FILE_NAME = "contextual_card_snapshot";
+    @VisibleForTesting
+    static final long MAX_AGE_MS = Duration.ofDays(1).toMillis();
+
+    // Bump the version whenever the snapshot format is changed.
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final String SLICE_ENCODING = StandardCharsets.UTF_8.name();
+
+    @GuardedBy("this")
+    @Nullable
+    private AtomicFile mFile;
+
+    /**
+     * Loads the persisted cards, returns {@code null} if they're not found or not valid anymore.
+     * It should be called in background.
+     */
+    @Nullable
+    List<ContextualCard> load(Context context) {
+        final byte[] data;
+        try {
+            data = getFile(context).readFully();
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to read snapshot", e);
+            return null;
+        }
+        final Parcel parcel = Parcel.obtain();
+        try {
+            parcel.unmarshall(data, 0, data.length);
+            parcel.setDataPosition(0);
+            if (parcel.readInt() != SNAPSHOT_VERSION
+                    || !getEnvironmentKey(context).equals(parcel.readString())) {
+                Log.d(TAG, "Snapshot environment changed");
+                delete(context);
+                return null;
+            }
+            final long age = System.currentTimeMillis() - parcel.readLong();
+            if (age < 0 || age > MAX_AGE_MS) {
+                Log.d(TAG, "Snapshot expired");
+                delete(context);
+                return null;
+            }
+            final int cardCount = parcel.readInt();
+            final List<ContextualCard> cards = new ArrayList<>(cardCount);
+            for (int i = 0; i < cardCount; i++) {
+                final ContextualCard card = readCard(context, parcel);
+                if (card.getSlice() != null) {
+                    cards.add(card);
+                }
+            }
+            return cards;
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Invalid snapshot", e);
+            delete(context);
+            return null;
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    /**
+     * Persists the slice cards in {@code cards} which have their slices bound, should be called in
+     * background.
+     */
+    synchronized void write(Context context, List<ContextualCard> cards) {
+        final byte[] data;
+        final Parcel parcel = Parcel.obtain();
+        try {
+            parcel.writeInt(SNAPSHOT_VERSION);
+            parcel.writeString(getEnvironmentKey(context));
+            parcel.writeLong(System.currentTimeMillis());
+            final List<ContextualCard> sliceCards = new ArrayList<>();
+            final List<byte[]> sliceData = new ArrayList<>();
+            for (ContextualCard card : cards) {
+                if (card.getCardType() != ContextualCard.CardType.SLICE
+                        || card.getSlice() == null) {
+                    continue;
+                }
+                final byte[] slice = serializeSlice(context, card.getSlice());
+                if (slice != null) {
+                    sliceCards.add(card);
+                    sliceData.add(slice);
+                }
+            }
+            parcel.writeInt(sliceCards.size());
+            for (int i = 0; i < sliceCards.size(); i++) {
+                writeCard(parcel, sliceCards.get(i), sliceData.get(i));
+            }
+            data = parcel.marshall();
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Failed to marshall snapshot", e);
+            return;
+        } finally {
+            parcel.recycle();
+        }
+
+        final AtomicFile file = getFile(context);
+        FileOutputStream out = null;
+        try {
+            out = file.startWrite();
+            out.write(data);
+            file.finishWrite(out);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write snapshot", e);
+            file.failWrite(out);
+        }
+    }
+
+    /** Deletes the persisted snapshot. */
+    synchronized void delete(Context context) {
+        getFile(context).delete();
+    }
+
+    private synchronized AtomicFile getFile(Context context) {
+        if (mFile == null) {
+            mFile = new AtomicFile(new File(context.getCacheDir(), SNAPSHOT_FILE_NAME));
+        }
+        return mFile;
+    }
+
+    private static void writeCard(Parcel parcel, ContextualCard card, byte[] slice) {
+        parcel.writeString(card.getName());
+        parcel.writeDouble(card.getRankingScore());
+        parcel.writeString(card.getTextSliceUri());
+        parcel.writeInt(card.getCategory());
+        parcel.writeString(card.getPackageName());
+        parcel.writeLong(card.getAppVersion());
+        parcel.writeBoolean(card.isLargeCard());
+        parcel.writeBoolean(card.hasInlineAction());
+        parcel.writeByteArray(slice);
+    }
+
+    private static ContextualCard readCard(Context context, Parcel parcel) {
+        return new ContextualCard.Builder()
+                .setName(parcel.readString())
+                .setCardType(ContextualCard.CardType.SLICE)
+                .setRankingScore(parcel.readDouble())
+                .setSliceUri(Uri.parse(parcel.readString()))
+                .setCategory(parcel.readInt())
+                .setPackageName(parcel.readString())
+                .setAppVersion(parcel.readLong())
+                .setIsLargeCard(parcel.readBoolean())
+                .setHasInlineAction(parcel.readBoolean())
+                .setViewType(SliceContextualCardRenderer.VIEW_TYPE_FULL_WIDTH)
+                .setSlice(parseSlice(context, parcel.createByteArray()))
+                .build();
+    }
+
+    @Nullable
+    private static byte[] serializeSlice(Context context, Slice slice) {
+        // The actions hold PendingIntents which can't be persisted, so they're converted to
+        // no-op actions, and the icons are converted to bitmaps.
+        final SliceUtils.SerializeOptions options = new SliceUtils.SerializeOptions()
+                .setActionMode(SliceUtils.SerializeOptions.MODE_CONVERT)
+                .setImageMode(SliceUtils.SerializeOptions.MODE_CONVERT);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            SliceUtils.serializeSlice(slice, context, out, options);
+        } catch (IllegalArgumentException e) {
+            Log.d(TAG, "Failed to serialize slice: " + slice.getUri(), e);
+            return null;
+        }
+        return out.toByteArray();
+    }
+
+    @Nullable
+    private static Slice parseSlice(Context context, byte[] data) {
+        try {
+            return SliceUtils.parseSlice(context, new ByteArrayInputStream(data), SLICE_ENCODING,
+                    (actionUri, actionContext, intent) ->
+                            Log.d(TAG, "Ignore action of restored slice: " + actionUri));
+        } catch (IOException | SliceUtils.SliceParseException e) {
+            Log.w(TAG, "Failed to parse slice", e);
+            return null;
+        }
+    }
+
+    private static String getEnvironmentKey(Context context) {
+        return Build.FINGERPRINT + "|"
+                + context.getResources().getConfiguration().getLocales().toLanguageTags();
+    }
+}
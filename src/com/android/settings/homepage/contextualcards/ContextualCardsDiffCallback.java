@@ -63,6 +63,11 @@ public class ContextualCardsDiffCallback extends DiffUtil.Callback {
                 || newCard.hasInlineAction()) {
             return false;
         }
-        return mOldCards.get(oldCardPosition).equals(newCard);
+        final ContextualCard oldCard = mOldCards.get(oldCardPosition);
+        // The cards restored from the snapshot may be laid out differently from the loaded ones.
+        if (oldCard.getViewType() != newCard.getViewType()) {
+            return false;
+        }
+        return oldCard.equals(newCard);
     }
 }
\ No newline at end of file
@@ -93,11 +93,14 @@ public class EligibleCardChecker implements Callable<ContextualCard> {
             return false;
         }
 
-        final Slice slice = bindSlice(uri);
-
-        if (slice == null || slice.hasHint(HINT_ERROR)) {
-            Log.w(TAG, "Failed to bind slice, not eligible for display " + uri);
-            return false;
+        Slice slice = BoundSliceCache.get(uri);
+        if (slice == null) {
+            slice = bindSlice(uri);
+            if (slice == null || slice.hasHint(HINT_ERROR)) {
+                Log.w(TAG, "Failed to bind slice, not eligible for display " + uri);
+                return false;
+            }
+            BoundSliceCache.put(mContext, uri, slice);
         }
 
         mCard = card.mutate().setSlice(slice).build();
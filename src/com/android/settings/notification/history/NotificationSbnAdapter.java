@@ -54,7 +54,7 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.android.internal.logging.UiEventLogger;
 import com.android.internal.util.ContrastColorUtil;
 import com.android.settings.R;
-import com.android.settingslib.Utils;
+import com.android.settings.applications.AppIconLoader;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -182,13 +182,26 @@ public class NotificationSbnAdapter extends
             ApplicationInfo info = mPm.getApplicationInfo(sbn.getPackageName(), MATCH_ANY_USER);
             if (info != null){
                 holder.setPackageLabel(mPm.getApplicationLabel(info).toString());
-                holder.setIcon(Utils.getBadgedIcon(mContext, info));
+                updateIcon(holder, info);
             }
         } catch (NameNotFoundException e) {
             Log.e(TAG, "Cannot load app info", e);
         }
     }
 
+    private void updateIcon(NotificationSbnViewHolder holder, ApplicationInfo info) {
+        final AppIconLoader iconLoader = AppIconLoader.getInstance();
+        final Drawable cachedIcon = AppIconLoader.getCachedIcon(info.packageName, info.uid);
+        if (cachedIcon != null) {
+            iconLoader.cancel(holder);
+            holder.setIcon(cachedIcon);
+        } else {
+            holder.setIcon(null);
+            iconLoader.loadIcon(holder, info.packageName, info.uid,
+                    AppIconLoader.getBadgedIconLoader(mContext, info), holder::setIcon);
+        }
+    }
+
     private static String getTitleString(Notification n) {
         CharSequence title = null;
         if (n.extras != null) {
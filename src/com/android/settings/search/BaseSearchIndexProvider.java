@@ -31,6 +31,7 @@ import android.provider.SearchIndexableResource;
 import android.util.Log;
 
 import androidx.annotation.CallSuper;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.core.BasePreferenceController;
@@ -213,6 +214,19 @@ public class BaseSearchIndexProvider implements Indexable.SearchIndexProvider {
         return null;
     }
 
+    /**
+     * Returns the inputs of the dynamic raw data and the non-indexable keys of the page, e.g. the
+     * relevant settings values and package versions. The locale, the build and the user
+     * restrictions are always taken into account. A delta query of
+     * {@link SettingsSearchIndexablesProvider} skips the page while its inputs are unchanged.
+     *
+     * @return {@code null} if the inputs are unknown, then the page is always queried.
+     */
+    @Nullable
+    public List<Object> getDynamicIndexInputs(Context context) {
+        return null;
+    }
+
     /**
      * Returns true if the page should be considered in search query. If return false, entire page
      * will be suppressed during search query.
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.UserManager;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Persists the fingerprints of the inputs of the search indexable data per provider, which were
+ * returned to the indexer, so the providers with unchanged inputs are not queried again.
+ */
+class SearchIndexFingerprints {
+    private static final String TAG = "SearchIndexFingerprints";
+
+    @VisibleForTesting
+    static final String SHARED_PREFS_TAG = "search_index_fingerprints";
+
+    static final String TYPE_RAW = "raw";
+    static final String TYPE_DYNAMIC_RAW = "dynamic_raw";
+    static final String TYPE_NON_INDEXABLE_KEYS = "non_indexable_keys";
+
+    private static final String KEY_SEPARATOR = "/";
+    private static final String KEY_PROVIDER_PREFIX = "provider";
+
+    private final Context mContext;
+
+    SearchIndexFingerprints(Context context) {
+        mContext = context.getApplicationContext();
+    }
+
+    /**
+     * Returns the providers of which the data of {@code type} may be changed since the last
+     * {@link #update}, including the providers which are not found anymore.
+     *
+     * @param fingerprints the input fingerprint of each provider, a {@code null} fingerprint means
+     *     the inputs of the provider are unknown and the provider is always changed.
+     */
+    synchronized List<String> getChangedProviders(String type, Map<String, String> fingerprints) {
+        final SharedPreferences sharedPreferences = getSharedPreferences();
+        final String providerKeyPrefix = getProviderKey(type, /* provider= */ "");
+        final List<String> changedProviders = new ArrayList<>();
+        for (Map.Entry<String, String> entry : fingerprints.entrySet()) {
+            if (entry.getValue() == null || !entry.getValue().equals(
+                    sharedPreferences.getString(providerKeyPrefix + entry.getKey(), null))) {
+                changedProviders.add(entry.getKey());
+            }
+        }
+        for (String key : sharedPreferences.getAll().keySet()) {
+            if (key.startsWith(providerKeyPrefix) && !fingerprints.containsKey(
+                    key.substring(providerKeyPrefix.length()))) {
+                changedProviders.add(key.substring(providerKeyPrefix.length()));
+            }
+        }
+        return changedProviders;
+    }
+
+    /**
+     * Stores the input {@code fingerprints} of the data of {@code type} returned to the indexer,
+     * the providers with a {@code null} fingerprint or not found anymore are removed.
+     */
+    synchronized void update(String type, Map<String, String> fingerprints) {
+        final SharedPreferences sharedPreferences = getSharedPreferences();
+        final SharedPreferences.Editor editor = sharedPreferences.edit();
+        final String providerKeyPrefix = getProviderKey(type, /* provider= */ "");
+        for (Map.Entry<String, String> entry : fingerprints.entrySet()) {
+            final String key = providerKeyPrefix + entry.getKey();
+            if (entry.getValue() == null) {
+                editor.remove(key);
+            } else if (!entry.getValue().equals(sharedPreferences.getString(key, null))) {
+                editor.putString(key, entry.getValue());
+            }
+        }
+        for (String key : sharedPreferences.getAll().keySet()) {
+            if (key.startsWith(providerKeyPrefix) && !fingerprints.containsKey(
+                    key.substring(providerKeyPrefix.length()))) {
+                editor.remove(key);
+            }
+        }
+        editor.apply();
+    }
+
+    /**
+     * Gets the fingerprint of the inputs of a provider in the given environment, or {@code null}
+     * if the inputs are unknown.
+     */
+    @Nullable
+    static String fingerprintOf(String environmentFingerprint, @Nullable List<Object> inputs) {
+        if (inputs == null) {
+            return null;
+        }
+        final List<Object[]> rows = new ArrayList<>(inputs.size() + 1);
+        rows.add(new Object[] {environmentFingerprint});
+        for (Object input : inputs) {
+            rows.add(new Object[] {input});
+        }
+        return fingerprintOf(rows);
+    }
+
+    /** Gets the fingerprint of the rows, which are compared by their values. */
+    private static String fingerprintOf(List<Object[]> rows) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (Object[] row : rows) {
+            digest.update(Arrays.deepToString(row).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        final StringBuilder builder = new StringBuilder();
+        for (byte b : digest.digest()) {
+            builder.append(String.format(Locale.US, "%02x", b));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Gets the fingerprint of the inputs shared by all the providers, i.e. the locale, the build,
+     * the Settings app and the user restrictions.
+     */
+    String getEnvironmentFingerprint() {
+        final List<Object[]> inputs = new ArrayList<>();
+        inputs.add(new Object[] {
+                mContext.getResources().getConfiguration().getLocales().toLanguageTags()});
+        inputs.add(new Object[] {Build.FINGERPRINT, Build.VERSION.INCREMENTAL});
+        final PackageInfo packageInfo = getSettingsPackageInfo();
+        if (packageInfo != null) {
+            inputs.add(new Object[] {
+                    packageInfo.getLongVersionCode(), packageInfo.lastUpdateTime});
+        }
+        final UserManager userManager = mContext.getSystemService(UserManager.class);
+        if (userManager != null) {
+            final Bundle restrictions = userManager.getUserRestrictions();
+            for (String key : new TreeSet<>(restrictions.keySet())) {
+                inputs.add(new Object[] {key, restrictions.getBoolean(key)});
+            }
+        }
+        return fingerprintOf(inputs);
+    }
+
+    @Nullable
+    private PackageInfo getSettingsPackageInfo() {
+        try {
+            return mContext.getPackageManager().getPackageInfo(mContext.getPackageName(),
+                    /* flags= */ 0);
+        } catch (PackageManager.NameNotFoundException e) {
+            Log.w(TAG, "Settings package not found", e);
+            return null;
+        }
+    }
+
+    private SharedPreferences getSharedPreferences() {
+        return mContext.getSharedPreferences(SHARED_PREFS_TAG, Context.MODE_PRIVATE);
+    }
+
+    private static String getProviderKey(String type, String provider) {
+        return type + KEY_SEPARATOR + KEY_PROVIDER_PREFIX + KEY_SEPARATOR + provider;
+    }
+}
@@ -51,6 +51,8 @@ import android.database.Cursor;
 import android.database.MatrixCursor;
 import android.net.Uri;
 import android.os.Build;
+import android.os.Bundle;
+import android.os.SystemClock;
 import android.provider.SearchIndexableResource;
 import android.provider.SearchIndexablesContract;
 import android.provider.SettingsSlicesContract;
@@ -79,10 +81,23 @@ import com.android.settingslib.search.Indexable;
 import com.android.settingslib.search.SearchIndexableData;
 import com.android.settingslib.search.SearchIndexableRaw;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 public class SettingsSearchIndexablesProvider extends PreferenceSearchIndexablesProvider {
 
@@ -95,13 +110,60 @@ public class SettingsSearchIndexablesProvider extends PreferenceSearchIndexables
     public static final String SYSPROP_CRASH_ON_ERROR =
             "debug.com.android.settings.search.crash_on_error";
 
+    /**
+     * The query parameter to only query the rows of providers changed since the last query of the
+     * same data. The changed providers are listed in the {@link #EXTRA_CHANGED_PROVIDERS} of the
+     * cursor extras, and each row has the provider name in the {@link #COLUMN_PROVIDER} column.
+     */
+    public static final String QUERY_PARAMETER_DELTA = "delta";
+
+    /** The cursor extras key of the changed providers of a delta query. */
+    public static final String EXTRA_CHANGED_PROVIDERS = "changed_providers";
+
+    /** The column of the provider name of each row in a delta query. */
+    public static final String COLUMN_PROVIDER = "provider";
+
     private static final String TAG = "SettingsSearchProvider";
 
+    // The provider name of the injected tiles in the dynamic raw data.
+    @VisibleForTesting
+    static final String INJECTION_PROVIDER = "injection";
+
     private static final Collection<String> INVALID_KEYS;
 
+    // The default bounded pool size to get non-indexable keys from providers in parallel.
+    @VisibleForTesting
+    static final int DEFAULT_NON_INDEXABLE_KEYS_PARALLELISM =
+            Math.min(4, Runtime.getRuntime().availableProcessors());
+    private static final long NON_INDEXABLE_KEYS_THREAD_KEEP_ALIVE_SECONDS = 30L;
+
+    /** The max time to wait for non-indexable keys from a single provider. */
+    @VisibleForTesting
+    static final long PROVIDER_NON_INDEXABLE_KEYS_TIMEOUT_MS = 2000L;
+
+    /** The max time to wait for non-indexable keys from all the providers. */
+    @VisibleForTesting
+    static final long NON_INDEXABLE_KEYS_TIMEOUT_MS = 10000L;
+
+    @VisibleForTesting
+    static boolean sParallelNonIndexableKeysEnabled = true;
+
+    // The bounded pool size to get non-indexable keys from providers in parallel, the keys are
+    // got sequentially without timeout if it's not more than 1.
+    @VisibleForTesting
+    static int sNonIndexableKeysParallelism = DEFAULT_NON_INDEXABLE_KEYS_PARALLELISM;
+
+    private static ThreadPoolExecutor sNonIndexableKeysExecutor;
+
     // Search enabled states for injection (key: category key, value: search enabled)
     private Map<String, Boolean> mSearchEnabledByCategoryKeyMap;
 
+    private SearchIndexFingerprints mFingerprints;
+
+    // The per-provider cost of the latest non-indexable keys query for dumping.
+    private volatile List<NonIndexableKeysResult> mLastNonIndexableKeysResults = List.of();
+    private volatile long mLastNonIndexableKeysElapsedTimeMs;
+
     static {
         INVALID_KEYS = new ArraySet<>();
         INVALID_KEYS.add(null);
@@ -119,6 +181,23 @@ public class SettingsSearchIndexablesProvider extends PreferenceSearchIndexables
         return true;
     }
 
+    @Override
+    public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs,
+            String sortOrder) {
+        if (!uri.getBooleanQueryParameter(QUERY_PARAMETER_DELTA, /* defaultValue= */ false)) {
+            return super.query(uri, projection, selection, selectionArgs, sortOrder);
+        }
+        final String path = uri.getPath();
+        if (("/" + SearchIndexablesContract.INDEXABLES_RAW_PATH).equals(path)) {
+            return queryRawDataDelta();
+        } else if (("/" + SearchIndexablesContract.DYNAMIC_INDEXABLES_RAW_PATH).equals(path)) {
+            return queryDynamicRawDataDelta();
+        } else if (("/" + SearchIndexablesContract.NON_INDEXABLES_KEYS_PATH).equals(path)) {
+            return queryNonIndexableKeysDelta();
+        }
+        throw new UnsupportedOperationException("Unsupported delta query: " + uri);
+    }
+
     @Override
     public Cursor queryXmlResources(String[] projection) {
         final MatrixCursor cursor = new MatrixCursor(INDEXABLES_XML_RES_COLUMNS);
@@ -153,6 +232,122 @@ public class SettingsSearchIndexablesProvider extends PreferenceSearchIndexables
         return cursor;
     }
 
+    /**
+     * Gets a Cursor of RawData of the providers changed since the last delta query. The static raw
+     * data only depends on the environment, so no provider is queried until it changes.
+     */
+    @VisibleForTesting
+    Cursor queryRawDataDelta() {
+        final Context context = getContext();
+        final Map<String, List<SearchIndexableData>> bundlesByProvider = getBundlesByProvider();
+        final String inputFingerprint = SearchIndexFingerprints.fingerprintOf(
+                getFingerprints().getEnvironmentFingerprint(), List.of());
+        final Map<String, String> fingerprints = new ArrayMap<>(bundlesByProvider.size());
+        for (String providerName : bundlesByProvider.keySet()) {
+            fingerprints.put(providerName, inputFingerprint);
+        }
+        final List<String> changedProviders = getFingerprints().getChangedProviders(
+                SearchIndexFingerprints.TYPE_RAW, fingerprints);
+
+        final Map<String, List<SearchIndexableRaw>> rawsByProvider = new ArrayMap<>();
+        for (String providerName : changedProviders) {
+            final List<SearchIndexableData> bundles = bundlesByProvider.get(providerName);
+            if (bundles == null) {
+                continue;
+            }
+            final List<SearchIndexableRaw> raws = new ArrayList<>();
+            for (SearchIndexableData bundle : bundles) {
+                raws.addAll(getSearchIndexableRawData(context, bundle));
+            }
+            rawsByProvider.put(providerName, raws);
+        }
+        getFingerprints().update(SearchIndexFingerprints.TYPE_RAW, fingerprints);
+        return createRawDeltaCursor(rawsByProvider, changedProviders);
+    }
+
+    /**
+     * Gets a Cursor of dynamic RawData of the providers changed since the last delta query. The
+     * providers of which the {@link BaseSearchIndexProvider#getDynamicIndexInputs} are unchanged
+     * are not queried.
+     */
+    @VisibleForTesting
+    Cursor queryDynamicRawDataDelta() {
+        final Context context = getContext();
+        final Map<String, List<SearchIndexableData>> bundlesByProvider = getBundlesByProvider();
+        final Map<String, String> fingerprints =
+                getDynamicIndexFingerprints(context, bundlesByProvider);
+        // The injected tiles don't declare their inputs.
+        fingerprints.put(INJECTION_PROVIDER, null);
+        final List<String> changedProviders = getFingerprints().getChangedProviders(
+                SearchIndexFingerprints.TYPE_DYNAMIC_RAW, fingerprints);
+
+        final Map<String, List<SearchIndexableRaw>> rawsByProvider = new ArrayMap<>();
+        for (Map.Entry<String, List<SearchIndexableData>> entry : bundlesByProvider.entrySet()) {
+            final boolean changed = changedProviders.contains(entry.getKey());
+            final List<SearchIndexableRaw> raws = new ArrayList<>();
+            for (SearchIndexableData bundle : entry.getValue()) {
+                if (changed) {
+                    raws.addAll(getDynamicSearchIndexableRawData(context, bundle));
+                }
+
+                // Refresh the search enabled state for indexing injection raw data
+                final Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
+                if (provider instanceof BaseSearchIndexProvider) {
+                    refreshSearchEnabledState(context, (BaseSearchIndexProvider) provider);
+                }
+            }
+            if (changed) {
+                rawsByProvider.put(entry.getKey(), raws);
+            }
+        }
+        rawsByProvider.put(INJECTION_PROVIDER, getInjectionIndexableRawData(context));
+        getFingerprints().update(SearchIndexFingerprints.TYPE_DYNAMIC_RAW, fingerprints);
+        return createRawDeltaCursor(rawsByProvider, changedProviders);
+    }
+
+    /**
+     * Gets a Cursor of non-indexable keys of the providers changed since the last delta query.
+     * The providers of which the {@link BaseSearchIndexProvider#getDynamicIndexInputs} are
+     * unchanged are not queried.
+     */
+    @VisibleForTesting
+    Cursor queryNonIndexableKeysDelta() {
+        final Context context = getContext();
+        final Map<String, List<SearchIndexableData>> bundlesByProvider = getBundlesByProvider();
+        final Map<String, String> fingerprints =
+                getDynamicIndexFingerprints(context, bundlesByProvider);
+        final List<String> changedProviders = getFingerprints().getChangedProviders(
+                SearchIndexFingerprints.TYPE_NON_INDEXABLE_KEYS, fingerprints);
+
+        final List<SearchIndexableData> changedBundles = new ArrayList<>();
+        for (String providerName : changedProviders) {
+            final List<SearchIndexableData> bundles = bundlesByProvider.get(providerName);
+            if (bundles != null) {
+                changedBundles.addAll(bundles);
+            }
+        }
+        final List<NonIndexableKeysResult> results =
+                getNonIndexableKeysResults(context, changedBundles);
+
+        final MatrixCursor cursor =
+                new MatrixCursor(appendProviderColumn(NON_INDEXABLES_KEYS_COLUMNS));
+        for (NonIndexableKeysResult result : results) {
+            if (NonIndexableKeysResult.ERROR.equals(result.mState)) {
+                // Queries the provider again next time since its keys are unknown.
+                fingerprints.put(result.mClassName, null);
+            }
+            for (String nik : result.mKeys) {
+                final Object[] ref = new Object[NON_INDEXABLES_KEYS_COLUMNS.length + 1];
+                ref[COLUMN_INDEX_NON_INDEXABLE_KEYS_KEY_VALUE] = nik;
+                ref[NON_INDEXABLES_KEYS_COLUMNS.length] = result.mClassName;
+                cursor.addRow(ref);
+            }
+        }
+        getFingerprints().update(SearchIndexFingerprints.TYPE_NON_INDEXABLE_KEYS, fingerprints);
+        setChangedProviders(cursor, changedProviders);
+        return cursor;
+    }
+
     /**
      * Gets a combined list non-indexable keys that come from providers inside of settings.
      * The non-indexable keys are used in Settings search at both index and update time to verify
@@ -277,54 +472,209 @@ public class SettingsSearchIndexablesProvider extends PreferenceSearchIndexables
         return cursor;
     }
 
-    private List<String> getNonIndexableKeysFromProvider(Context context) {
-        final Collection<SearchIndexableData> bundles = FeatureFactory.getFeatureFactory()
-                .getSearchFeatureProvider().getSearchIndexableResources().getProviderValues();
+    @Override
+    public void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        final List<NonIndexableKeysResult> results =
+                new ArrayList<>(mLastNonIndexableKeysResults);
+        writer.println("Non-indexable keys from providers: size=" + results.size()
+                + ", total time " + mLastNonIndexableKeysElapsedTimeMs + "/ms");
+        // Lists the most expensive providers first.
+        results.sort(Comparator.comparingLong(
+                (NonIndexableKeysResult result) -> result.mElapsedTimeMs).reversed());
+        for (NonIndexableKeysResult result : results) {
+            writer.println("  " + result);
+        }
+    }
 
+    @VisibleForTesting
+    List<String> getNonIndexableKeysFromProvider(Context context) {
+        return mergeNonIndexableKeys(getNonIndexableKeysResults(context));
+    }
+
+    private List<NonIndexableKeysResult> getNonIndexableKeysResults(Context context) {
+        return getNonIndexableKeysResults(context, new ArrayList<>(FeatureFactory
+                .getFeatureFactory().getSearchFeatureProvider().getSearchIndexableResources()
+                .getProviderValues()));
+    }
+
+    private List<NonIndexableKeysResult> getNonIndexableKeysResults(Context context,
+            List<SearchIndexableData> bundles) {
+        final long startTime = SystemClock.elapsedRealtime();
+        final List<NonIndexableKeysResult> results =
+                sParallelNonIndexableKeysEnabled && sNonIndexableKeysParallelism > 1
+                        && bundles.size() > 1
+                        ? getNonIndexableKeysInParallel(context, bundles)
+                        : getNonIndexableKeysSequentially(context, bundles);
+
+        mLastNonIndexableKeysResults = results;
+        mLastNonIndexableKeysElapsedTimeMs = SystemClock.elapsedRealtime() - startTime;
+        Log.i(TAG, "Non-indexables from " + results.size() + " providers, total time "
+                + mLastNonIndexableKeysElapsedTimeMs);
+        return results;
+    }
+
+    private static List<String> mergeNonIndexableKeys(List<NonIndexableKeysResult> results) {
+        // Merges the keys in the order of providers, so it is the same as the sequential one.
         final List<String> nonIndexableKeys = new ArrayList<>();
+        for (NonIndexableKeysResult result : results) {
+            nonIndexableKeys.addAll(result.mKeys);
+        }
+        return nonIndexableKeys;
+    }
+
+    /** Gets the last per-provider results of {@link #getNonIndexableKeysFromProvider}. */
+    @VisibleForTesting
+    List<NonIndexableKeysResult> getLastNonIndexableKeysResults() {
+        return mLastNonIndexableKeysResults;
+    }
 
+    private List<NonIndexableKeysResult> getNonIndexableKeysSequentially(Context context,
+            List<SearchIndexableData> bundles) {
+        final List<NonIndexableKeysResult> results = new ArrayList<>(bundles.size());
         for (SearchIndexableData bundle : bundles) {
-            final long startTime = System.currentTimeMillis();
-            Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
-            List<String> providerNonIndexableKeys;
+            results.add(getNonIndexableKeys(context, bundle));
+        }
+        return results;
+    }
+
+    /**
+     * Fans the providers out over a bounded pool. Each provider is waited for at most
+     * {@link #PROVIDER_NON_INDEXABLE_KEYS_TIMEOUT_MS} since it starts running and all of them for
+     * at most {@link #NON_INDEXABLE_KEYS_TIMEOUT_MS}, the keys of a provider missing the timeout
+     * are got synchronously, so the keys are always complete.
+     */
+    private List<NonIndexableKeysResult> getNonIndexableKeysInParallel(Context context,
+            List<SearchIndexableData> bundles) {
+        final ExecutorService executor = getNonIndexableKeysExecutor();
+        final List<Future<NonIndexableKeysResult>> futures = new ArrayList<>(bundles.size());
+        // The time each provider starts running, or -1 if it's still queued.
+        final AtomicLongArray startTimes = new AtomicLongArray(bundles.size());
+        for (int i = 0; i < bundles.size(); i++) {
+            final int index = i;
+            final SearchIndexableData bundle = bundles.get(i);
+            startTimes.set(index, -1L);
+            futures.add(executor.submit(() -> {
+                startTimes.set(index, SystemClock.elapsedRealtime());
+                return getNonIndexableKeys(context, bundle);
+            }));
+        }
+
+        final List<NonIndexableKeysResult> results = new ArrayList<>(bundles.size());
+        long deadline = SystemClock.elapsedRealtime() + NON_INDEXABLE_KEYS_TIMEOUT_MS;
+        for (int i = 0; i < futures.size(); i++) {
+            final Future<NonIndexableKeysResult> future = futures.get(i);
+            final String className = bundles.get(i).getTargetClass().getName();
+            final long waitStartTime = SystemClock.elapsedRealtime();
+            NonIndexableKeysResult result = null;
             try {
-                providerNonIndexableKeys = provider.getNonIndexableKeys(context);
-            } catch (Exception e) {
-                String msg = "Error trying to get non-indexable keys from: "
-                        + bundle.getTargetClass().getName();
-                // Catch a generic crash. In the absence of the catch, the background thread will
-                // silently fail anyway, so we aren't losing information by catching the exception.
-                // We crash on debuggable build or when the system property exists, so that we can
-                // test if crashes need to be fixed.
-                if (Build.IS_DEBUGGABLE || System.getProperty(SYSPROP_CRASH_ON_ERROR) != null) {
-                    throw new RuntimeException(msg, e);
+                while (true) {
+                    final long now = SystemClock.elapsedRealtime();
+                    final long startTime = startTimes.get(i);
+                    final long timeoutMs = Math.max(0L, Math.min(deadline,
+                            (startTime < 0L ? now : startTime)
+                                    + PROVIDER_NON_INDEXABLE_KEYS_TIMEOUT_MS) - now);
+                    try {
+                        result = future.get(timeoutMs, TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        // Waits again if the provider was queued, unless it's out of time.
+                        if (timeoutMs == 0L) {
+                            break;
+                        }
+                    }
                 }
-                Log.e(TAG, msg, e);
-                continue;
-            }
-
-            if (providerNonIndexableKeys == null || providerNonIndexableKeys.isEmpty()) {
-                if (DEBUG) {
-                    final long totalTime = System.currentTimeMillis() - startTime;
-                    Log.d(TAG, "No indexable, total time " + totalTime);
+            } catch (ExecutionException e) {
+                // Only happens when crashing on errors, see getNonIndexableKeys().
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
                 }
-                continue;
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // Stops waiting for the remaining providers.
+                deadline = 0L;
             }
+            if (result == null) {
+                future.cancel(/* mayInterruptIfRunning= */ true);
+                Log.w(TAG, "Timeout getting non-indexable keys in parallel, getting them "
+                        + "synchronously from: " + className);
+                final NonIndexableKeysResult syncResult =
+                        getNonIndexableKeys(context, bundles.get(i));
+                result = new NonIndexableKeysResult(className,
+                        NonIndexableKeysResult.SUCCESS.equals(syncResult.mState)
+                                ? NonIndexableKeysResult.TIMEOUT : syncResult.mState,
+                        syncResult.mKeys, SystemClock.elapsedRealtime() - waitStartTime);
+            }
+            results.add(result);
+        }
+        return results;
+    }
 
-            if (providerNonIndexableKeys.removeAll(INVALID_KEYS)) {
-                Log.v(TAG, provider + " tried to add an empty non-indexable key");
+    private static NonIndexableKeysResult getNonIndexableKeys(Context context,
+            SearchIndexableData bundle) {
+        final long startTime = SystemClock.elapsedRealtime();
+        final String className = bundle.getTargetClass().getName();
+        final Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
+        List<String> providerNonIndexableKeys;
+        try {
+            providerNonIndexableKeys = provider.getNonIndexableKeys(context);
+        } catch (Exception e) {
+            String msg = "Error trying to get non-indexable keys from: " + className;
+            // Catch a generic crash. In the absence of the catch, the background thread will
+            // silently fail anyway, so we aren't losing information by catching the exception.
+            // We crash on debuggable build or when the system property exists, so that we can
+            // test if crashes need to be fixed.
+            if (Build.IS_DEBUGGABLE || System.getProperty(SYSPROP_CRASH_ON_ERROR) != null) {
+                throw new RuntimeException(msg, e);
             }
+            Log.e(TAG, msg, e);
+            return new NonIndexableKeysResult(className, NonIndexableKeysResult.ERROR, List.of(),
+                    SystemClock.elapsedRealtime() - startTime);
+        }
 
+        if (providerNonIndexableKeys == null || providerNonIndexableKeys.isEmpty()) {
+            final long totalTime = SystemClock.elapsedRealtime() - startTime;
             if (DEBUG) {
-                final long totalTime = System.currentTimeMillis() - startTime;
-                Log.d(TAG, "Non-indexables " + providerNonIndexableKeys.size() + ", total time "
-                        + totalTime);
+                Log.d(TAG, "No indexable, total time " + totalTime);
             }
+            return new NonIndexableKeysResult(className, NonIndexableKeysResult.SUCCESS,
+                    List.of(), totalTime);
+        }
 
-            nonIndexableKeys.addAll(providerNonIndexableKeys);
+        if (providerNonIndexableKeys.removeAll(INVALID_KEYS)) {
+            Log.v(TAG, provider + " tried to add an empty non-indexable key");
         }
 
-        return nonIndexableKeys;
+        final long totalTime = SystemClock.elapsedRealtime() - startTime;
+        if (DEBUG) {
+            Log.d(TAG, "Non-indexables " + providerNonIndexableKeys.size() + ", total time "
+                    + totalTime);
+        }
+        return new NonIndexableKeysResult(className, NonIndexableKeysResult.SUCCESS,
+                providerNonIndexableKeys, totalTime);
+    }
+
+    private static synchronized ExecutorService getNonIndexableKeysExecutor() {
+        if (sNonIndexableKeysExecutor != null
+                && sNonIndexableKeysExecutor.getMaximumPoolSize()
+                        != sNonIndexableKeysParallelism) {
+            // Only happens when the parallelism is changed in tests, the running tasks are still
+            // finished by the previous pool.
+            sNonIndexableKeysExecutor.shutdown();
+            sNonIndexableKeysExecutor = null;
+        }
+        if (sNonIndexableKeysExecutor == null) {
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                    sNonIndexableKeysParallelism,
+                    sNonIndexableKeysParallelism,
+                    NON_INDEXABLE_KEYS_THREAD_KEEP_ALIVE_SECONDS,
+                    TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>());
+            // Releases the idle threads since re-indexing only happens occasionally.
+            executor.allowCoreThreadTimeOut(true);
+            sNonIndexableKeysExecutor = executor;
+        }
+        return sNonIndexableKeysExecutor;
     }
 
     private List<SearchIndexableResource> getSearchIndexableResourcesFromProvider(Context context) {
@@ -359,23 +709,102 @@ public class SettingsSearchIndexablesProvider extends PreferenceSearchIndexables
         final List<SearchIndexableRaw> rawList = new ArrayList<>();
 
         for (SearchIndexableData bundle : bundles) {
-            Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
-            final List<SearchIndexableRaw> providerRaws = provider.getRawDataToIndex(context,
-                    true /* enabled */);
+            rawList.addAll(getSearchIndexableRawData(context, bundle));
+        }
 
-            if (providerRaws == null) {
-                continue;
+        return rawList;
+    }
+
+    private static List<SearchIndexableRaw> getSearchIndexableRawData(Context context,
+            SearchIndexableData bundle) {
+        final Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
+        final List<SearchIndexableRaw> providerRaws = provider.getRawDataToIndex(context,
+                true /* enabled */);
+        if (providerRaws == null) {
+            return new ArrayList<>();
+        }
+
+        for (SearchIndexableRaw raw : providerRaws) {
+            // The classname and intent information comes from the PreIndexData
+            // This will be more clear when provider conversion is done at PreIndex time.
+            raw.className = bundle.getTargetClass().getName();
+        }
+        return providerRaws;
+    }
+
+    /** Groups the provider bundles by the class since the same fragment may be registered twice. */
+    private static Map<String, List<SearchIndexableData>> getBundlesByProvider() {
+        final Map<String, List<SearchIndexableData>> bundlesByProvider = new LinkedHashMap<>();
+        for (SearchIndexableData bundle : FeatureFactory.getFeatureFactory()
+                .getSearchFeatureProvider().getSearchIndexableResources().getProviderValues()) {
+            bundlesByProvider.computeIfAbsent(bundle.getTargetClass().getName(),
+                    key -> new ArrayList<>()).add(bundle);
+        }
+        return bundlesByProvider;
+    }
+
+    private synchronized SearchIndexFingerprints getFingerprints() {
+        if (mFingerprints == null) {
+            mFingerprints = new SearchIndexFingerprints(getContext());
+        }
+        return mFingerprints;
+    }
+
+    /**
+     * Gets the fingerprints of the dynamic index inputs of each provider, or {@code null} for a
+     * provider of which the inputs are unknown.
+     */
+    private Map<String, String> getDynamicIndexFingerprints(Context context,
+            Map<String, List<SearchIndexableData>> bundlesByProvider) {
+        final String environmentFingerprint = getFingerprints().getEnvironmentFingerprint();
+        final Map<String, String> fingerprints = new ArrayMap<>(bundlesByProvider.size());
+        for (Map.Entry<String, List<SearchIndexableData>> entry : bundlesByProvider.entrySet()) {
+            List<Object> inputs = new ArrayList<>();
+            for (SearchIndexableData bundle : entry.getValue()) {
+                final List<Object> providerInputs =
+                        bundle.getSearchIndexProvider() instanceof BaseSearchIndexProvider provider
+                                ? provider.getDynamicIndexInputs(context) : null;
+                if (providerInputs == null) {
+                    inputs = null;
+                    break;
+                }
+                inputs.addAll(providerInputs);
             }
+            fingerprints.put(entry.getKey(),
+                    SearchIndexFingerprints.fingerprintOf(environmentFingerprint, inputs));
+        }
+        return fingerprints;
+    }
 
-            for (SearchIndexableRaw raw : providerRaws) {
-                // The classname and intent information comes from the PreIndexData
-                // This will be more clear when provider conversion is done at PreIndex time.
-                raw.className = bundle.getTargetClass().getName();
+    private static Cursor createRawDeltaCursor(
+            Map<String, List<SearchIndexableRaw>> rawsByProvider, List<String> changedProviders) {
+        final MatrixCursor cursor = new MatrixCursor(appendProviderColumn(INDEXABLES_RAW_COLUMNS));
+        for (String providerName : changedProviders) {
+            final List<SearchIndexableRaw> raws = rawsByProvider.get(providerName);
+            if (raws == null) {
+                continue;
+            }
+            for (SearchIndexableRaw raw : raws) {
+                final Object[] ref = Arrays.copyOf(createIndexableRawColumnObjects(raw),
+                        INDEXABLES_RAW_COLUMNS.length + 1);
+                ref[INDEXABLES_RAW_COLUMNS.length] = providerName;
+                cursor.addRow(ref);
             }
-            rawList.addAll(providerRaws);
         }
+        setChangedProviders(cursor, changedProviders);
+        return cursor;
+    }
 
-        return rawList;
+    private static void setChangedProviders(MatrixCursor cursor, List<String> changedProviders) {
+        final Bundle extras = new Bundle();
+        extras.putStringArray(EXTRA_CHANGED_PROVIDERS, changedProviders.toArray(new String[0]));
+        cursor.setExtras(extras);
+    }
+
+    private static String[] appendProviderColumn(String[] columns) {
+        final String[] result = Arrays.copyOf(columns, columns.length + 1);
+        result[columns.length] = COLUMN_PROVIDER;
+        return result;
     }
 
     private List<SearchIndexableRaw> getDynamicSearchIndexableRawData(Context context,
@@ -480,4 +909,31 @@ public class SettingsSearchIndexablesProvider extends PreferenceSearchIndexables
         ref[COLUMN_INDEX_RAW_USER_ID] = raw.userId;
         return ref;
     }
+
+    /** The non-indexable keys and the cost of a single {@link SearchIndexableData} provider. */
+    @VisibleForTesting
+    static final class NonIndexableKeysResult {
+        static final String SUCCESS = "success";
+        static final String ERROR = "error";
+        // Missed the timeout in the pool, the keys were got synchronously.
+        static final String TIMEOUT = "timeout";
+
+        final String mClassName;
+        final String mState;
+        final List<String> mKeys;
+        final long mElapsedTimeMs;
+
+        NonIndexableKeysResult(String className, String state, List<String> keys,
+                long elapsedTimeMs) {
+            mClassName = className;
+            mState = state;
+            mKeys = keys;
+            mElapsedTimeMs = elapsedTimeMs;
+        }
+
+        @Override
+        public String toString() {
+            return mElapsedTimeMs + "/ms " + mState + " keys=" + mKeys.size() + " " + mClassName;
+        }
+    }
 }
@@ -27,9 +27,11 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.content.pm.PackageManager;
+import android.content.res.Configuration;
 import android.net.Uri;
 import android.os.Binder;
 import android.os.Build;
+import android.os.LocaleList;
 import android.os.StrictMode;
 import android.os.UserManager;
 import android.provider.Settings;
@@ -38,6 +40,7 @@ import android.text.TextUtils;
 import android.util.ArrayMap;
 import android.util.KeyValueListParser;
 import android.util.Log;
+import android.util.LruCache;
 import android.util.Pair;
 
 import androidx.annotation.NonNull;
@@ -64,7 +67,6 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.WeakHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -79,7 +81,7 @@ import java.util.stream.Collectors;
  * return an stub {@link Slice} with the correct {@link Uri} immediately. In the background, the
  * data corresponding to the key in the {@link Uri} is read by {@link SlicesDatabaseAccessor}, and
  * the entire row is converted into a {@link SliceData}. Once complete, it is stored in
- * {@link #mSliceWeakDataCache}, and then an update sent via the Slice framework to the Slice.
+ * {@link #mSliceDataCache}, and then an update sent via the Slice framework to the Slice.
  * The {@link Slice} displayed by the Slice-presenter will re-query this Slice-provider and find
  * the {@link SliceData} cached to build the full {@link Slice}.
  *
@@ -147,12 +149,32 @@ public class SettingsSliceProvider extends SliceProvider {
     @VisibleForTesting
     SlicesDatabaseAccessor mSlicesDatabaseAccessor;
 
+    /**
+     * The max number of {@link SliceData} kept in {@link #mSliceDataCache}, which is far more than
+     * the public slices and the slices pinned at the same time.
+     */
     @VisibleForTesting
-    Map<Uri, SliceData> mSliceWeakDataCache;
+    static final int SLICE_DATA_CACHE_SIZE = 128;
+
+    private static final int INDEX_GENERATION_UNSET = -1;
+
+    /**
+     * The {@link SliceData} loaded from the database, which are kept after the slices are unpinned
+     * and dropped once the slices are reindexed or the locales are changed.
+     */
+    @VisibleForTesting
+    LruCache<Uri, SliceData> mSliceDataCache;
+
+    // The uris of the loaded slices, whose intent filters and background workers are registered.
+    @VisibleForTesting
+    final Set<Uri> mLoadedSliceUris = Collections.synchronizedSet(new ArraySet<>());
 
     @VisibleForTesting
     final Map<Uri, SliceBackgroundWorker> mPinnedWorkers = new ArrayMap<>();
 
+    // The generation of the index which the cached slice data are loaded from.
+    private volatile int mIndexGeneration = INDEX_GENERATION_UNSET;
+    private LocaleList mLocales;
     private Boolean mNightMode;
     private boolean mFirstSlicePinned;
     private boolean mFirstSliceBound;
@@ -166,10 +188,25 @@ public class SettingsSliceProvider extends SliceProvider {
     public boolean onCreateSliceProvider() {
         Log.d(TAG, "onCreateSliceProvider");
         mSlicesDatabaseAccessor = new SlicesDatabaseAccessor(getContext());
-        mSliceWeakDataCache = new WeakHashMap<>();
+        mSliceDataCache = new LruCache<>(SLICE_DATA_CACHE_SIZE);
+        mLocales = getContext().getResources().getConfiguration().getLocales();
+        mIndexGeneration = SlicesDatabaseHelper.getInstance(getContext()).getIndexGeneration();
+        // Prewarm the public slices, which are bound by other apps without being pinned first.
+        ThreadUtils.postOnBackgroundThread(this::prewarmPublicSliceData);
         return true;
     }
 
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        final LocaleList locales = newConfig.getLocales();
+        if (mLocales != null && !mLocales.equals(locales)) {
+            Log.d(TAG, "Locales changed, clear slice data");
+            clearSliceData();
+        }
+        mLocales = locales;
+    }
+
     @Override
     public void onSlicePinned(Uri sliceUri) {
         if (!mFirstSlicePinned) {
@@ -211,7 +248,7 @@ public class SettingsSliceProvider extends SliceProvider {
 
     @Override
     public void onSliceUnpinned(Uri sliceUri) {
-        mSliceWeakDataCache.remove(sliceUri);
+        mLoadedSliceUris.remove(sliceUri);
         final Context context = getContext();
         if (!VolumeSliceHelper.unregisterUri(context, sliceUri)) {
             SliceBroadcastRelay.unregisterReceivers(context, sliceUri);
@@ -287,7 +324,8 @@ public class SettingsSliceProvider extends SliceProvider {
                         .createWifiCallingPreferenceSlice(sliceUri);
             }
 
-            final SliceData cachedSliceData = mSliceWeakDataCache.get(sliceUri);
+            clearSliceDataIfReindexed();
+            final SliceData cachedSliceData = mSliceDataCache.get(sliceUri);
             if (cachedSliceData == null) {
                 loadSliceInBackground(sliceUri);
                 return getSliceStub(sliceUri);
@@ -428,41 +466,103 @@ public class SettingsSliceProvider extends SliceProvider {
 
     @VisibleForTesting
     void loadSlice(Uri uri) {
-        if (mSliceWeakDataCache.containsKey(uri)) {
+        clearSliceDataIfReindexed();
+        final boolean isLoaded = mLoadedSliceUris.contains(uri);
+        SliceData sliceData = mSliceDataCache.get(uri);
+        if (isLoaded && sliceData != null) {
             Log.d(TAG, uri + " loaded from cache");
             return;
         }
         long startBuildTime = System.currentTimeMillis();
 
-        final SliceData sliceData;
-        try {
-            sliceData = mSlicesDatabaseAccessor.getSliceDataFromUri(uri);
-        } catch (IllegalStateException e) {
-            Log.d(TAG, "Could not create slicedata for uri: " + uri, e);
-            return;
+        if (sliceData == null) {
+            try {
+                sliceData = mSlicesDatabaseAccessor.getSliceDataFromUri(uri);
+            } catch (IllegalStateException e) {
+                Log.d(TAG, "Could not create slicedata for uri: " + uri, e);
+                return;
+            }
+            mSliceDataCache.put(uri, sliceData);
         }
 
-        final BasePreferenceController controller = SliceBuilderUtils.getPreferenceController(
-                getContext(), sliceData);
-
-        final IntentFilter filter = controller.getIntentFilter();
-        if (filter != null) {
-            if (controller instanceof VolumeSliderPreferenceController) {
-                // Register volume slices to a broadcast relay to reduce unnecessary UI updates
-                VolumeSliceHelper.registerIntentToUri(getContext(), filter, uri,
-                        ((VolumeSliderPreferenceController) controller).getAudioStream());
-            } else {
-                registerIntentToUri(filter, uri);
+        // The data may be evicted from the cache while the slice is still pinned.
+        if (!isLoaded) {
+            final BasePreferenceController controller =
+                    SliceBuilderUtils.getPreferenceController(getContext(), sliceData);
+
+            final IntentFilter filter = controller.getIntentFilter();
+            if (filter != null) {
+                if (controller instanceof VolumeSliderPreferenceController) {
+                    // Register volume slices to a broadcast relay to reduce unnecessary UI updates
+                    VolumeSliceHelper.registerIntentToUri(getContext(), filter, uri,
+                            ((VolumeSliderPreferenceController) controller).getAudioStream());
+                } else {
+                    registerIntentToUri(filter, uri);
+                }
             }
-        }
 
-        ThreadUtils.postOnMainThread(() -> startBackgroundWorker(controller, uri));
+            ThreadUtils.postOnMainThread(() -> startBackgroundWorker(controller, uri));
+            mLoadedSliceUris.add(uri);
+        }
 
-        mSliceWeakDataCache.put(uri, sliceData);
         getContext().getContentResolver().notifyChange(uri, null /* content observer */);
 
-        Log.d(TAG, "Built slice (" + uri + ") in: " +
-                (System.currentTimeMillis() - startBuildTime));
+        Log.d(TAG, "Built slice (" + uri + ") in: "
+                + (System.currentTimeMillis() - startBuildTime) + ", cache hits: "
+                + mSliceDataCache.hitCount() + ", misses: " + mSliceDataCache.missCount());
+    }
+
+    /**
+     * Loads all the public {@link SliceData} with one query, so binding them doesn't need to wait
+     * for the database.
+     */
+    @VisibleForTesting
+    void prewarmPublicSliceData() {
+        final long startTime = System.currentTimeMillis();
+        final List<SliceData> sliceDataList;
+        try {
+            sliceDataList = mSlicesDatabaseAccessor.getPublicSliceData();
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Failed to prewarm public slices", e);
+            return;
+        }
+        for (SliceData sliceData : sliceDataList) {
+            mSliceDataCache.put(sliceData.getUri(), sliceData);
+        }
+        Log.d(TAG, "Prewarmed " + sliceDataList.size() + " public slices in: "
+                + (System.currentTimeMillis() - startTime));
+    }
+
+    /**
+     * Drops the cached {@link SliceData} and the loaded state of the slices, so they are loaded
+     * again with the current index and locales.
+     */
+    @VisibleForTesting
+    void clearSliceData() {
+        mSliceDataCache.evictAll();
+        final List<Uri> loadedSliceUris;
+        synchronized (mLoadedSliceUris) {
+            loadedSliceUris = new ArrayList<>(mLoadedSliceUris);
+            mLoadedSliceUris.clear();
+        }
+        // Let the pinned slices bind again, which reloads their data.
+        final ContentResolver resolver = getContext().getContentResolver();
+        for (Uri uri : loadedSliceUris) {
+            resolver.notifyChange(uri, null /* content observer */);
+        }
+    }
+
+    private void clearSliceDataIfReindexed() {
+        final int generation = SlicesDatabaseHelper.getInstance(getContext()).getIndexGeneration();
+        final int cachedGeneration = mIndexGeneration;
+        if (generation == cachedGeneration) {
+            return;
+        }
+        mIndexGeneration = generation;
+        if (cachedGeneration != INDEX_GENERATION_UNSET) {
+            Log.d(TAG, "Slices reindexed, clear slice data");
+            clearSliceData();
+        }
     }
 
     @VisibleForTesting
@@ -32,6 +32,7 @@ import com.android.settings.overlay.FeatureFactory;
 import com.android.settings.slices.SlicesDatabaseHelper.IndexColumns;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -118,6 +119,32 @@ public class SlicesDatabaseAccessor {
         return uris;
     }
 
+    /**
+     * Query the slices database and return the {@link SliceData} of all public slices with their
+     * {@link Uri}s. Used to prewarm the cache of {@link SettingsSliceProvider}.
+     */
+    public List<SliceData> getPublicSliceData() {
+        verifyIndexing();
+        final List<SliceData> sliceDataList = new ArrayList<>();
+        final String[] columns = Arrays.copyOf(SELECT_COLUMNS_ALL, SELECT_COLUMNS_ALL.length + 1);
+        columns[SELECT_COLUMNS_ALL.length] = IndexColumns.SLICE_URI;
+        final SQLiteDatabase database = mHelper.getReadableDatabase();
+        try (Cursor cursor = database.query(TABLE_SLICES_INDEX, columns,
+                IndexColumns.PUBLIC_SLICE + "=1" /* where */, null /* selection */,
+                null /* groupBy */, null /* having */, null /* orderBy */)) {
+            while (cursor.moveToNext()) {
+                final Uri uri = Uri.parse(
+                        cursor.getString(cursor.getColumnIndex(IndexColumns.SLICE_URI)));
+                final Pair<Boolean, String> pathData = SliceBuilderUtils.getPathData(uri);
+                if (pathData != null) {
+                    sliceDataList.add(buildSliceData(cursor, uri,
+                            pathData.first /* isIntentOnly */));
+                }
+            }
+        }
+        return sliceDataList;
+    }
+
     private Cursor getIndexedSliceData(String path) {
         verifyIndexing();
 
@@ -16,15 +16,20 @@
 
 package com.android.settings.slices;
 
+import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.os.Build;
+import android.util.ArrayMap;
 import android.util.Log;
 
 import androidx.annotation.VisibleForTesting;
 
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Defines the schema for the Slices database.
@@ -37,10 +42,11 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
     private static final String DATABASE_NAME = "slices_index.db";
     private static final String SHARED_PREFS_TAG = "slices_shared_prefs";
 
-    private static final int DATABASE_VERSION = 10;
+    private static final int DATABASE_VERSION = 11;
 
     public interface Tables {
         String TABLE_SLICES_INDEX = "slices_index";
+        String TABLE_SLICES_INDEX_FINGERPRINTS = "slices_index_fingerprints";
     }
 
     public interface IndexColumns {
@@ -149,8 +155,32 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
                     + " INTEGER DEFAULT 0 "
                     + ");";
 
+    public interface FingerprintColumns {
+        /**
+         * Classname of the fragment providing the slice data, empty for the data without fragment.
+         */
+        String SOURCE = "source";
+
+        /**
+         * Fingerprint of the indexed slice data of the source.
+         */
+        String FINGERPRINT = "fingerprint";
+    }
+
+    private static final String CREATE_FINGERPRINTS_TABLE =
+            "CREATE TABLE " + Tables.TABLE_SLICES_INDEX_FINGERPRINTS
+                    + "("
+                    + FingerprintColumns.SOURCE
+                    + " TEXT PRIMARY KEY, "
+                    + FingerprintColumns.FINGERPRINT
+                    + " TEXT NOT NULL"
+                    + ");";
+
     private final Context mContext;
 
+    // Increased whenever the indexed slice data are rewritten, so the cached data could be dropped.
+    private final AtomicInteger mIndexGeneration = new AtomicInteger();
+
     private static SlicesDatabaseHelper sSingleton;
 
     public static synchronized SlicesDatabaseHelper getInstance(Context context) {
@@ -184,12 +214,68 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
      * {@link#isNewIndexingState(Context)} will return {@code true}.
      */
     void reconstruct(SQLiteDatabase db) {
+        clearIndexedState();
+        dropTables(db);
+        createDatabases(db);
+        notifyIndexChanged();
+    }
+
+    /**
+     * Returns the generation of the indexed slice data, which is changed once the data are
+     * rewritten in this process.
+     */
+    int getIndexGeneration() {
+        return mIndexGeneration.get();
+    }
+
+    /**
+     * Marks the indexed slice data as rewritten, should be called after the data are committed.
+     */
+    void notifyIndexChanged() {
+        mIndexGeneration.incrementAndGet();
+    }
+
+    /**
+     * Un-marks the state of the data such that any subsequent call to
+     * {@link #isSliceDataIndexed()} will return {@code false}, while keeping the indexed data.
+     */
+    void clearIndexedState() {
         mContext.getSharedPreferences(SHARED_PREFS_TAG, Context.MODE_PRIVATE)
                 .edit()
                 .clear()
                 .apply();
-        dropTables(db);
-        createDatabases(db);
+    }
+
+    /**
+     * Returns the fingerprints of the indexed slice data, keyed by the source of the data.
+     */
+    Map<String, String> getSourceFingerprints(SQLiteDatabase db) {
+        final Map<String, String> fingerprints = new ArrayMap<>();
+        try (Cursor cursor = db.query(Tables.TABLE_SLICES_INDEX_FINGERPRINTS,
+                new String[] {FingerprintColumns.SOURCE, FingerprintColumns.FINGERPRINT},
+                null /* selection */, null /* selectionArgs */, null /* groupBy */,
+                null /* having */, null /* orderBy */)) {
+            while (cursor.moveToNext()) {
+                fingerprints.put(cursor.getString(0), cursor.getString(1));
+            }
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Replaces the fingerprints of the indexed slice data, keyed by the source of the data. It
+     * should be called in the same transaction as writing the slice data.
+     */
+    void setSourceFingerprints(SQLiteDatabase db, Map<String, String> fingerprints) {
+        db.delete(Tables.TABLE_SLICES_INDEX_FINGERPRINTS, null /* whereClause */,
+                null /* whereArgs */);
+        for (Map.Entry<String, String> entry : fingerprints.entrySet()) {
+            final ContentValues values = new ContentValues();
+            values.put(FingerprintColumns.SOURCE, entry.getKey());
+            values.put(FingerprintColumns.FINGERPRINT, entry.getValue());
+            db.insertOrThrow(Tables.TABLE_SLICES_INDEX_FINGERPRINTS, null /* nullColumnHack */,
+                    values);
+        }
     }
 
     /**
@@ -212,11 +298,13 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
 
     private void createDatabases(SQLiteDatabase db) {
         db.execSQL(CREATE_SLICES_TABLE);
+        db.execSQL(CREATE_FINGERPRINTS_TABLE);
         Log.d(TAG, "Created databases");
     }
 
     private void dropTables(SQLiteDatabase db) {
         db.execSQL("DROP TABLE IF EXISTS " + Tables.TABLE_SLICES_INDEX);
+        db.execSQL("DROP TABLE IF EXISTS " + Tables.TABLE_SLICES_INDEX_FINGERPRINTS);
     }
 
     private void setBuildIndexed() {
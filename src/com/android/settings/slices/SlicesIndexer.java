@@ -16,20 +16,32 @@
 
 package com.android.settings.slices;
 
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.SystemClock;
+import android.util.ArrayMap;
+import android.util.EventLog;
 import android.util.Log;
 
 import androidx.annotation.VisibleForTesting;
 
+import com.android.settings.EventLogTags;
 import com.android.settings.core.BasePreferenceController;
 import com.android.settings.dashboard.DashboardFragment;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settings.slices.SlicesDatabaseHelper.IndexColumns;
 import com.android.settings.slices.SlicesDatabaseHelper.Tables;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * Manages the conversion of {@link DashboardFragment} and {@link BasePreferenceController} to
@@ -40,6 +52,27 @@ class SlicesIndexer implements Runnable {
 
     private static final String TAG = "SlicesIndexer";
 
+    private static final String[] INSERT_COLUMNS = {
+            IndexColumns.KEY,
+            IndexColumns.SLICE_URI,
+            IndexColumns.TITLE,
+            IndexColumns.SUMMARY,
+            IndexColumns.SCREENTITLE,
+            IndexColumns.KEYWORDS,
+            IndexColumns.ICON_RESOURCE,
+            IndexColumns.FRAGMENT,
+            IndexColumns.CONTROLLER,
+            IndexColumns.SLICE_TYPE,
+            IndexColumns.UNAVAILABLE_SLICE_SUBTITLE,
+            IndexColumns.PUBLIC_SLICE,
+            IndexColumns.HIGHLIGHT_MENU_RESOURCE,
+            IndexColumns.USER_RESTRICTION,
+    };
+
+    private static final String INSERT_SQL = "INSERT INTO " + Tables.TABLE_SLICES_INDEX
+            + " (" + String.join(", ", INSERT_COLUMNS) + ") VALUES ("
+            + String.join(", ", Collections.nCopies(INSERT_COLUMNS.length, "?")) + ")";
+
     private Context mContext;
 
     private SlicesDatabaseHelper mHelper;
@@ -59,7 +92,8 @@ class SlicesIndexer implements Runnable {
 
     /**
      * Synchronously takes data obtained from {@link SliceDataConverter} and indexes it into a
-     * SQLite database
+     * SQLite database. Only the rows of the sources whose slice data are changed since the last
+     * indexing are rewritten.
      */
     protected void indexSliceData() {
         if (mHelper.isSliceDataIndexed()) {
@@ -67,24 +101,60 @@ class SlicesIndexer implements Runnable {
             return;
         }
 
-        final SQLiteDatabase database = mHelper.getWritableDatabase();
+        final long startTime = SystemClock.elapsedRealtime();
+        final List<SliceData> indexData = getSliceData();
+        final Map<String, List<SliceData>> indexDataBySource = new ArrayMap<>();
+        for (SliceData dataRow : indexData) {
+            indexDataBySource.computeIfAbsent(getSource(dataRow), source -> new ArrayList<>())
+                    .add(dataRow);
+        }
+        final Map<String, String> fingerprints = new ArrayMap<>();
+        for (Map.Entry<String, List<SliceData>> entry : indexDataBySource.entrySet()) {
+            fingerprints.put(entry.getKey(), getFingerprint(entry.getValue()));
+        }
 
-        long startTime = System.currentTimeMillis();
+        int changedSourceCount = 0;
+        int rowCount = 0;
+        final SQLiteDatabase database = mHelper.getWritableDatabase();
         database.beginTransaction();
         try {
-            mHelper.reconstruct(database);
-            List<SliceData> indexData = getSliceData();
-            insertSliceData(database, indexData);
-
-            mHelper.setIndexedState();
-
-            // TODO (b/71503044) Log indexing time.
-            Log.d(TAG,
-                    "Indexing slices database took: " + (System.currentTimeMillis() - startTime));
+            // The fingerprints are kept in the same database, so they're always committed or
+            // rolled back together with the indexed rows, and dropped if the database is recreated.
+            final Map<String, String> indexedFingerprints =
+                    mHelper.getSourceFingerprints(database);
+            mHelper.clearIndexedState();
+            for (String source : indexedFingerprints.keySet()) {
+                if (!fingerprints.containsKey(source)) {
+                    deleteSliceData(database, source);
+                    changedSourceCount++;
+                }
+            }
+            for (Map.Entry<String, List<SliceData>> entry : indexDataBySource.entrySet()) {
+                final String source = entry.getKey();
+                if (fingerprints.get(source).equals(indexedFingerprints.get(source))) {
+                    continue;
+                }
+                deleteSliceData(database, source);
+                insertSliceData(database, entry.getValue());
+                changedSourceCount++;
+                rowCount += entry.getValue().size();
+            }
+            mHelper.setSourceFingerprints(database, fingerprints);
             database.setTransactionSuccessful();
         } finally {
             database.endTransaction();
         }
+        // Only marks the data as indexed once they're committed.
+        mHelper.setIndexedState();
+        if (changedSourceCount > 0) {
+            mHelper.notifyIndexChanged();
+        }
+
+        final long duration = SystemClock.elapsedRealtime() - startTime;
+        EventLog.writeEvent(EventLogTags.SETTINGS_SLICES_INDEX, duration, indexData.size(),
+                changedSourceCount, rowCount);
+        Log.d(TAG, "Indexing slices database took: " + duration + ", sources changed: "
+                + changedSourceCount + ", rows written: " + rowCount);
     }
 
     @VisibleForTesting
@@ -97,31 +167,84 @@ class SlicesIndexer implements Runnable {
 
     @VisibleForTesting
     void insertSliceData(SQLiteDatabase database, List<SliceData> indexData) {
-        ContentValues values;
+        // Compile the statement once and bind each row, rather than building ContentValues.
+        try (SQLiteStatement statement = database.compileStatement(INSERT_SQL)) {
+            for (SliceData dataRow : indexData) {
+                final Object[] values = getColumnValues(dataRow);
+                statement.clearBindings();
+                for (int i = 0; i < values.length; i++) {
+                    bindValue(statement, i + 1, values[i]);
+                }
+                statement.executeInsert();
+            }
+        }
+    }
 
+    private static void deleteSliceData(SQLiteDatabase database, String source) {
+        if (source.isEmpty()) {
+            database.delete(Tables.TABLE_SLICES_INDEX,
+                    IndexColumns.FRAGMENT + " IS NULL OR " + IndexColumns.FRAGMENT + " = ''",
+                    null /* whereArgs */);
+        } else {
+            database.delete(Tables.TABLE_SLICES_INDEX, IndexColumns.FRAGMENT + " = ?",
+                    new String[] {source});
+        }
+    }
+
+    // The slice data are provided by the fragments, which are the sources to be compared.
+    private static String getSource(SliceData dataRow) {
+        final String fragment = dataRow.getFragmentClassName();
+        return fragment != null ? fragment : "";
+    }
+
+    @VisibleForTesting
+    static String getFingerprint(List<SliceData> indexData) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
         for (SliceData dataRow : indexData) {
-            values = new ContentValues();
-            values.put(IndexColumns.KEY, dataRow.getKey());
-            values.put(IndexColumns.SLICE_URI, dataRow.getUri().toString());
-            values.put(IndexColumns.TITLE, dataRow.getTitle());
-            values.put(IndexColumns.SUMMARY, dataRow.getSummary());
-            final CharSequence screenTitle = dataRow.getScreenTitle();
-            if (screenTitle != null) {
-                values.put(IndexColumns.SCREENTITLE, screenTitle.toString());
-            }
-            values.put(IndexColumns.KEYWORDS, dataRow.getKeywords());
-            values.put(IndexColumns.ICON_RESOURCE, dataRow.getIconResource());
-            values.put(IndexColumns.FRAGMENT, dataRow.getFragmentClassName());
-            values.put(IndexColumns.CONTROLLER, dataRow.getPreferenceController());
-            values.put(IndexColumns.SLICE_TYPE, dataRow.getSliceType());
-            values.put(IndexColumns.UNAVAILABLE_SLICE_SUBTITLE,
-                    dataRow.getUnavailableSliceSubtitle());
-            values.put(IndexColumns.PUBLIC_SLICE, dataRow.isPublicSlice());
-            values.put(IndexColumns.HIGHLIGHT_MENU_RESOURCE, dataRow.getHighlightMenuRes());
-            values.put(IndexColumns.USER_RESTRICTION, dataRow.getUserRestriction());
-
-            database.replaceOrThrow(Tables.TABLE_SLICES_INDEX, null /* nullColumnHack */,
-                    values);
+            digest.update(Arrays.toString(getColumnValues(dataRow))
+                    .getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        final StringBuilder builder = new StringBuilder();
+        for (byte b : digest.digest()) {
+            builder.append(String.format(Locale.US, "%02x", b));
+        }
+        return builder.toString();
+    }
+
+    // The values of INSERT_COLUMNS.
+    private static Object[] getColumnValues(SliceData dataRow) {
+        final CharSequence screenTitle = dataRow.getScreenTitle();
+        return new Object[] {
+                dataRow.getKey(),
+                dataRow.getUri().toString(),
+                dataRow.getTitle(),
+                dataRow.getSummary(),
+                screenTitle != null ? screenTitle.toString() : null,
+                dataRow.getKeywords(),
+                dataRow.getIconResource(),
+                dataRow.getFragmentClassName(),
+                dataRow.getPreferenceController(),
+                dataRow.getSliceType(),
+                dataRow.getUnavailableSliceSubtitle(),
+                dataRow.isPublicSlice() ? 1 : 0,
+                dataRow.getHighlightMenuRes(),
+                dataRow.getUserRestriction(),
+        };
+    }
+
+    private static void bindValue(SQLiteStatement statement, int index, Object value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else if (value instanceof Integer) {
+            statement.bindLong(index, (Integer) value);
+        } else {
+            statement.bindString(index, value.toString());
         }
     }
 }
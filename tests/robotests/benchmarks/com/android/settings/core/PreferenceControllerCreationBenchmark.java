@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+
+import com.android.settings.R;
+import com.android.settings.testutils.FakeFeatureFactory;
+import com.android.settings.testutils.MicroBenchmark;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Benchmarks the creation of the preference controllers declared in the preference xml, which is
+ * done when the dashboard fragments are attached, through the generated factories compared with
+ * reflection.
+ */
+@RunWith(ParameterizedRobolectricTestRunner.class)
+public class PreferenceControllerCreationBenchmark {
+
+    /** Defines parameters for parameterized benchmark */
+    @ParameterizedRobolectricTestRunner.Parameters(name = "{0}")
+    public static List<Object[]> params() {
+        return Arrays.asList(
+                new Object[] {"mobile_network_settings", R.xml.mobile_network_settings},
+                new Object[] {"app_info_settings", R.xml.app_info_settings},
+                new Object[] {
+                        "configure_notification_settings", R.xml.configure_notification_settings},
+                new Object[] {"display_settings", R.xml.display_settings},
+                new Object[] {"development_settings", R.xml.development_settings});
+    }
+
+    @ParameterizedRobolectricTestRunner.Parameter(0)
+    public String mScreenName;
+
+    @ParameterizedRobolectricTestRunner.Parameter(1)
+    public int mXmlResId;
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        FakeFeatureFactory.setupForTest();
+        mContext = RuntimeEnvironment.application;
+    }
+
+    @After
+    public void tearDown() {
+        BasePreferenceController.sGeneratedFactoriesEnabled = true;
+    }
+
+    @Test
+    public void createControllers_generatedFactories() {
+        BasePreferenceController.sGeneratedFactoriesEnabled = true;
+
+        assertThat(measureCreateControllers("generatedFactories")).isNotEmpty();
+    }
+
+    @Test
+    public void createControllers_reflection() {
+        BasePreferenceController.sGeneratedFactoriesEnabled = false;
+
+        assertThat(measureCreateControllers("reflection")).isNotEmpty();
+    }
+
+    private List<BasePreferenceController> measureCreateControllers(String variant) {
+        final int controllerCount =
+                PreferenceControllerListHelper.getPreferenceControllersFromXml(mContext, mXmlResId)
+                        .size();
+        return MicroBenchmark.measureAndGet(
+                String.format("%s[%s, controllers=%d]", variant, mScreenName, controllerCount),
+                () -> PreferenceControllerListHelper.getPreferenceControllersFromXml(
+                        mContext, mXmlResId));
+    }
+}
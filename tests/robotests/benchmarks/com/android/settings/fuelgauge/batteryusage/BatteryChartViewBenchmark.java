@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.View;
+import android.widget.TextView;
+
+import com.android.settings.testutils.MicroBenchmark;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks the frame time of {@link BatteryChartView} when users switch the selected slot, which
+ * is varied by the number of the trapezoid slots in the chart.
+ */
+@RunWith(ParameterizedRobolectricTestRunner.class)
+public class BatteryChartViewBenchmark {
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 600;
+    // Switches through the slots a few times in one operation to get a stable frame time.
+    private static final int FRAMES_PER_OP = 100;
+
+    /** Defines parameters for parameterized benchmark */
+    @ParameterizedRobolectricTestRunner.Parameters(name = "slots={0}")
+    public static List<Object[]> params() {
+        final List<Object[]> params = new ArrayList<>();
+        for (int slots : new int[] {7, 12, 24}) {
+            params.add(new Object[] {slots});
+        }
+        return params;
+    }
+
+    @ParameterizedRobolectricTestRunner.Parameter(0)
+    public int mSlotCount;
+
+    private Canvas mCanvas;
+    private BatteryChartView mBatteryChartView;
+    private BatteryChartViewModel mViewModel;
+
+    @Before
+    public void setUp() {
+        final Context context = RuntimeEnvironment.application;
+        final List<Integer> levels = new ArrayList<>();
+        final List<Long> timestamps = new ArrayList<>();
+        for (int index = 0; index <= mSlotCount; index++) {
+            levels.add(100 - index * 90 / mSlotCount);
+            timestamps.add(BatteryUsageDataGenerator.START_TIMESTAMP + index * 3_600_000L);
+        }
+        mViewModel =
+                new BatteryChartViewModel(
+                        levels,
+                        timestamps,
+                        BatteryChartViewModel.AxisLabelPosition.BETWEEN_TRAPEZOIDS,
+                        new FakeLabelTextGenerator());
+        mCanvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+        mBatteryChartView = new BatteryChartView(context, /* attrs= */ null);
+        mBatteryChartView.setCompanionTextView(new TextView(context));
+        mBatteryChartView.setViewModel(mViewModel);
+        mBatteryChartView.measure(
+                View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mBatteryChartView.layout(0, 0, WIDTH, HEIGHT);
+        mBatteryChartView.draw(mCanvas);
+    }
+
+    @Test
+    public void switchSelectedSlot() {
+        MicroBenchmark.measure(
+                getName("switchSelectedSlot"),
+                () -> {
+                    for (int frame = 0; frame < FRAMES_PER_OP; frame++) {
+                        mViewModel.setSelectedIndex(frame % mSlotCount);
+                        mBatteryChartView.setViewModel(mViewModel);
+                        mBatteryChartView.draw(mCanvas);
+                    }
+                });
+    }
+
+    @Test
+    public void redrawFrame() {
+        MicroBenchmark.measure(
+                getName("redrawFrame"),
+                () -> {
+                    for (int frame = 0; frame < FRAMES_PER_OP; frame++) {
+                        mBatteryChartView.draw(mCanvas);
+                    }
+                });
+    }
+
+    private String getName(String operation) {
+        return String.format("%s[slots=%d, frames=%d]", operation, mSlotCount, FRAMES_PER_OP);
+    }
+
+    private static final class FakeLabelTextGenerator
+            implements BatteryChartViewModel.LabelTextGenerator {
+        @Override
+        public String generateText(List<Long> timestamps, int index) {
+            return index + "h";
+        }
+
+        @Override
+        public String generateFullText(List<Long> timestamps, int index) {
+            return generateText(timestamps, index);
+        }
+
+        @Override
+        public String generateContentDescription(List<Long> timestamps, int index) {
+            return generateText(timestamps, index);
+        }
+
+        @Override
+        public String generateSlotBatteryLevelText(List<Integer> levels, int index) {
+            return index + "%";
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import android.content.ContentValues;
+import android.os.BatteryManager;
+import android.os.Process;
+import android.text.format.DateUtils;
+import android.util.ArrayMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/** Generates synthetic battery usage data sets for the benchmarks. */
+final class BatteryUsageDataGenerator {
+    /** 2023-11-15 00:00:00 UTC, which is aligned to the midnight in the GMT time zone. */
+    static final long START_TIMESTAMP = 1_700_006_400_000L;
+
+    private static final String PACKAGE_NAME_PREFIX = "com.android.settings.benchmark.app";
+    // The periodic job records the battery states every two hours with some delay.
+    private static final long SNAPSHOT_INTERVAL = 2 * DateUtils.HOUR_IN_MILLIS;
+    private static final long SNAPSHOT_DELAY = 3 * DateUtils.MINUTE_IN_MILLIS;
+    // Only a part of the apps are in the foreground in each hour.
+    private static final int FOREGROUND_APPS_PER_HOUR = 20;
+
+    private BatteryUsageDataGenerator() {}
+
+    /** Gets the end timestamp of the data set with the {@code days}. */
+    static long getEndTimestamp(int days) {
+        return START_TIMESTAMP + days * DateUtils.DAY_IN_MILLIS;
+    }
+
+    /** Generates the raw battery history map recorded by the periodic job. */
+    static Map<Long, Map<String, BatteryHistEntry>> generateBatteryHistoryMap(
+            int days, int uidCount) {
+        final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap = new ArrayMap<>();
+        final long endTimestamp = getEndTimestamp(days);
+        int snapshotIndex = 0;
+        for (long timestamp = START_TIMESTAMP;
+                timestamp < endTimestamp;
+                timestamp += SNAPSHOT_INTERVAL, snapshotIndex++) {
+            final long snapshotTimestamp =
+                    snapshotIndex == 0 ? timestamp : timestamp + SNAPSHOT_DELAY;
+            final int batteryLevel = 100 - (snapshotIndex % 90);
+            final Map<String, BatteryHistEntry> snapshot = new ArrayMap<>(uidCount);
+            for (int index = 0; index < uidCount; index++) {
+                final BatteryHistEntry entry =
+                        new BatteryHistEntry(
+                                createContentValues(
+                                        index, snapshotIndex, snapshotTimestamp, batteryLevel));
+                snapshot.put(entry.getKey(), entry);
+            }
+            batteryHistoryMap.put(snapshotTimestamp, snapshot);
+        }
+        return batteryHistoryMap;
+    }
+
+    /** Generates the paired resumed and stopped app usage events in every hour. */
+    static List<AppUsageEvent> generateAppUsageEventList(int days, int uidCount) {
+        final List<AppUsageEvent> appUsageEventList = new ArrayList<>();
+        final long endTimestamp = getEndTimestamp(days);
+        int instanceId = 0;
+        int hourIndex = 0;
+        for (long timestamp = START_TIMESTAMP;
+                timestamp < endTimestamp;
+                timestamp += DateUtils.HOUR_IN_MILLIS, hourIndex++) {
+            final int foregroundApps = Math.min(uidCount, FOREGROUND_APPS_PER_HOUR);
+            final long usageDuration = DateUtils.HOUR_IN_MILLIS / foregroundApps;
+            for (int appIndex = 0; appIndex < foregroundApps; appIndex++) {
+                final int index = (hourIndex * foregroundApps + appIndex) % uidCount;
+                final long resumedTimestamp = timestamp + appIndex * usageDuration;
+                instanceId++;
+                appUsageEventList.add(
+                        createAppUsageEvent(
+                                AppUsageEventType.ACTIVITY_RESUMED,
+                                index,
+                                instanceId,
+                                resumedTimestamp));
+                appUsageEventList.add(
+                        createAppUsageEvent(
+                                AppUsageEventType.ACTIVITY_STOPPED,
+                                index,
+                                instanceId,
+                                resumedTimestamp + usageDuration - 1));
+            }
+        }
+        return appUsageEventList;
+    }
+
+    /** Gets the uid of the synthetic app with the {@code index}. */
+    static int getUid(int index) {
+        return Process.FIRST_APPLICATION_UID + index;
+    }
+
+    /** Gets the package name of the synthetic app with the {@code index}. */
+    static String getPackageName(int index) {
+        return PACKAGE_NAME_PREFIX + index;
+    }
+
+    private static ContentValues createContentValues(
+            int index, int snapshotIndex, long timestamp, int batteryLevel) {
+        final DeviceBatteryState deviceBatteryState =
+                DeviceBatteryState.newBuilder()
+                        .setBatteryLevel(batteryLevel)
+                        .setBatteryStatus(BatteryManager.BATTERY_STATUS_DISCHARGING)
+                        .setBatteryHealth(BatteryManager.BATTERY_HEALTH_GOOD)
+                        .build();
+        // The usage data are accumulated since the device boot.
+        final double consumePower = snapshotIndex * (index % 7 + 1) * 0.1;
+        final BatteryInformation batteryInformation =
+                BatteryInformation.newBuilder()
+                        .setDeviceBatteryState(deviceBatteryState)
+                        .setBootTimestamp(timestamp - START_TIMESTAMP)
+                        .setZoneId("GMT")
+                        .setAppLabel(getPackageName(index))
+                        .setTotalPower(snapshotIndex * 100)
+                        .setConsumePower(consumePower)
+                        .setForegroundUsageConsumePower(consumePower / 2)
+                        .setBackgroundUsageConsumePower(consumePower / 2)
+                        .setForegroundUsageTimeInMs(snapshotIndex * (index % 5) * 60_000L)
+                        .setBackgroundUsageTimeInMs(snapshotIndex * (index % 3) * 60_000L)
+                        .build();
+        final ContentValues values = new ContentValues();
+        values.put(BatteryHistEntry.KEY_UID, Long.valueOf(getUid(index)));
+        values.put(BatteryHistEntry.KEY_USER_ID, Long.valueOf(0));
+        values.put(BatteryHistEntry.KEY_PACKAGE_NAME, getPackageName(index));
+        values.put(BatteryHistEntry.KEY_TIMESTAMP, Long.valueOf(timestamp));
+        values.put(
+                BatteryHistEntry.KEY_CONSUMER_TYPE,
+                Integer.valueOf(ConvertUtils.CONSUMER_TYPE_UID_BATTERY));
+        values.put(
+                BatteryHistEntry.KEY_BATTERY_INFORMATION,
+                ConvertUtils.convertBatteryInformationToBytes(batteryInformation));
+        return values;
+    }
+
+    private static AppUsageEvent createAppUsageEvent(
+            AppUsageEventType type, int index, int instanceId, long timestamp) {
+        return AppUsageEvent.newBuilder()
+                .setType(type)
+                .setUid(getUid(index))
+                .setUserId(0)
+                .setPackageName(getPackageName(index))
+                .setInstanceId(instanceId)
+                .setTimestamp(timestamp)
+                .build();
+    }
+}
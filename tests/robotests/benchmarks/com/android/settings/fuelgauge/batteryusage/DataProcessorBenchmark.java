@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.isA;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryConsumer;
+import android.os.BatteryManager;
+import android.os.BatteryUsageStats;
+import android.os.UidBatteryConsumer;
+
+import com.android.settings.fuelgauge.BatteryUtils;
+import com.android.settings.testutils.FakeFeatureFactory;
+import com.android.settings.testutils.MicroBenchmark;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+
+/**
+ * Benchmarks the hot paths of {@link DataProcessor} with synthetic data sets, which are varied by
+ * the number of recorded days and the number of uids.
+ */
+@RunWith(ParameterizedRobolectricTestRunner.class)
+public class DataProcessorBenchmark {
+
+    /** Defines parameters for parameterized benchmark */
+    @ParameterizedRobolectricTestRunner.Parameters(name = "days={0}, uids={1}")
+    public static List<Object[]> params() {
+        final List<Object[]> params = new ArrayList<>();
+        for (int days : new int[] {1, 7, 14}) {
+            for (int uids : new int[] {50, 250, 1000}) {
+                params.add(new Object[] {days, uids});
+            }
+        }
+        return params;
+    }
+
+    @ParameterizedRobolectricTestRunner.Parameter(0)
+    public int mDays;
+
+    @ParameterizedRobolectricTestRunner.Parameter(1)
+    public int mUidCount;
+
+    private Context mContext;
+    private Map<Long, Map<String, BatteryHistEntry>> mBatteryHistoryMap;
+    private List<AppUsageEvent> mAppUsageEventList;
+
+    @Mock private Intent mIntent;
+    @Mock private UserIdsSeries mUserIdsSeries;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        TimeZone.setDefault(TimeZone.getTimeZone("GMT"));
+
+        mContext = spy(RuntimeEnvironment.application);
+        FakeFeatureFactory.setupForTest();
+        doReturn(true).when(mUserIdsSeries).isMainUserProfileOnly();
+        doReturn(false).when(mUserIdsSeries).isFromOtherUsers(anyLong());
+        doReturn(mIntent)
+                .when(mContext)
+                .registerReceiver(isA(BroadcastReceiver.class), isA(IntentFilter.class));
+        doReturn(100).when(mIntent).getIntExtra(eq(BatteryManager.EXTRA_SCALE), anyInt());
+        doReturn(66).when(mIntent).getIntExtra(eq(BatteryManager.EXTRA_LEVEL), anyInt());
+        doReturn(mContext).when(mContext).getApplicationContext();
+
+        DataProcessor.sTestCurrentTimeMillis = BatteryUsageDataGenerator.getEndTimestamp(mDays);
+        DataProcessor.sTestSystemAppsPackageNames = Set.of();
+        mBatteryHistoryMap =
+                BatteryUsageDataGenerator.generateBatteryHistoryMap(mDays, mUidCount);
+        mAppUsageEventList =
+                BatteryUsageDataGenerator.generateAppUsageEventList(mDays, mUidCount);
+    }
+
+    @After
+    public void tearDown() {
+        DataProcessor.sTestCurrentTimeMillis = 0;
+        DataProcessor.sTestSystemAppsPackageNames = null;
+    }
+
+    @Test
+    public void interpolateHistory() {
+        final Map<Long, Map<String, BatteryHistEntry>> processedBatteryHistoryMap =
+                MicroBenchmark.measureAndGet(
+                        getName("interpolateHistory"),
+                        () ->
+                                DataProcessor.getHistoryMapWithExpectedTimestamps(
+                                        mContext, mBatteryHistoryMap));
+
+        assertThat(processedBatteryHistoryMap).isNotEmpty();
+    }
+
+    @Test
+    public void insertHourlyUsageDiffDataPerSlot() {
+        final Map<Long, Map<String, BatteryHistEntry>> processedBatteryHistoryMap =
+                DataProcessor.getHistoryMapWithExpectedTimestamps(mContext, mBatteryHistoryMap);
+        final BatteryLevelData batteryLevelData =
+                DataProcessor.getLevelDataThroughProcessedHistoryMap(
+                        mContext, processedBatteryHistoryMap);
+        assertThat(batteryLevelData).isNotNull();
+
+        final Map<Long, BatteryDiffData> batteryDiffDataMap =
+                MicroBenchmark.measureAndGet(
+                        getName("insertHourlyUsageDiffDataPerSlot"),
+                        () ->
+                                DataProcessor.getBatteryDiffDataMap(
+                                        mContext,
+                                        mUserIdsSeries,
+                                        batteryLevelData.getHourlyBatteryLevelsPerDay(),
+                                        processedBatteryHistoryMap,
+                                        /* appUsagePeriodMap= */ null,
+                                        Set.of(),
+                                        Set.of()));
+
+        assertThat(batteryDiffDataMap).isNotEmpty();
+    }
+
+    @Test
+    public void generateAppUsagePeriodMap() {
+        final Map<Long, Map<String, BatteryHistEntry>> processedBatteryHistoryMap =
+                DataProcessor.getHistoryMapWithExpectedTimestamps(mContext, mBatteryHistoryMap);
+        final BatteryLevelData batteryLevelData =
+                DataProcessor.getLevelDataThroughProcessedHistoryMap(
+                        mContext, processedBatteryHistoryMap);
+        assertThat(batteryLevelData).isNotNull();
+
+        final Map<Integer, Map<Integer, Map<Long, Map<String, List<AppUsagePeriod>>>>>
+                appUsagePeriodMap =
+                        MicroBenchmark.measureAndGet(
+                                getName("generateAppUsagePeriodMap"),
+                                () ->
+                                        DataProcessor.generateAppUsagePeriodMap(
+                                                mContext,
+                                                batteryLevelData.getHourlyBatteryLevelsPerDay(),
+                                                new ArrayList<>(mAppUsageEventList),
+                                                new ArrayList<>()));
+
+        assertThat(appUsagePeriodMap).isNotEmpty();
+    }
+
+    @Test
+    public void getCoalescedUsageList() {
+        final BatteryUtils batteryUtils = BatteryUtils.getInstance(mContext);
+        final BatteryUsageStats batteryUsageStats = mock(BatteryUsageStats.class);
+        final List<UidBatteryConsumer> uidBatteryConsumers = new ArrayList<>();
+        for (int index = 0; index < mUidCount; index++) {
+            final UidBatteryConsumer consumer = mock(UidBatteryConsumer.class);
+            doReturn(BatteryUsageDataGenerator.getUid(index)).when(consumer).getUid();
+            doReturn((double) (index % 7 + 1)).when(consumer).getConsumedPower();
+            uidBatteryConsumers.add(consumer);
+        }
+        // The method sorts the list in place, so a copy is returned for each operation.
+        doAnswer(invocation -> new ArrayList<>(uidBatteryConsumers))
+                .when(batteryUsageStats)
+                .getUidBatteryConsumers();
+        doReturn(mock(BatteryConsumer.class))
+                .when(batteryUsageStats)
+                .getAggregateBatteryConsumer(anyInt());
+        doReturn(new ArrayList<>()).when(batteryUsageStats).getUserBatteryConsumers();
+
+        final List<BatteryEntry> batteryEntries =
+                MicroBenchmark.measureAndGet(
+                        getName("getCoalescedUsageList"),
+                        () ->
+                                DataProcessor.getCoalescedUsageList(
+                                        mContext,
+                                        batteryUtils,
+                                        batteryUsageStats,
+                                        /* loadDataInBackground= */ false));
+
+        assertThat(batteryEntries).isNotEmpty();
+    }
+
+    private String getName(String operation) {
+        return String.format("%s[days=%d, uids=%d]", operation, mDays, mUidCount);
+    }
+}
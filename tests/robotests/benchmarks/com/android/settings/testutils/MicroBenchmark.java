@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.testutils;
+
+import android.util.Log;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * A minimal host-side micro benchmark harness, which reports the throughput and the allocated
+ * bytes per operation of the measured code on the current thread. The results are logged with
+ * the {@link #TAG} tag.
+ */
+public final class MicroBenchmark {
+    public static final String TAG = "MicroBenchmark";
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURED_ITERATIONS = 10;
+    private static final long UNSUPPORTED = -1L;
+
+    /** The measured result of an operation. */
+    public static final class Result {
+        public final String mName;
+        public final long mNanosPerOp;
+        public final long mBytesPerOp;
+
+        Result(String name, long nanosPerOp, long bytesPerOp) {
+            mName = name;
+            mNanosPerOp = nanosPerOp;
+            mBytesPerOp = bytesPerOp;
+        }
+
+        /** Gets the number of operations per second. */
+        public double getOpsPerSecond() {
+            return mNanosPerOp == 0 ? 0 : 1_000_000_000d / mNanosPerOp;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    Locale.US,
+                    "%s: %.2f ops/s, %d ns/op, %d B/op",
+                    mName,
+                    getOpsPerSecond(),
+                    mNanosPerOp,
+                    mBytesPerOp);
+        }
+    }
+
+    private MicroBenchmark() {}
+
+    /** Runs the {@code operation} repeatedly and reports the measured {@link Result}. */
+    public static Result measure(String name, Runnable operation) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            operation.run();
+        }
+        final long startBytes = getAllocatedBytes();
+        final long startNanos = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            operation.run();
+        }
+        final long elapsedNanos = System.nanoTime() - startNanos;
+        final long endBytes = getAllocatedBytes();
+        final Result result =
+                new Result(
+                        name,
+                        elapsedNanos / MEASURED_ITERATIONS,
+                        startBytes == UNSUPPORTED || endBytes == UNSUPPORTED
+                                ? UNSUPPORTED
+                                : (endBytes - startBytes) / MEASURED_ITERATIONS);
+        Log.i(TAG, result.toString());
+        return result;
+    }
+
+    /**
+     * Runs the {@code operation} repeatedly, reports the measured {@link Result} and returns the
+     * output of the last run, which could be verified to make sure the expected work is measured.
+     */
+    public static <T> T measureAndGet(String name, Supplier<T> operation) {
+        final AtomicReference<T> output = new AtomicReference<>();
+        measure(name, () -> output.set(operation.get()));
+        return output.get();
+    }
+
+    private static long getAllocatedBytes() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            return UNSUPPORTED;
+        }
+        final com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threadMXBean.isThreadAllocatedMemorySupported()
+                ? threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId())
+                : UNSUPPORTED;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+
+import com.android.settings.testutils.shadow.ShadowThreadUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(shadows = ShadowThreadUtils.class)
+public class AppIconLoaderTest {
+    private static final String PACKAGE_NAME = "com.android.test";
+    private static final String OTHER_PACKAGE_NAME = "com.android.test.other";
+    private static final int UID = 10001;
+
+    private final Drawable mIcon = new ColorDrawable();
+    private final AtomicInteger mLoadCount = new AtomicInteger();
+    private final Supplier<Drawable> mIconSupplier = () -> {
+        mLoadCount.incrementAndGet();
+        return mIcon;
+    };
+
+    private QueuedExecutorService mExecutor;
+    private AppIconLoader mIconLoader;
+
+    @Before
+    public void setUp() {
+        mExecutor = new QueuedExecutorService();
+        mIconLoader = new AppIconLoader(mExecutor);
+    }
+
+    @Test
+    public void loadIcon_sameApp_shouldLoadOnceAndNotifyAllTargets() {
+        final List<Drawable> icons = new ArrayList<>();
+
+        mIconLoader.loadIcon("target1", PACKAGE_NAME, UID, mIconSupplier, icons::add);
+        mIconLoader.loadIcon("target2", PACKAGE_NAME, UID, mIconSupplier, icons::add);
+        mExecutor.runAll();
+
+        assertThat(mLoadCount.get()).isEqualTo(1);
+        assertThat(icons).containsExactly(mIcon, mIcon);
+        assertThat(mIconLoader.getPendingRequestCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void loadIcon_targetReboundToOtherApp_shouldCancelPreviousRequest() {
+        final List<Drawable> icons = new ArrayList<>();
+        final Drawable otherIcon = new ColorDrawable();
+
+        mIconLoader.loadIcon("target", PACKAGE_NAME, UID, mIconSupplier, icons::add);
+        mIconLoader.loadIcon("target", OTHER_PACKAGE_NAME, UID, () -> otherIcon, icons::add);
+        mExecutor.runAll();
+
+        assertThat(mLoadCount.get()).isEqualTo(0);
+        assertThat(icons).containsExactly(otherIcon);
+    }
+
+    @Test
+    public void cancel_requestSharedWithOtherTarget_shouldStillLoad() {
+        final List<Drawable> icons = new ArrayList<>();
+
+        mIconLoader.loadIcon("target1", PACKAGE_NAME, UID, mIconSupplier, icons::add);
+        mIconLoader.loadIcon("target2", PACKAGE_NAME, UID, mIconSupplier, icons::add);
+        mIconLoader.cancel("target1");
+        mExecutor.runAll();
+
+        assertThat(mLoadCount.get()).isEqualTo(1);
+        assertThat(icons).containsExactly(mIcon);
+    }
+
+    @Test
+    public void prefetch_thenLoadIcon_shouldReusePrefetchRequest() {
+        final List<Drawable> icons = new ArrayList<>();
+
+        mIconLoader.prefetch(PACKAGE_NAME, UID, mIconSupplier);
+        mIconLoader.loadIcon("target", PACKAGE_NAME, UID, mIconSupplier, icons::add);
+        mExecutor.runAll();
+
+        assertThat(mLoadCount.get()).isEqualTo(1);
+        assertThat(icons).containsExactly(mIcon);
+    }
+
+    @Test
+    public void prefetch_tooManyRequests_shouldDropOldestRequest() {
+        for (int i = 0; i <= AppIconLoader.MAX_PREFETCH_REQUESTS; i++) {
+            mIconLoader.prefetch(PACKAGE_NAME + i, UID, mIconSupplier);
+        }
+
+        assertThat(mIconLoader.getPendingRequestCount())
+                .isEqualTo(AppIconLoader.MAX_PREFETCH_REQUESTS);
+        mExecutor.runAll();
+        assertThat(mLoadCount.get()).isEqualTo(AppIconLoader.MAX_PREFETCH_REQUESTS);
+    }
+
+    @Test
+    public void cancelPrefetches_shouldNotLoadPrefetchedIcons() {
+        mIconLoader.prefetch(PACKAGE_NAME, UID, mIconSupplier);
+
+        mIconLoader.cancelPrefetches();
+        mExecutor.runAll();
+
+        assertThat(mLoadCount.get()).isEqualTo(0);
+        assertThat(mIconLoader.getPendingRequestCount()).isEqualTo(0);
+    }
+
+    /** An executor which runs the submitted tasks only when {@link #runAll()} is called. */
+    private static class QueuedExecutorService extends AbstractExecutorService {
+        private final List<Runnable> mTasks = new ArrayList<>();
+
+        void runAll() {
+            final List<Runnable> tasks = new ArrayList<>(mTasks);
+            mTasks.clear();
+            tasks.forEach(Runnable::run);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            mTasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return new ArrayList<>(mTasks);
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
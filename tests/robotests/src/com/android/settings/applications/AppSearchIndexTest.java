@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+import java.util.Locale;
+
+@RunWith(RobolectricTestRunner.class)
+public class AppSearchIndexTest {
+
+    private AppSearchIndex<String> mIndex;
+
+    @Before
+    public void setUp() {
+        mIndex = new AppSearchIndex<>(Locale.US);
+        mIndex.put("apricot", "Apricot", "com.example.apricot");
+        mIndex.put("banana", "Banana", "com.example.banana");
+        mIndex.put("cantaloupe", "Cantaloupe", "org.fruit.cantaloupe");
+        mIndex.put("mango", "Mango", "com.example.mango");
+    }
+
+    @Test
+    public void query_emptyQuery_returnAllItems() {
+        assertThat(mIndex.query("")).containsExactly("apricot", "banana", "cantaloupe", "mango");
+    }
+
+    @Test
+    public void query_shortQuery_returnItemsContainingIt() {
+        assertThat(mIndex.query("an")).containsExactly("banana", "cantaloupe", "mango");
+    }
+
+    @Test
+    public void query_longQuery_returnItemsContainingIt() {
+        assertThat(mIndex.query("NTALO")).containsExactly("cantaloupe");
+        assertThat(mIndex.query("anan")).containsExactly("banana");
+        assertThat(mIndex.query("anat")).isEmpty();
+    }
+
+    @Test
+    public void query_diacritics_shouldBeIgnored() {
+        mIndex.put("cafe", "Café", "com.example.cafe");
+
+        assertThat(mIndex.query("cafe")).containsExactly("cafe");
+        assertThat(mIndex.query("CAFÉ")).containsExactly("cafe");
+    }
+
+    @Test
+    public void query_packageName_onlyMatchedWithDot() {
+        assertThat(mIndex.query("example")).isEmpty();
+        assertThat(mIndex.query("com.example")).containsExactly("apricot", "banana", "mango");
+    }
+
+    @Test
+    public void put_labelChanged_shouldReindex() {
+        mIndex.put("mango", "Papaya", "com.example.mango");
+
+        assertThat(mIndex.query("mango")).isEmpty();
+        assertThat(mIndex.query("papa")).containsExactly("mango");
+        assertThat(mIndex.size()).isEqualTo(4);
+    }
+
+    @Test
+    public void remove_shouldNotMatchRemovedItem() {
+        mIndex.remove("banana");
+
+        assertThat(mIndex.query("an")).containsExactly("cantaloupe", "mango");
+    }
+
+    @Test
+    public void retainAll_shouldRemoveOtherItems() {
+        mIndex.retainAll(List.of("apricot", "mango"));
+
+        assertThat(mIndex.size()).isEqualTo(2);
+        assertThat(mIndex.query("")).containsExactly("apricot", "mango");
+    }
+
+    @Test
+    public void filter_shouldKeepItemOrder() {
+        final List<String> items = List.of("mango", "cantaloupe", "banana", "apricot");
+
+        assertThat(mIndex.filter(items, "an"))
+                .containsExactly("mango", "cantaloupe", "banana").inOrder();
+    }
+
+    @Test
+    public void normalize_turkishLocale_shouldUseLocaleCase() {
+        assertThat(AppSearchIndex.normalize("I", new Locale("tr"))).isEqualTo("ı");
+        assertThat(AppSearchIndex.normalize("I", Locale.US)).isEqualTo("i");
+    }
+}
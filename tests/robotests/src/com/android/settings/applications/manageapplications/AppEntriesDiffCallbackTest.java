@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.manageapplications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class AppEntriesDiffCallbackTest {
+
+    private Context mContext;
+    private AppEntry mEntry1;
+    private AppEntry mEntry2;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mEntry1 = createAppEntry("Apricot", 1);
+        mEntry2 = createAppEntry("Banana", 2);
+    }
+
+    @Test
+    public void areItemsTheSame_sameId_returnTrue() {
+        final List<AppEntry> oldEntries = List.of(mEntry1, mEntry2);
+        final List<AppEntry> newEntries = List.of(mEntry2);
+
+        final AppEntriesDiffCallback callback = createCallback(oldEntries, newEntries);
+
+        assertThat(callback.areItemsTheSame(1, 0)).isTrue();
+        assertThat(callback.areItemsTheSame(0, 0)).isFalse();
+    }
+
+    @Test
+    public void areContentsTheSame_entryNotChanged_returnTrue() {
+        final List<AppEntry> entries = List.of(mEntry1, mEntry2);
+
+        final AppEntriesDiffCallback callback = createCallback(entries, entries);
+
+        assertThat(callback.areContentsTheSame(0, 0)).isTrue();
+        assertThat(callback.areContentsTheSame(1, 1)).isTrue();
+    }
+
+    @Test
+    public void areContentsTheSame_entryUpdatedInPlace_returnFalse() {
+        final List<AppEntry> entries = List.of(mEntry1, mEntry2);
+        final int[] oldSignatures = AppEntriesDiffCallback.getContentSignatures(entries);
+
+        mEntry1.size = 1024;
+        final AppEntriesDiffCallback callback = new AppEntriesDiffCallback(entries, oldSignatures,
+                entries, AppEntriesDiffCallback.getContentSignatures(entries));
+
+        assertThat(callback.areContentsTheSame(0, 0)).isFalse();
+        assertThat(callback.areContentsTheSame(1, 1)).isTrue();
+    }
+
+    @Test
+    public void areContentsTheSame_extraInfoChanged_returnFalse() {
+        final List<AppEntry> entries = List.of(mEntry1);
+        mEntry1.extraInfo = Boolean.TRUE;
+        final int[] oldSignatures = AppEntriesDiffCallback.getContentSignatures(entries);
+
+        mEntry1.extraInfo = Boolean.FALSE;
+        final AppEntriesDiffCallback callback = new AppEntriesDiffCallback(entries, oldSignatures,
+                entries, AppEntriesDiffCallback.getContentSignatures(entries));
+
+        assertThat(callback.areContentsTheSame(0, 0)).isFalse();
+    }
+
+    private static AppEntriesDiffCallback createCallback(List<AppEntry> oldEntries,
+            List<AppEntry> newEntries) {
+        return new AppEntriesDiffCallback(
+                oldEntries, AppEntriesDiffCallback.getContentSignatures(oldEntries),
+                newEntries, AppEntriesDiffCallback.getContentSignatures(newEntries));
+    }
+
+    private AppEntry createAppEntry(String label, long id) {
+        final ApplicationInfo info = new ApplicationInfo();
+        info.sourceDir = "abc";
+        final AppEntry entry = new AppEntry(mContext, info, id);
+        entry.label = label;
+        return entry;
+    }
+}
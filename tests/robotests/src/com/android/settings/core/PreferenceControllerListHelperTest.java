@@ -26,6 +26,7 @@ import com.android.settings.R;
 import com.android.settings.slices.FakePreferenceController;
 import com.android.settingslib.core.AbstractPreferenceController;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -48,6 +49,11 @@ public class PreferenceControllerListHelperTest {
         mPreferenceManager = new PreferenceManager(mContext);
     }
 
+    @After
+    public void tearDown() {
+        BasePreferenceController.sGeneratedFactoriesEnabled = true;
+    }
+
     @Test
     @Config(qualifiers = "mcc999")
     public void getControllers_shouldReturnAList() {
@@ -72,6 +78,33 @@ public class PreferenceControllerListHelperTest {
         assertThat(controllers.get(0)).isInstanceOf(FakePreferenceController.class);
     }
 
+    @Test
+    public void getControllers_generatedFactories_sameAsReflection() {
+        final List<BasePreferenceController> generatedControllers =
+                PreferenceControllerListHelper.getPreferenceControllersFromXml(mContext,
+                        R.xml.display_settings);
+        BasePreferenceController.sGeneratedFactoriesEnabled = false;
+        final List<BasePreferenceController> reflectedControllers =
+                PreferenceControllerListHelper.getPreferenceControllersFromXml(mContext,
+                        R.xml.display_settings);
+
+        assertThat(generatedControllers).isNotEmpty();
+        assertThat(generatedControllers).hasSize(reflectedControllers.size());
+        for (int i = 0; i < generatedControllers.size(); i++) {
+            assertThat(generatedControllers.get(i).getClass())
+                    .isEqualTo(reflectedControllers.get(i).getClass());
+            assertThat(generatedControllers.get(i).getPreferenceKey())
+                    .isEqualTo(reflectedControllers.get(i).getPreferenceKey());
+        }
+        // The list helper only falls back to reflection when no generated instance is created.
+        BasePreferenceController.sGeneratedFactoriesEnabled = true;
+        for (BasePreferenceController controller : generatedControllers) {
+            assertThat(BasePreferenceController.createGeneratedInstance(mContext,
+                    controller.getClass().getName(), controller.getPreferenceKey(),
+                    /* isWorkProfile= */ false)).isNotNull();
+        }
+    }
+
     @Test
     @Config(qualifiers = "mcc999")
     public void areAllPreferencesUnavailable_allAvailable() {
@@ -26,17 +26,25 @@ import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_UNAVAI
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
 import android.content.Context;
+import android.content.res.Resources;
 import android.os.Bundle;
 import android.text.TextUtils;
 
 import com.android.settings.R;
 import com.android.settings.core.PreferenceXmlParserUtils.MetadataFlag;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 import org.xmlpull.v1.XmlPullParserException;
 
@@ -58,6 +66,12 @@ public class PreferenceXmlParserUtilsTest {
     @Before
     public void setUp() {
         mContext = getApplicationContext();
+        PreferenceXmlParserUtils.clearMetadataCache();
+    }
+
+    @After
+    public void tearDown() {
+        PreferenceXmlParserUtils.clearMetadataCache();
     }
 
     @Test
@@ -270,4 +284,54 @@ public class PreferenceXmlParserUtilsTest {
         assertThat(bundleWithKey2Found).isTrue();
     }
 
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void extractMetadata_sameRequest_parseOnceAndReturnCopies() throws Exception {
+        final Context context = spy(mContext);
+        final Resources resources = spy(mContext.getResources());
+        doReturn(resources).when(context).getResources();
+        final int flags = MetadataFlag.FLAG_NEED_KEY | MetadataFlag.FLAG_NEED_PREF_CONTROLLER;
+
+        final List<Bundle> metadata1 = PreferenceXmlParserUtils.extractMetadata(context,
+                R.xml.location_settings, flags);
+        metadata1.get(0).putString(METADATA_KEY, "modified_key");
+        metadata1.clear();
+        final List<Bundle> metadata2 = PreferenceXmlParserUtils.extractMetadata(context,
+                R.xml.location_settings, flags);
+
+        verify(resources).getXml(R.xml.location_settings);
+        assertThat(metadata2).isNotEmpty();
+        assertThat(metadata2.get(0).getString(METADATA_KEY)).isNotEqualTo("modified_key");
+    }
+
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void extractMetadata_differentFlags_parseAgain() throws Exception {
+        final Context context = spy(mContext);
+        final Resources resources = spy(mContext.getResources());
+        doReturn(resources).when(context).getResources();
+
+        PreferenceXmlParserUtils.extractMetadata(context, R.xml.location_settings,
+                MetadataFlag.FLAG_NEED_KEY);
+        final List<Bundle> metadata = PreferenceXmlParserUtils.extractMetadata(context,
+                R.xml.location_settings, MetadataFlag.FLAG_NEED_PREF_TITLE);
+
+        verify(resources, times(2)).getXml(R.xml.location_settings);
+        for (Bundle bundle : metadata) {
+            assertThat(bundle.getString(PreferenceXmlParserUtils.METADATA_TITLE)).isNotNull();
+        }
+    }
+
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void extractMetadata_configurationChanged_parseAgain() throws Exception {
+        final List<Bundle> metadata1 = PreferenceXmlParserUtils.extractMetadata(mContext,
+                R.xml.location_settings, MetadataFlag.FLAG_NEED_KEY);
+        RuntimeEnvironment.setQualifiers("mcc998");
+        final List<Bundle> metadata2 = PreferenceXmlParserUtils.extractMetadata(mContext,
+                R.xml.location_settings, MetadataFlag.FLAG_NEED_KEY);
+
+        assertThat(metadata1.get(0).getString(METADATA_KEY)).isEqualTo("key");
+        assertThat(metadata2.get(0).getString(METADATA_KEY)).isEqualTo("key1");
+    }
 }
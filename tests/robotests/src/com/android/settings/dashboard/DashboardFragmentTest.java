@@ -24,6 +24,8 @@ import static com.android.settingslib.drawer.TileUtils.META_DATA_PREFERENCE_SWIT
 import static com.google.common.truth.Truth.assertThat;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -53,10 +55,13 @@ import androidx.preference.SwitchPreferenceCompat;
 import androidx.test.core.app.ApplicationProvider;
 
 import com.android.internal.logging.nano.MetricsProto.MetricsEvent;
+import com.android.settings.EventLogTags;
 import com.android.settings.R;
+import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settings.slices.BlockingSlicePrefController;
 import com.android.settings.testutils.FakeFeatureFactory;
+import com.android.settings.testutils.shadow.ShadowThreadUtils;
 import com.android.settingslib.PrimarySwitchPreference;
 import com.android.settingslib.core.AbstractPreferenceController;
 import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
@@ -77,6 +82,8 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 import org.robolectric.annotation.Implementation;
 import org.robolectric.annotation.Implements;
+import org.robolectric.shadows.ShadowEventLog;
+import org.robolectric.shadows.ShadowLooper;
 import org.robolectric.util.ReflectionHelpers;
 
 import java.util.ArrayList;
@@ -84,6 +91,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @RunWith(RobolectricTestRunner.class)
 public class DashboardFragmentTest {
@@ -188,6 +196,37 @@ public class DashboardFragmentTest {
         verify(mTestFragment.mScreen, times(2)).addPreference(nullable(Preference.class));
     }
 
+    @Test
+    public void refreshDashboardTiles_pendingObserver_updateUiOnceLoaded() {
+        final LoadableDynamicDataObserver observer = setUpPendingObserver();
+        final Runnable updateRunnable = mock(Runnable.class);
+
+        mTestFragment.onCreatePreferences(new Bundle(), "rootKey");
+        verify(updateRunnable, never()).run();
+        observer.load(updateRunnable);
+        ShadowLooper.idleMainLooper();
+
+        verify(updateRunnable).run();
+        assertThat(getTileLoadEvents()).hasSize(1);
+        assertThat(getTileLoadEvents().get(0)[2]).isEqualTo(0);
+    }
+
+    @Test
+    public void refreshDashboardTiles_pendingObserverNotLoaded_logTimeout() {
+        final LoadableDynamicDataObserver observer = setUpPendingObserver();
+
+        mTestFragment.onCreatePreferences(new Bundle(), "rootKey");
+        ShadowLooper.idleMainLooper(
+                DashboardFragment.TILE_LOAD_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        observer.load(mock(Runnable.class));
+        ShadowLooper.idleMainLooper();
+
+        assertThat(getTileLoadEvents()).hasSize(1);
+        assertThat(getTileLoadEvents().get(0))
+                .isEqualTo(new Object[] {observer.getUri().toString(),
+                        (int) DashboardFragment.TILE_LOAD_TIMEOUT_MILLIS, 1});
+    }
+
     @Test
     public void displayTilesAsPreference_withGroup_shouldAddTilesIntoGroup() {
         final ProviderInfo providerInfo = new ProviderInfo();
@@ -325,6 +364,55 @@ public class DashboardFragmentTest {
         verify(mockController2).getPreferenceKey();
     }
 
+    @Test
+    @Config(shadows = ShadowThreadUtils.class)
+    public void updateState_backgroundStateUpdater_applyComputedState() {
+        final TestBackgroundStateController controller =
+                new TestBackgroundStateController(mAppContext, "key", /* isAvailable= */ true);
+        final Preference preference = new Preference(mAppContext);
+        when(mTestFragment.mScreen.findPreference("key")).thenReturn(preference);
+        mTestFragment.addPreferenceController(controller);
+
+        mTestFragment.updatePreferenceStates();
+
+        assertThat(controller.mComputeCount).isEqualTo(1);
+        assertThat(controller.mAppliedPreference).isSameInstanceAs(preference);
+        assertThat(controller.mAppliedState).isEqualTo("state1");
+    }
+
+    @Test
+    @Config(shadows = ShadowThreadUtils.class)
+    public void updateState_backgroundStateUpdaterUnavailable_notApplyState() {
+        final TestBackgroundStateController controller =
+                new TestBackgroundStateController(mAppContext, "key", /* isAvailable= */ false);
+        when(mTestFragment.mScreen.findPreference("key")).thenReturn(new Preference(mAppContext));
+        mTestFragment.addPreferenceController(controller);
+
+        mTestFragment.updatePreferenceStates();
+
+        assertThat(controller.mComputeCount).isEqualTo(0);
+        assertThat(controller.mAppliedPreference).isNull();
+    }
+
+    @Test
+    @Config(shadows = ShadowThreadUtils.class)
+    public void updateState_backgroundStateUpdaterFailed_notBlockOtherControllers() {
+        final TestBackgroundStateController failedController =
+                new TestBackgroundStateController(mAppContext, "key1", /* isAvailable= */ true);
+        failedController.mShouldFail = true;
+        final TestBackgroundStateController controller =
+                new TestBackgroundStateController(mAppContext, "key2", /* isAvailable= */ true);
+        when(mTestFragment.mScreen.findPreference("key1")).thenReturn(new Preference(mAppContext));
+        when(mTestFragment.mScreen.findPreference("key2")).thenReturn(new Preference(mAppContext));
+        mTestFragment.addPreferenceController(failedController);
+        mTestFragment.addPreferenceController(controller);
+
+        mTestFragment.updatePreferenceStates();
+
+        assertThat(failedController.mAppliedPreference).isNull();
+        assertThat(controller.mAppliedState).isEqualTo("state1");
+    }
+
     @Test
     public void onExpandButtonClick_shouldLogAdvancedButtonExpand() {
         final MetricsFeatureProvider metricsFeatureProvider
@@ -535,6 +623,40 @@ public class DashboardFragmentTest {
         }
     }
 
+    private static class TestBackgroundStateController extends BasePreferenceController
+            implements BasePreferenceController.BackgroundStateUpdater<String> {
+        private final boolean mIsAvailable;
+        private boolean mShouldFail;
+        private int mComputeCount;
+        private Preference mAppliedPreference;
+        private String mAppliedState;
+
+        TestBackgroundStateController(Context context, String key, boolean isAvailable) {
+            super(context, key);
+            mIsAvailable = isAvailable;
+        }
+
+        @Override
+        public int getAvailabilityStatus() {
+            return mIsAvailable ? AVAILABLE : UNSUPPORTED_ON_DEVICE;
+        }
+
+        @Override
+        public String computeState() {
+            if (mShouldFail) {
+                throw new IllegalStateException("Failed to compute state");
+            }
+            mComputeCount++;
+            return "state" + mComputeCount;
+        }
+
+        @Override
+        public void applyState(Preference preference, String state) {
+            mAppliedPreference = preference;
+            mAppliedState = state;
+        }
+    }
+
     private static class TestFragment extends DashboardFragment {
 
         private final PreferenceManager mPreferenceManager;
@@ -598,6 +720,44 @@ public class DashboardFragmentTest {
 
     }
 
+    private LoadableDynamicDataObserver setUpPendingObserver() {
+        final LoadableDynamicDataObserver observer = new LoadableDynamicDataObserver();
+        when(mFakeFeatureFactory.dashboardFeatureProvider
+                .getDashboardKeyForTile(any(ActivityTile.class)))
+                .thenReturn("test_key");
+        when(mFakeFeatureFactory.dashboardFeatureProvider
+                .bindPreferenceToTileAndGetObservers(any(), any(), anyBoolean(), any(),
+                        any(ActivityTile.class), any(), anyInt()))
+                .thenReturn(Arrays.asList(observer));
+        return observer;
+    }
+
+    private static List<Object[]> getTileLoadEvents() {
+        final List<Object[]> events = new ArrayList<>();
+        for (ShadowEventLog.Event event : ShadowEventLog.getEvents()) {
+            if (event.getTag() == EventLogTags.SETTINGS_DASHBOARD_TILE_LOAD) {
+                events.add((Object[]) event.getData());
+            }
+        }
+        return events;
+    }
+
+    private static class LoadableDynamicDataObserver extends DynamicDataObserver {
+
+        @Override
+        public Uri getUri() {
+            return Uri.parse("content://loadable");
+        }
+
+        @Override
+        public void onDataChanged() {
+        }
+
+        void load(Runnable updateRunnable) {
+            post(updateRunnable);
+        }
+    }
+
     private static class TestDynamicDataObserver extends DynamicDataObserver {
 
         @Override
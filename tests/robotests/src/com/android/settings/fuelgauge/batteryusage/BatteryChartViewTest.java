@@ -20,6 +20,8 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.Mockito.spy;
 
 import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
 import android.os.LocaleList;
 import android.view.View;
 
@@ -91,4 +93,76 @@ public final class BatteryChartViewTest {
         mBatteryChartView.onClick(mMockView);
         assertThat(selectedIndex[0]).isEqualTo(BatteryChartViewModel.SELECTED_INDEX_ALL);
     }
+
+    @Test
+    public void setViewModel_sameViewModel_reuseGeometry() {
+        final BatteryChartViewModel batteryChartViewModel = createViewModel();
+        mBatteryChartView.setViewModel(batteryChartViewModel);
+        final BatteryChartView.TrapezoidSlot[] trapezoidSlots = mBatteryChartView.mTrapezoidSlots;
+        mBatteryChartView.mIsGeometryDirty = false;
+
+        batteryChartViewModel.setSelectedIndex(1);
+        mBatteryChartView.setViewModel(batteryChartViewModel);
+
+        assertThat(mBatteryChartView.mTrapezoidSlots).isSameInstanceAs(trapezoidSlots);
+        assertThat(mBatteryChartView.mIsGeometryDirty).isFalse();
+    }
+
+    @Test
+    public void setViewModel_differentViewModel_rebuildGeometry() {
+        mBatteryChartView.setViewModel(createViewModel());
+        final BatteryChartView.TrapezoidSlot[] trapezoidSlots = mBatteryChartView.mTrapezoidSlots;
+        mBatteryChartView.mIsGeometryDirty = false;
+
+        mBatteryChartView.setViewModel(createViewModel());
+
+        assertThat(mBatteryChartView.mTrapezoidSlots).isNotSameInstanceAs(trapezoidSlots);
+        assertThat(mBatteryChartView.mIsGeometryDirty).isTrue();
+    }
+
+    @Test
+    public void draw_updateGeometryOnlyWhenChanged() {
+        final BatteryChartView batteryChartView =
+                new BatteryChartView(mContext, /* attrs= */ null);
+        final BatteryChartViewModel batteryChartViewModel = createViewModel();
+        final Canvas canvas = new Canvas(Bitmap.createBitmap(400, 200, Bitmap.Config.ARGB_8888));
+        batteryChartView.setViewModel(batteryChartViewModel);
+        batteryChartView.layout(0, 0, 400, 200);
+
+        batteryChartView.draw(canvas);
+
+        assertThat(batteryChartView.mIsGeometryDirty).isFalse();
+        final float[] trapezoidLefts = new float[batteryChartView.mTrapezoidSlots.length];
+        for (int i = 0; i < trapezoidLefts.length; i++) {
+            trapezoidLefts[i] = batteryChartView.mTrapezoidSlots[i].mLeft;
+            if (i > 0) {
+                assertThat(trapezoidLefts[i]).isGreaterThan(trapezoidLefts[i - 1]);
+            }
+        }
+
+        // Switching the selected slot only redraws with the precomputed geometry.
+        batteryChartViewModel.setSelectedIndex(2);
+        batteryChartView.setViewModel(batteryChartViewModel);
+        batteryChartView.draw(canvas);
+
+        assertThat(batteryChartView.mIsGeometryDirty).isFalse();
+        for (int i = 0; i < trapezoidLefts.length; i++) {
+            assertThat(batteryChartView.mTrapezoidSlots[i].mLeft).isEqualTo(trapezoidLefts[i]);
+        }
+
+        // Resizing the view rebuilds the geometry in the next frame.
+        batteryChartView.layout(0, 0, 800, 200);
+        assertThat(batteryChartView.mIsGeometryDirty).isTrue();
+        batteryChartView.draw(canvas);
+        assertThat(batteryChartView.mIsGeometryDirty).isFalse();
+        assertThat(batteryChartView.mTrapezoidSlots[1].mLeft).isGreaterThan(trapezoidLefts[1]);
+    }
+
+    private static BatteryChartViewModel createViewModel() {
+        return new BatteryChartViewModel(
+                List.of(90, 80, 70, 60),
+                List.of(0L, 0L, 0L, 0L),
+                BatteryChartViewModel.AxisLabelPosition.BETWEEN_TRAPEZOIDS,
+                null);
+    }
 }
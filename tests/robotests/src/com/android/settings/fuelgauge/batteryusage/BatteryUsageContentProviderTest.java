@@ -23,6 +23,8 @@ import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
 
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.Context;
@@ -310,8 +312,8 @@ public final class BatteryUsageContentProviderTest {
                         .setForegroundServiceUsageTimeInMs(1500)
                         .setDrainType(1)
                         .build();
-        final String expectedBatteryInformationString =
-                ConvertUtils.convertBatteryInformationToString(batteryInformation);
+        final byte[] expectedBatteryInformation =
+                ConvertUtils.convertBatteryInformationToBytes(batteryInformation);
         ContentValues values = new ContentValues();
         values.put(BatteryHistEntry.KEY_UID, Long.valueOf(101L));
         values.put(BatteryHistEntry.KEY_USER_ID, Long.valueOf(1001L));
@@ -319,7 +321,7 @@ public final class BatteryUsageContentProviderTest {
         values.put(BatteryHistEntry.KEY_TIMESTAMP, Long.valueOf(2100021L));
         values.put(BatteryHistEntry.KEY_CONSUMER_TYPE, Integer.valueOf(2));
         values.put(BatteryHistEntry.KEY_IS_FULL_CHARGE_CYCLE_START, true);
-        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION, expectedBatteryInformationString);
+        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION, expectedBatteryInformation);
 
         final Uri uri = mProvider.insert(VALID_BATTERY_STATE_CONTENT_URI, values);
 
@@ -334,7 +336,7 @@ public final class BatteryUsageContentProviderTest {
         assertThat(states.get(0).timestamp).isEqualTo(2100021L);
         assertThat(states.get(0).consumerType).isEqualTo(2);
         assertThat(states.get(0).isFullChargeCycleStart).isTrue();
-        assertThat(states.get(0).batteryInformation).isEqualTo(expectedBatteryInformationString);
+        assertThat(states.get(0).batteryInformation).isEqualTo(expectedBatteryInformation);
     }
 
     @Test
@@ -348,12 +350,12 @@ public final class BatteryUsageContentProviderTest {
                         .build();
         final BatteryInformation batteryInformation =
                 BatteryInformation.newBuilder().setDeviceBatteryState(deviceBatteryState).build();
-        final String expectedBatteryInformationString =
-                ConvertUtils.convertBatteryInformationToString(batteryInformation);
+        final byte[] expectedBatteryInformation =
+                ConvertUtils.convertBatteryInformationToBytes(batteryInformation);
         final ContentValues values = new ContentValues();
         values.put(BatteryHistEntry.KEY_PACKAGE_NAME, new String("fake_data"));
         values.put(BatteryHistEntry.KEY_TIMESTAMP, Long.valueOf(2100022L));
-        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION, expectedBatteryInformationString);
+        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION, expectedBatteryInformation);
 
         final Uri uri = mProvider.insert(VALID_BATTERY_STATE_CONTENT_URI, values);
 
@@ -364,7 +366,7 @@ public final class BatteryUsageContentProviderTest {
         assertThat(states).hasSize(1);
         assertThat(states.get(0).packageName).isEqualTo("fake_data");
         assertThat(states.get(0).timestamp).isEqualTo(2100022L);
-        assertThat(states.get(0).batteryInformation).isEqualTo(expectedBatteryInformationString);
+        assertThat(states.get(0).batteryInformation).isEqualTo(expectedBatteryInformation);
     }
 
     @Test
@@ -467,6 +469,70 @@ public final class BatteryUsageContentProviderTest {
         assertThat(cursor2.getCount()).isEqualTo(0);
     }
 
+    @Test
+    public void bulkInsert_batteryEvents_insertsAllRows() {
+        mProvider.onCreate();
+        final ContentValues[] valuesArray = new ContentValues[3];
+        for (int index = 0; index < valuesArray.length; index++) {
+            valuesArray[index] = new ContentValues();
+            valuesArray[index].put(BatteryEventEntity.KEY_TIMESTAMP, 10001L + index);
+            valuesArray[index].put(
+                    BatteryEventEntity.KEY_BATTERY_EVENT_TYPE,
+                    BatteryEventType.EVEN_HOUR.getNumber());
+            valuesArray[index].put(BatteryEventEntity.KEY_BATTERY_LEVEL, 66 - index);
+        }
+
+        final int size = mProvider.bulkInsert(DatabaseUtils.BATTERY_EVENT_URI, valuesArray);
+
+        assertThat(size).isEqualTo(3);
+        final List<BatteryEventEntity> entities =
+                BatteryStateDatabase.getInstance(mContext).batteryEventDao().getAll();
+        assertThat(entities).hasSize(3);
+        assertThat(entities.get(0).timestamp).isEqualTo(10003L);
+        assertThat(entities.get(0).batteryLevel).isEqualTo(64);
+        assertThat(entities.get(2).timestamp).isEqualTo(10001L);
+        assertThat(entities.get(2).batteryLevel).isEqualTo(66);
+    }
+
+    @Test
+    public void bulkInsert_incorrectContentUri_throwsIllegalArgumentException() {
+        mProvider.onCreate();
+        final Uri uri =
+                new Uri.Builder()
+                        .scheme(ContentResolver.SCHEME_CONTENT)
+                        .authority(DatabaseUtils.AUTHORITY)
+                        .appendPath(DatabaseUtils.BATTERY_STATE_TABLE + "/0")
+                        .build();
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> mProvider.bulkInsert(uri, new ContentValues[] {new ContentValues()}));
+    }
+
+    @Test
+    public void applyBatch_batteryUsageSlots_insertsAllRows() throws Exception {
+        mProvider.onCreate();
+        final ArrayList<ContentProviderOperation> operations = new ArrayList<>();
+        for (long timestamp : new long[] {10001L, 10002L}) {
+            final ContentValues values = new ContentValues();
+            values.put(BatteryUsageSlotEntity.KEY_TIMESTAMP, timestamp);
+            values.put(BatteryUsageSlotEntity.KEY_BATTERY_USAGE_SLOT, "TEST_STRING");
+            operations.add(
+                    ContentProviderOperation.newInsert(DatabaseUtils.BATTERY_USAGE_SLOT_URI)
+                            .withValues(values)
+                            .build());
+        }
+
+        final ContentProviderResult[] results = mProvider.applyBatch(operations);
+
+        assertThat(results).hasLength(2);
+        final List<BatteryUsageSlotEntity> entities =
+                BatteryStateDatabase.getInstance(mContext).batteryUsageSlotDao().getAll();
+        assertThat(entities).hasSize(2);
+        assertThat(entities.get(0).timestamp).isEqualTo(10001L);
+        assertThat(entities.get(1).timestamp).isEqualTo(10002L);
+    }
+
     @Test
     public void delete_throwsUnsupportedOperationException() {
         assertThrows(
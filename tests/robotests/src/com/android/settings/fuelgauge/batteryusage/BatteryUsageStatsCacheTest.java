@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.os.BatteryStatsManager;
+import android.os.BatteryUsageStats;
+import android.os.BatteryUsageStatsQuery;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public final class BatteryUsageStatsCacheTest {
+    private Context mContext;
+    @Mock private BatteryStatsManager mBatteryStatsManager;
+    @Mock private BatteryUsageStats mBatteryUsageStats1;
+    @Mock private BatteryUsageStats mBatteryUsageStats2;
+    @Captor private ArgumentCaptor<BatteryUsageStatsQuery> mUsageStatsQueryCaptor;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = spy(RuntimeEnvironment.application);
+        doReturn(mBatteryStatsManager)
+                .when(mContext)
+                .getSystemService(Context.BATTERY_STATS_SERVICE);
+        when(mBatteryStatsManager.getBatteryUsageStats(any(BatteryUsageStatsQuery.class)))
+                .thenReturn(mBatteryUsageStats1, mBatteryUsageStats2);
+    }
+
+    @After
+    public void tearDown() {
+        BatteryUsageStatsCache.clear();
+    }
+
+    @Test
+    public void acquire_withinMaxAge_shareSameSnapshot() {
+        final BatteryUsageStats stats1 =
+                BatteryUsageStatsCache.acquire(mContext, /* includeBatteryHistory= */ true);
+        final BatteryUsageStats stats2 =
+                BatteryUsageStatsCache.acquire(mContext, /* includeBatteryHistory= */ true);
+
+        assertThat(stats1).isSameInstanceAs(mBatteryUsageStats1);
+        assertThat(stats2).isSameInstanceAs(mBatteryUsageStats1);
+        verify(mBatteryStatsManager, times(1)).getBatteryUsageStats(any());
+    }
+
+    @Test
+    public void acquire_overMaxAge_queryNewSnapshot() {
+        final BatteryUsageStats stats1 =
+                BatteryUsageStatsCache.acquire(mContext, /* includeBatteryHistory= */ true);
+        ShadowSystemClock.advanceBy(
+                Duration.ofMillis(BatteryUsageStatsCache.DEFAULT_MAX_AGE_MS + 1));
+
+        final BatteryUsageStats stats2 =
+                BatteryUsageStatsCache.acquire(mContext, /* includeBatteryHistory= */ true);
+
+        assertThat(stats1).isSameInstanceAs(mBatteryUsageStats1);
+        assertThat(stats2).isSameInstanceAs(mBatteryUsageStats2);
+        verify(mBatteryStatsManager, times(2)).getBatteryUsageStats(any());
+    }
+
+    @Test
+    public void acquire_differentHistoryOption_queryDifferentSnapshots() {
+        BatteryUsageStatsCache.acquire(mContext, /* includeBatteryHistory= */ true);
+        BatteryUsageStatsCache.acquire(mContext, /* includeBatteryHistory= */ false);
+
+        verify(mBatteryStatsManager, times(2))
+                .getBatteryUsageStats(mUsageStatsQueryCaptor.capture());
+        final int historyFlag = BatteryUsageStatsQuery.FLAG_BATTERY_USAGE_STATS_INCLUDE_HISTORY;
+        assertThat(mUsageStatsQueryCaptor.getAllValues().get(0).getFlags() & historyFlag)
+                .isNotEqualTo(0);
+        assertThat(mUsageStatsQueryCaptor.getAllValues().get(1).getFlags() & historyFlag)
+                .isEqualTo(0);
+    }
+
+    @Test
+    public void release_latestSnapshot_notClose() throws Exception {
+        final BatteryUsageStats stats =
+                BatteryUsageStatsCache.acquire(mContext, /* includeBatteryHistory= */ true);
+
+        BatteryUsageStatsCache.release(stats);
+
+        verify(mBatteryUsageStats1, never()).close();
+    }
+
+    @Test
+    public void release_replacedSnapshot_closeAfterAllReleased() throws Exception {
+        final BatteryUsageStats stats1 =
+                BatteryUsageStatsCache.acquire(mContext, /* includeBatteryHistory= */ true);
+        final BatteryUsageStats stats2 =
+                BatteryUsageStatsCache.acquire(mContext, /* includeBatteryHistory= */ true);
+        ShadowSystemClock.advanceBy(
+                Duration.ofMillis(BatteryUsageStatsCache.DEFAULT_MAX_AGE_MS + 1));
+        BatteryUsageStatsCache.acquire(mContext, /* includeBatteryHistory= */ true);
+
+        BatteryUsageStatsCache.release(stats1);
+        verify(mBatteryUsageStats1, never()).close();
+        BatteryUsageStatsCache.release(stats2);
+        verify(mBatteryUsageStats1).close();
+    }
+
+    @Test
+    public void acquire_queryFailed_returnDefaultAndNotCache() {
+        doThrow(new IllegalStateException())
+                .doReturn(mBatteryUsageStats1)
+                .when(mBatteryStatsManager)
+                .getBatteryUsageStats(any(BatteryUsageStatsQuery.class));
+
+        final BatteryUsageStats stats1 =
+                BatteryUsageStatsCache.acquire(mContext, /* includeBatteryHistory= */ true);
+        final BatteryUsageStats stats2 =
+                BatteryUsageStatsCache.acquire(mContext, /* includeBatteryHistory= */ true);
+
+        assertThat(stats1).isNotNull();
+        assertThat(stats1).isNotSameInstanceAs(mBatteryUsageStats1);
+        assertThat(stats2).isSameInstanceAs(mBatteryUsageStats1);
+    }
+
+    @Test
+    public void acquire_concurrentRequests_coalesceIntoOneQuery() throws Exception {
+        final CountDownLatch queryStarted = new CountDownLatch(1);
+        final CountDownLatch queryBlocked = new CountDownLatch(1);
+        doAnswer(
+                        invocation -> {
+                            queryStarted.countDown();
+                            queryBlocked.await(5, TimeUnit.SECONDS);
+                            return mBatteryUsageStats1;
+                        })
+                .when(mBatteryStatsManager)
+                .getBatteryUsageStats(any(BatteryUsageStatsQuery.class));
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            final Future<BatteryUsageStats> future1 =
+                    executor.submit(
+                            () ->
+                                    BatteryUsageStatsCache.acquire(
+                                            mContext, /* includeBatteryHistory= */ true));
+            queryStarted.await(5, TimeUnit.SECONDS);
+            final Future<BatteryUsageStats> future2 =
+                    executor.submit(
+                            () ->
+                                    BatteryUsageStatsCache.acquire(
+                                            mContext, /* includeBatteryHistory= */ true));
+            queryBlocked.countDown();
+
+            assertThat(future1.get(5, TimeUnit.SECONDS)).isSameInstanceAs(mBatteryUsageStats1);
+            assertThat(future2.get(5, TimeUnit.SECONDS)).isSameInstanceAs(mBatteryUsageStats1);
+            verify(mBatteryStatsManager, times(1)).getBatteryUsageStats(any());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
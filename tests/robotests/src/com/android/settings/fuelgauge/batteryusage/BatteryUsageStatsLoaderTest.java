@@ -17,8 +17,12 @@ package com.android.settings.fuelgauge.batteryusage;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.content.Context;
@@ -26,6 +30,7 @@ import android.os.BatteryStatsManager;
 import android.os.BatteryUsageStats;
 import android.os.BatteryUsageStatsQuery;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -35,12 +40,16 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import java.time.Duration;
 
 @RunWith(RobolectricTestRunner.class)
 public class BatteryUsageStatsLoaderTest {
     private Context mContext;
     @Mock private BatteryStatsManager mBatteryStatsManager;
     @Mock private BatteryUsageStats mBatteryUsageStats;
+    @Mock private BatteryUsageStats mNewBatteryUsageStats;
     @Captor private ArgumentCaptor<BatteryUsageStatsQuery> mUsageStatsQueryCaptor;
 
     @Before
@@ -52,6 +61,11 @@ public class BatteryUsageStatsLoaderTest {
                 .getSystemService(Context.BATTERY_STATS_SERVICE);
     }
 
+    @After
+    public void tearDown() {
+        BatteryUsageStatsCache.clear();
+    }
+
     @Test
     public void testLoadInBackground_loadWithoutHistory() {
         BatteryUsageStatsLoader loader =
@@ -81,4 +95,34 @@ public class BatteryUsageStatsLoaderTest {
         assertThat(queryFlags & BatteryUsageStatsQuery.FLAG_BATTERY_USAGE_STATS_INCLUDE_HISTORY)
                 .isNotEqualTo(0);
     }
+
+    @Test
+    public void restartLoader_sharedSnapshot_releaseToZeroOnce() throws Exception {
+        when(mBatteryStatsManager.getBatteryUsageStats(any(BatteryUsageStatsQuery.class)))
+                .thenReturn(mBatteryUsageStats, mNewBatteryUsageStats);
+        final BatteryUsageStatsLoader loader =
+                new BatteryUsageStatsLoader(mContext, /* includeBatteryHistory */ false);
+        loader.deliverResult(loader.loadInBackground());
+        // Reloads within the max age, which gets the same shared snapshot.
+        loader.deliverResult(loader.loadInBackground());
+        assertThat(BatteryUsageStatsCache.getRefCount(mBatteryUsageStats)).isEqualTo(1);
+
+        // Restarts the loader, the new loader gets the same snapshot before the old one is reset.
+        final BatteryUsageStatsLoader newLoader =
+                new BatteryUsageStatsLoader(mContext, /* includeBatteryHistory */ false);
+        newLoader.deliverResult(newLoader.loadInBackground());
+        loader.reset();
+        assertThat(BatteryUsageStatsCache.getRefCount(mBatteryUsageStats)).isEqualTo(1);
+        verify(mBatteryUsageStats, never()).close();
+
+        // Loads a newer snapshot, which discards the shared one.
+        ShadowSystemClock.advanceBy(
+                Duration.ofMillis(BatteryUsageStatsCache.DEFAULT_MAX_AGE_MS + 1));
+        newLoader.deliverResult(newLoader.loadInBackground());
+        newLoader.reset();
+
+        assertThat(BatteryUsageStatsCache.getRefCount(mBatteryUsageStats)).isEqualTo(0);
+        verify(mBatteryUsageStats, times(1)).close();
+        verify(mNewBatteryUsageStats, never()).close();
+    }
 }
@@ -39,15 +39,21 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.content.pm.UserInfo;
+import android.database.Cursor;
+import android.database.MatrixCursor;
 import android.os.BatteryConsumer;
 import android.os.BatteryManager;
+import android.os.BatteryStatsManager;
 import android.os.BatteryUsageStats;
+import android.os.BatteryUsageStatsQuery;
 import android.os.Parcel;
 import android.os.RemoteException;
 import android.os.UserManager;
 import android.util.ArrayMap;
 
 import com.android.settings.fuelgauge.PowerUsageFeatureProvider;
+import com.android.settings.fuelgauge.batteryusage.db.BatteryEventEntity;
+import com.android.settings.fuelgauge.batteryusage.db.BatteryUsageSlotEntity;
 import com.android.settings.testutils.FakeFeatureFactory;
 
 import org.junit.Before;
@@ -67,6 +73,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.function.Supplier;
 
 @RunWith(RobolectricTestRunner.class)
 public final class DataProcessorTest {
@@ -79,6 +86,7 @@ public final class DataProcessorTest {
 
     @Mock private Intent mIntent;
     @Mock private BatteryUsageStats mBatteryUsageStats;
+    @Mock private BatteryStatsManager mBatteryStatsManager;
     @Mock private UserManager mUserManager;
     @Mock private UserIdsSeries mUserIdsSeries;
     @Mock private IUsageStatsManager mUsageStatsManager;
@@ -855,6 +863,152 @@ public final class DataProcessorTest {
         assertThat(results).isEqualTo(new long[] {40L, 0L});
     }
 
+    @Test
+    public void getBatteryUsageDataIncrementally_emptyDatabase_returnNull() {
+        DatabaseUtils.sFakeSupplier = () -> null;
+
+        assertThat(DataProcessor.getBatteryUsageDataIncrementally(mContext, mUserIdsSeries))
+                .isNull();
+        DatabaseUtils.sFakeSupplier = null;
+    }
+
+    @Test
+    public void getBatteryUsageDataIncrementally_notMainUserProfileOnly_returnNull() {
+        doReturn(false).when(mUserIdsSeries).isMainUserProfileOnly();
+        DatabaseUtils.sFakeSupplier = () -> null;
+
+        assertThat(DataProcessor.getBatteryUsageDataIncrementally(mContext, mUserIdsSeries))
+                .isNull();
+        DatabaseUtils.sFakeSupplier = null;
+    }
+
+    @Test
+    public void getBatteryUsageDataIncrementally_persistedSlots_mergeWithLatestHistory() {
+        final int currentUserId = mContext.getUserId();
+        final long[] timestamps =
+                new long[] {
+                    1641031200000L, // 2022-01-01 18:00:00
+                    1641038400000L, // 2022-01-01 20:00:00
+                    1641042000000L, // 2022-01-01 21:00:00
+                    1641045600000L, // 2022-01-01 22:00:00
+                    1641047400000L, // 2022-01-01 22:30:00
+                };
+        DataProcessor.sTestCurrentTimeMillis = timestamps[4];
+        doReturn(mBatteryStatsManager)
+                .when(mContext)
+                .getSystemService(Context.BATTERY_STATS_SERVICE);
+        doReturn(mBatteryUsageStats)
+                .when(mBatteryStatsManager)
+                .getBatteryUsageStats(any(BatteryUsageStatsQuery.class));
+        // The last full charge time.
+        final MatrixCursor lastFullChargeCursor =
+                new MatrixCursor(new String[] {BatteryEventEntity.KEY_TIMESTAMP});
+        lastFullChargeCursor.addRow(new Object[] {timestamps[0]});
+        // The battery level records of the persisted slot, sorted in descending order.
+        final MatrixCursor batteryEventCursor =
+                new MatrixCursor(
+                        new String[] {
+                            BatteryEventEntity.KEY_TIMESTAMP,
+                            BatteryEventEntity.KEY_BATTERY_EVENT_TYPE,
+                            BatteryEventEntity.KEY_BATTERY_LEVEL
+                        });
+        batteryEventCursor.addRow(
+                new Object[] {timestamps[1], BatteryEventType.EVEN_HOUR.getNumber(), 90});
+        batteryEventCursor.addRow(
+                new Object[] {timestamps[0], BatteryEventType.FULL_CHARGED.getNumber(), 100});
+        // The persisted slot from 18:00 to 20:00.
+        final BatteryUsageSlot batteryUsageSlot =
+                BatteryUsageSlot.newBuilder()
+                        .setStartTimestamp(timestamps[0])
+                        .setEndTimestamp(timestamps[1])
+                        .setStartBatteryLevel(100)
+                        .setEndBatteryLevel(90)
+                        .addAppUsage(
+                                BatteryUsageDiff.newBuilder()
+                                        .setUid(1L)
+                                        .setUserId(currentUserId)
+                                        .setPackageName("package1")
+                                        .setKey("1")
+                                        .setConsumerType(ConvertUtils.CONSUMER_TYPE_UID_BATTERY)
+                                        .setConsumePower(10.0)
+                                        .setForegroundUsageTime(20L)
+                                        .build())
+                        .build();
+        final MatrixCursor batteryUsageSlotCursor =
+                new MatrixCursor(new String[] {BatteryUsageSlotEntity.KEY_BATTERY_USAGE_SLOT});
+        batteryUsageSlotCursor.addRow(
+                new Object[] {
+                    ConvertUtils.convertBatteryUsageSlotToContentValues(batteryUsageSlot)
+                            .getAsString(BatteryUsageSlotEntity.KEY_BATTERY_USAGE_SLOT)
+                });
+        // The latest battery state no later than the latest persisted slot.
+        final MatrixCursor latestTimestampCursor =
+                new MatrixCursor(new String[] {BatteryHistEntry.KEY_TIMESTAMP});
+        latestTimestampCursor.addRow(new Object[] {timestamps[1]});
+        // The battery history after the persisted slot.
+        final MatrixCursor batteryStateCursor =
+                new MatrixCursor(
+                        new String[] {
+                            BatteryHistEntry.KEY_UID,
+                            BatteryHistEntry.KEY_USER_ID,
+                            BatteryHistEntry.KEY_PACKAGE_NAME,
+                            BatteryHistEntry.KEY_TIMESTAMP,
+                            BatteryHistEntry.KEY_CONSUMER_TYPE,
+                            BatteryHistEntry.KEY_BATTERY_INFORMATION
+                        });
+        addBatteryStateRow(batteryStateCursor, currentUserId, timestamps[1], 90, 0.0, 0L);
+        addBatteryStateRow(batteryStateCursor, currentUserId, timestamps[2], 85, 5.0, 10L);
+        addBatteryStateRow(batteryStateCursor, currentUserId, timestamps[3], 80, 10.0, 20L);
+        final List<Cursor> cursors =
+                List.of(
+                        lastFullChargeCursor,
+                        batteryEventCursor,
+                        batteryUsageSlotCursor,
+                        latestTimestampCursor,
+                        batteryStateCursor);
+        DatabaseUtils.sFakeSupplier =
+                new Supplier<>() {
+                    private int mTimes = 0;
+
+                    @Override
+                    public Cursor get() {
+                        return mTimes < cursors.size() ? cursors.get(mTimes++) : null;
+                    }
+                };
+
+        final Map<Integer, Map<Integer, BatteryDiffData>> resultMap =
+                DataProcessor.getBatteryUsageDataIncrementally(mContext, mUserIdsSeries);
+
+        assertThat(resultMap).isNotNull();
+        // The slot from 18:00 to 20:00 is loaded from the persisted slot.
+        BatteryDiffData resultDiffData = resultMap.get(0).get(0);
+        assertThat(resultDiffData.getStartTimestamp()).isEqualTo(timestamps[0]);
+        assertThat(resultDiffData.getAppDiffEntryList()).hasSize(1);
+        assertThat(resultDiffData.getAppDiffEntryList().get(0).getPackageName())
+                .isEqualTo("package1");
+        assertThat(resultDiffData.getAppDiffEntryList().get(0).mConsumePower).isEqualTo(10.0);
+        // The slot from 20:00 to 22:00 is computed from the latest battery history.
+        resultDiffData = resultMap.get(0).get(1);
+        assertThat(resultDiffData.getStartTimestamp()).isEqualTo(timestamps[1]);
+        assertThat(resultDiffData.getAppDiffEntryList()).hasSize(1);
+        assertThat(resultDiffData.getAppDiffEntryList().get(0).getPackageName())
+                .isEqualTo("package2");
+        assertThat(resultDiffData.getAppDiffEntryList().get(0).mConsumePower).isEqualTo(10.0);
+        // The slot from 22:00 to now is computed from the latest battery history too.
+        assertThat(resultMap.get(0).get(2).getStartTimestamp()).isEqualTo(timestamps[3]);
+        assertThat(resultMap.get(0)).doesNotContainKey(3);
+        // The daily usage data accumulates both of them.
+        resultDiffData = resultMap.get(0).get(DataProcessor.SELECTED_INDEX_ALL);
+        assertThat(
+                        resultDiffData.getAppDiffEntryList().stream()
+                                .map(BatteryDiffEntry::getPackageName)
+                                .toList())
+                .containsExactly("package1", "package2");
+        DatabaseUtils.sFakeSupplier = null;
+        DataProcessor.sTestCurrentTimeMillis = 0;
+        BatteryUsageStatsCache.clear();
+    }
+
     @Test
     public void getBatteryDiffDataMap_emptyHistoryMap_returnEmpty() {
         final List<BatteryLevelData.PeriodBatteryLevelData> hourlyBatteryLevelsPerDay =
@@ -971,6 +1125,33 @@ public final class DataProcessorTest {
         assertThat(batteryDiffData.getEndTimestamp()).isEqualTo(batteryHistoryKeys[2]);
     }
 
+    @Test
+    public void invokeAllInOrder_parallelProcessing_returnResultsInTaskOrder() {
+        final List<Supplier<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            final int value = i;
+            tasks.add(() -> value);
+        }
+
+        final List<Integer> results = DataProcessor.invokeAllInOrder(tasks);
+
+        assertThat(results).hasSize(50);
+        for (int i = 0; i < 50; i++) {
+            assertThat(results.get(i)).isEqualTo(i);
+        }
+    }
+
+    @Test
+    public void invokeAllInOrder_parallelProcessingDisabled_returnSameResults() {
+        final List<Supplier<Integer>> tasks = List.of(() -> 2, () -> 1, () -> 3);
+        DataProcessor.sParallelProcessingEnabled = false;
+
+        final List<Integer> results = DataProcessor.invokeAllInOrder(tasks);
+
+        assertThat(results).containsExactly(2, 1, 3).inOrder();
+        DataProcessor.sParallelProcessingEnabled = true;
+    }
+
     @Test
     public void generateBatteryUsageMap_returnsExpectedResult() {
         final long[] batteryHistoryKeys =
@@ -2432,6 +2613,34 @@ public final class DataProcessorTest {
         return values;
     }
 
+    private static void addBatteryStateRow(
+            final MatrixCursor cursor,
+            final long userId,
+            final long timestamp,
+            final int batteryLevel,
+            final double consumePower,
+            final long foregroundUsageTimeInMs) {
+        final BatteryInformation batteryInformation =
+                BatteryInformation.newBuilder()
+                        .setDeviceBatteryState(
+                                DeviceBatteryState.newBuilder()
+                                        .setBatteryLevel(batteryLevel)
+                                        .build())
+                        .setAppLabel("label2")
+                        .setConsumePower(consumePower)
+                        .setForegroundUsageTimeInMs(foregroundUsageTimeInMs)
+                        .build();
+        cursor.addRow(
+                new Object[] {
+                    /* uid= */ 2L,
+                    userId,
+                    "package2",
+                    timestamp,
+                    ConvertUtils.CONSUMER_TYPE_UID_BATTERY,
+                    ConvertUtils.convertBatteryInformationToBytes(batteryInformation)
+                });
+    }
+
     private static BatteryHistEntry createBatteryHistEntry(
             final String packageName,
             final String appLabel,
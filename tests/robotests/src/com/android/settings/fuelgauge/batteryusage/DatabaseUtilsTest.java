@@ -429,6 +429,34 @@ public final class DatabaseUtilsTest {
         assertThat(batteryMap.get("4").mPackageName).isEqualTo("app name4");
     }
 
+    @Test
+    public void getHistoryMap_unsortedCursorContent_returnExpectedMap() {
+        final Long timestamp1 = Long.valueOf(1001L);
+        final Long timestamp2 = Long.valueOf(1002L);
+        final MatrixCursor cursor = getMatrixCursor();
+        // Adds fake data into the cursor with interleaved timestamps.
+        cursor.addRow(
+                new Object[] {
+                    "app name1", timestamp1, 1, ConvertUtils.CONSUMER_TYPE_UID_BATTERY, true
+                });
+        cursor.addRow(
+                new Object[] {
+                    "app name2", timestamp2, 2, ConvertUtils.CONSUMER_TYPE_UID_BATTERY, false
+                });
+        cursor.addRow(
+                new Object[] {
+                    "app name3", timestamp1, 3, ConvertUtils.CONSUMER_TYPE_UID_BATTERY, true
+                });
+        DatabaseUtils.sFakeSupplier = () -> cursor;
+
+        final Map<Long, Map<String, BatteryHistEntry>> batteryHistMap =
+                DatabaseUtils.getHistoryMapSinceQueryTimestamp(mContext, timestamp1);
+
+        assertThat(batteryHistMap).hasSize(2);
+        assertThat(batteryHistMap.get(timestamp1).keySet()).containsExactly("1", "3");
+        assertThat(batteryHistMap.get(timestamp2).keySet()).containsExactly("2");
+    }
+
     @Test
     public void getHistoryMap_withWorkProfile_returnExpectedMap()
             throws PackageManager.NameNotFoundException {
@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage.db;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.BatteryManager;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settings.fuelgauge.batteryusage.BatteryInformation;
+import com.android.settings.fuelgauge.batteryusage.BatteryUsageDiff;
+import com.android.settings.fuelgauge.batteryusage.BatteryUsageSlot;
+import com.android.settings.fuelgauge.batteryusage.ConvertUtils;
+import com.android.settings.fuelgauge.batteryusage.DeviceBatteryState;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for the migrations of {@link BatteryStateDatabase}.
+ *
+ * <p>The database is created with the schema of version 3 and populated, then opened by Room
+ * without the destructive fallback, so Room runs all migrations and validates the migrated schema
+ * against the entities of the latest version.
+ */
+@RunWith(RobolectricTestRunner.class)
+public final class BatteryStateDatabaseMigrationTest {
+    private static final String TEST_DB_NAME = "battery-usage-db-migration-test";
+    private static final long TIMESTAMP = 1_700_006_400_000L;
+    private static final String PACKAGE_NAME = "com.android.settings";
+
+    private static final String[] CREATE_TABLES_VERSION_3 = {
+        "CREATE TABLE IF NOT EXISTS `AppUsageEventEntity` ("
+                + "`mId` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL,"
+                + " `uid` INTEGER NOT NULL, `userId` INTEGER NOT NULL,"
+                + " `timestamp` INTEGER NOT NULL, `appUsageEventType` INTEGER NOT NULL,"
+                + " `packageName` TEXT, `instanceId` INTEGER NOT NULL,"
+                + " `taskRootPackageName` TEXT)",
+        "CREATE TABLE IF NOT EXISTS `BatteryEventEntity` ("
+                + "`mId` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL,"
+                + " `timestamp` INTEGER NOT NULL, `batteryEventType` INTEGER NOT NULL,"
+                + " `batteryLevel` INTEGER NOT NULL)",
+        "CREATE TABLE IF NOT EXISTS `BatteryState` ("
+                + "`mId` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL,"
+                + " `uid` INTEGER NOT NULL, `userId` INTEGER NOT NULL, `packageName` TEXT,"
+                + " `timestamp` INTEGER NOT NULL, `consumerType` INTEGER NOT NULL,"
+                + " `isFullChargeCycleStart` INTEGER NOT NULL, `batteryInformation` TEXT,"
+                + " `batteryInformationDebug` TEXT)",
+        "CREATE TABLE IF NOT EXISTS `BatteryUsageSlotEntity` ("
+                + "`mId` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL,"
+                + " `timestamp` INTEGER NOT NULL, `batteryUsageSlot` TEXT)",
+        "CREATE TABLE IF NOT EXISTS `BatteryReattributeEntity` ("
+                + "`timestampStart` INTEGER NOT NULL, `timestampEnd` INTEGER NOT NULL,"
+                + " `reattributeData` TEXT NOT NULL, PRIMARY KEY(`timestampStart`))",
+    };
+
+    private Context mContext;
+    private BatteryStateDatabase mDatabase;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mContext.deleteDatabase(TEST_DB_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        if (mDatabase != null) {
+            mDatabase.close();
+        }
+        mContext.deleteDatabase(TEST_DB_NAME);
+    }
+
+    @Test
+    public void migrate_fromVersion3_keepBatteryStatesAsBlob() {
+        final BatteryInformation batteryInformation1 = createBatteryInformation(45, 3.5);
+        final BatteryInformation batteryInformation2 = createBatteryInformation(44, 7.25);
+        final SQLiteDatabase databaseVersion3 = createDatabaseVersion3();
+        insertBatteryState(
+                databaseVersion3,
+                TIMESTAMP,
+                ConvertUtils.convertBatteryInformationToString(batteryInformation1));
+        insertBatteryState(
+                databaseVersion3,
+                TIMESTAMP + 1,
+                ConvertUtils.convertBatteryInformationToString(batteryInformation2));
+        insertBatteryState(databaseVersion3, TIMESTAMP + 2, /* batteryInformation= */ null);
+        databaseVersion3.close();
+
+        final SupportSQLiteDatabase database = openAndMigrateDatabase();
+
+        assertThat(database.getVersion()).isEqualTo(5);
+        final List<BatteryInformation> batteryInformationList = new ArrayList<>();
+        try (Cursor cursor = mDatabase.batteryStateDao().getBatteryStatesAfter(TIMESTAMP)) {
+            final int columnIndex = cursor.getColumnIndexOrThrow("batteryInformation");
+            while (cursor.moveToNext()) {
+                assertThat(cursor.getString(cursor.getColumnIndexOrThrow("packageName")))
+                        .isEqualTo(PACKAGE_NAME);
+                if (cursor.isNull(columnIndex)) {
+                    batteryInformationList.add(null);
+                    continue;
+                }
+                assertThat(cursor.getType(columnIndex)).isEqualTo(Cursor.FIELD_TYPE_BLOB);
+                batteryInformationList.add(
+                        ConvertUtils.getBatteryInformation(cursor, "batteryInformation"));
+            }
+        }
+        assertThat(batteryInformationList)
+                .containsExactly(batteryInformation1, batteryInformation2, null)
+                .inOrder();
+    }
+
+    @Test
+    public void migrate_fromVersion3_keepOtherTables() {
+        final BatteryUsageSlot batteryUsageSlot =
+                BatteryUsageSlot.newBuilder()
+                        .setStartTimestamp(TIMESTAMP)
+                        .setEndTimestamp(TIMESTAMP + 1000L)
+                        .setStartBatteryLevel(100)
+                        .setEndBatteryLevel(90)
+                        .addAppUsage(
+                                BatteryUsageDiff.newBuilder()
+                                        .setUid(1001L)
+                                        .setPackageName(PACKAGE_NAME)
+                                        .setConsumePower(3.5)
+                                        .build())
+                        .build();
+        final SQLiteDatabase databaseVersion3 = createDatabaseVersion3();
+        final ContentValues appUsageEventValues = new ContentValues();
+        appUsageEventValues.put("uid", 1001L);
+        appUsageEventValues.put("userId", 0L);
+        appUsageEventValues.put("timestamp", TIMESTAMP);
+        appUsageEventValues.put("appUsageEventType", 1);
+        appUsageEventValues.put("packageName", PACKAGE_NAME);
+        appUsageEventValues.put("instanceId", 2);
+        databaseVersion3.insertOrThrow("AppUsageEventEntity", null, appUsageEventValues);
+        final ContentValues batteryEventValues = new ContentValues();
+        batteryEventValues.put("timestamp", TIMESTAMP);
+        batteryEventValues.put("batteryEventType", 3);
+        batteryEventValues.put("batteryLevel", 100);
+        databaseVersion3.insertOrThrow("BatteryEventEntity", null, batteryEventValues);
+        databaseVersion3.insertOrThrow(
+                "BatteryUsageSlotEntity",
+                null,
+                ConvertUtils.convertBatteryUsageSlotToContentValues(batteryUsageSlot));
+        final ContentValues batteryReattributeValues = new ContentValues();
+        batteryReattributeValues.put("timestampStart", TIMESTAMP);
+        batteryReattributeValues.put("timestampEnd", TIMESTAMP + 1000L);
+        batteryReattributeValues.put("reattributeData", "reattributeData");
+        databaseVersion3.insertOrThrow(
+                "BatteryReattributeEntity", null, batteryReattributeValues);
+        databaseVersion3.close();
+
+        openAndMigrateDatabase();
+
+        final List<AppUsageEventEntity> appUsageEvents =
+                mDatabase.appUsageEventDao().getAllAfter(TIMESTAMP - 1);
+        assertThat(appUsageEvents).hasSize(1);
+        assertThat(appUsageEvents.get(0).packageName).isEqualTo(PACKAGE_NAME);
+        assertThat(appUsageEvents.get(0).instanceId).isEqualTo(2);
+        final List<BatteryEventEntity> batteryEvents = mDatabase.batteryEventDao().getAll();
+        assertThat(batteryEvents).hasSize(1);
+        assertThat(batteryEvents.get(0).batteryLevel).isEqualTo(100);
+        try (Cursor cursor = mDatabase.batteryUsageSlotDao().getAllAfter(TIMESTAMP)) {
+            assertThat(cursor.getCount()).isEqualTo(1);
+            cursor.moveToFirst();
+            assertThat(ConvertUtils.convertToBatteryUsageSlot(cursor)).isEqualTo(batteryUsageSlot);
+        }
+        final List<BatteryReattributeEntity> batteryReattributes =
+                mDatabase.batteryReattributeDao().getAllAfter(TIMESTAMP);
+        assertThat(batteryReattributes).hasSize(1);
+        assertThat(batteryReattributes.get(0).reattributeData).isEqualTo("reattributeData");
+    }
+
+    private SQLiteDatabase createDatabaseVersion3() {
+        final SQLiteDatabase database =
+                SQLiteDatabase.openOrCreateDatabase(
+                        mContext.getDatabasePath(TEST_DB_NAME), /* factory= */ null);
+        for (String sql : CREATE_TABLES_VERSION_3) {
+            database.execSQL(sql);
+        }
+        database.setVersion(3);
+        return database;
+    }
+
+    private SupportSQLiteDatabase openAndMigrateDatabase() {
+        // Not falls back to the destructive migration, Room throws if any migration is missing or
+        // the migrated schema doesn't match the entities.
+        mDatabase =
+                Room.databaseBuilder(mContext, BatteryStateDatabase.class, TEST_DB_NAME)
+                        .allowMainThreadQueries()
+                        .addMigrations(
+                                BatteryStateDatabase.MIGRATION_3_4,
+                                BatteryStateDatabase.MIGRATION_4_5)
+                        .build();
+        return mDatabase.getOpenHelper().getWritableDatabase();
+    }
+
+    private static void insertBatteryState(
+            SQLiteDatabase database, long timestamp, String batteryInformation) {
+        final ContentValues values = new ContentValues();
+        values.put("uid", 1001L);
+        values.put("userId", 0L);
+        values.put("packageName", PACKAGE_NAME);
+        values.put("timestamp", timestamp);
+        values.put("consumerType", 2);
+        values.put("isFullChargeCycleStart", 0);
+        values.put("batteryInformation", batteryInformation);
+        values.put("batteryInformationDebug", "debug");
+        database.insertOrThrow("BatteryState", null, values);
+    }
+
+    private static BatteryInformation createBatteryInformation(
+            int batteryLevel, double consumePower) {
+        return BatteryInformation.newBuilder()
+                .setDeviceBatteryState(
+                        DeviceBatteryState.newBuilder()
+                                .setBatteryLevel(batteryLevel)
+                                .setBatteryStatus(BatteryManager.BATTERY_STATUS_DISCHARGING)
+                                .setBatteryHealth(BatteryManager.BATTERY_HEALTH_GOOD)
+                                .build())
+                .setAppLabel("Settings")
+                .setTotalPower(100)
+                .setConsumePower(consumePower)
+                .setForegroundUsageTimeInMs(1000L)
+                .build();
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage.db;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settings.testutils.BatteryTestUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Tests for {@link BatteryStateDatabase}. */
+@RunWith(RobolectricTestRunner.class)
+public final class BatteryStateDatabaseTest {
+    private static final long TIMESTAMP = 1_700_006_400_000L;
+    private static final int ROW_COUNT = 1000;
+
+    private Context mContext;
+    private BatteryStateDatabase mDatabase;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mDatabase = BatteryTestUtils.setUpBatteryStateDatabase(mContext);
+    }
+
+    @After
+    public void closeDb() {
+        mDatabase.close();
+        BatteryStateDatabase.setBatteryStateDatabase(/* database= */ null);
+    }
+
+    @Test
+    public void queryPlan_batteryStateQueries_useIndex() {
+        assertUsingIndex(
+                "SELECT * FROM BatteryState WHERE timestamp >= ? ORDER BY timestamp ASC",
+                TIMESTAMP);
+        assertUsingIndex("SELECT MAX(timestamp) FROM BatteryState WHERE timestamp <= ?", TIMESTAMP);
+        assertUsingIndex(
+                "SELECT DISTINCT timestamp FROM BatteryState WHERE timestamp > ?", TIMESTAMP);
+        assertUsingIndex("DELETE FROM BatteryState WHERE timestamp <= ?", TIMESTAMP);
+    }
+
+    @Test
+    public void queryPlan_appUsageEventQueries_useIndex() {
+        assertUsingIndex(
+                "SELECT * FROM AppUsageEventEntity WHERE timestamp >= ?"
+                        + " AND userId IN (?, ?) ORDER BY timestamp ASC",
+                TIMESTAMP,
+                0L,
+                10L);
+        assertUsingIndex(
+                "SELECT MAX(timestamp) as timestamp FROM AppUsageEventEntity WHERE userId = ?", 0L);
+        assertUsingIndex("DELETE FROM AppUsageEventEntity WHERE timestamp <= ?", TIMESTAMP);
+    }
+
+    @Test
+    public void queryPlan_batteryEventQueries_useIndex() {
+        assertUsingIndex(
+                "SELECT * FROM BatteryEventEntity WHERE timestamp >= ?"
+                        + " AND batteryEventType IN (?, ?) ORDER BY timestamp DESC",
+                TIMESTAMP,
+                3,
+                4);
+        assertUsingIndex(
+                "SELECT MAX(timestamp) FROM BatteryEventEntity WHERE batteryEventType = 3");
+        assertUsingIndex("DELETE FROM BatteryEventEntity WHERE timestamp <= ?", TIMESTAMP);
+    }
+
+    @Test
+    public void queryPlan_batteryUsageSlotQueries_useIndex() {
+        assertUsingIndex(
+                "SELECT * FROM BatteryUsageSlotEntity WHERE timestamp >= ?"
+                        + " ORDER BY timestamp ASC",
+                TIMESTAMP);
+        assertUsingIndex("DELETE FROM BatteryUsageSlotEntity WHERE timestamp <= ?", TIMESTAMP);
+    }
+
+    @Test
+    public void vacuumIfNeeded_fewFreePages_notVacuum() {
+        final SupportSQLiteDatabase database = mDatabase.getOpenHelper().getWritableDatabase();
+
+        BatteryStateDatabase.vacuumIfNeeded(database);
+
+        assertThat(queryForLong(database, "PRAGMA auto_vacuum")).isEqualTo(0L);
+    }
+
+    @Test
+    public void vacuumIfNeeded_manyFreePages_releaseFreePages() {
+        final SupportSQLiteDatabase database = mDatabase.getOpenHelper().getWritableDatabase();
+        insertAndClearBatteryStates();
+        assertThat(queryForLong(database, "PRAGMA freelist_count"))
+                .isAtLeast(BatteryStateDatabase.VACUUM_MIN_FREE_PAGES);
+
+        BatteryStateDatabase.vacuumIfNeeded(database);
+
+        // Converts into the incremental auto vacuum mode with a full VACUUM.
+        assertThat(queryForLong(database, "PRAGMA auto_vacuum")).isEqualTo(2L);
+        assertThat(queryForLong(database, "PRAGMA freelist_count")).isEqualTo(0L);
+
+        insertAndClearBatteryStates();
+        BatteryStateDatabase.vacuumIfNeeded(database);
+
+        // Releases the free pages incrementally.
+        assertThat(queryForLong(database, "PRAGMA auto_vacuum")).isEqualTo(2L);
+        assertThat(queryForLong(database, "PRAGMA freelist_count")).isEqualTo(0L);
+    }
+
+    private void insertAndClearBatteryStates() {
+        final String packageName = "com.android.settings".repeat(50);
+        final List<BatteryState> states = new ArrayList<>(ROW_COUNT);
+        for (int index = 0; index < ROW_COUNT; index++) {
+            states.add(
+                    new BatteryState(
+                            /* uid= */ 1001L,
+                            /* userId= */ 100L,
+                            packageName + index,
+                            TIMESTAMP + index,
+                            /* consumerType= */ 2,
+                            /* isFullChargeCycleStart= */ false,
+                            /* batteryInformation= */ new byte[0],
+                            /* batteryInformationDebug= */ ""));
+        }
+        final BatteryStateDao dao = mDatabase.batteryStateDao();
+        dao.insertAll(states);
+        dao.clearAllBefore(TIMESTAMP + ROW_COUNT);
+    }
+
+    private void assertUsingIndex(String sql, Object... args) {
+        final List<String> details = new ArrayList<>();
+        try (Cursor cursor = mDatabase.query("EXPLAIN QUERY PLAN " + sql, args)) {
+            final int detailIndex = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                details.add(cursor.getString(detailIndex));
+            }
+        }
+        assertWithMessage(sql + " " + details).that(details).isNotEmpty();
+        for (String detail : details) {
+            assertWithMessage(sql + " " + details).that(detail).doesNotMatch("^SCAN.*");
+        }
+        assertWithMessage(sql + " " + details)
+                .that(details.stream().anyMatch(detail -> detail.contains(" INDEX ")))
+                .isTrue();
+    }
+
+    private static long queryForLong(SupportSQLiteDatabase database, String sql) {
+        try (Cursor cursor = database.query(sql)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0L;
+        }
+    }
+}
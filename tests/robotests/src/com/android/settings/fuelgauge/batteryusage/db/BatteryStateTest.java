@@ -18,6 +18,7 @@ package com.android.settings.fuelgauge.batteryusage.db;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import android.content.ContentValues;
 import android.os.BatteryManager;
 
 import com.android.settings.fuelgauge.batteryusage.BatteryInformation;
@@ -77,7 +78,32 @@ public final class BatteryStateTest {
         assertThat(state.consumerType).isEqualTo(2);
         assertThat(state.isFullChargeCycleStart).isTrue();
         assertThat(state.batteryInformation)
-                .isEqualTo(ConvertUtils.convertBatteryInformationToString(mBatteryInformation));
+                .isEqualTo(ConvertUtils.convertBatteryInformationToBytes(mBatteryInformation));
+    }
+
+    @Test
+    public void create_legacyBase64String_convertToBytes() {
+        final ContentValues values = new ContentValues();
+        values.put(
+                "batteryInformation",
+                ConvertUtils.convertBatteryInformationToString(mBatteryInformation));
+
+        final BatteryState state = BatteryState.create(values);
+
+        assertThat(ConvertUtils.parseBatteryInformation(state.batteryInformation))
+                .isEqualTo(mBatteryInformation);
+    }
+
+    @Test
+    public void create_serializedBytes_returnsSameBytes() {
+        final byte[] batteryInformation =
+                ConvertUtils.convertBatteryInformationToBytes(mBatteryInformation);
+        final ContentValues values = new ContentValues();
+        values.put("batteryInformation", batteryInformation);
+
+        final BatteryState state = BatteryState.create(values);
+
+        assertThat(state.batteryInformation).isEqualTo(batteryInformation);
     }
 
     private static BatteryState create(BatteryInformation batteryInformation) {
@@ -89,7 +115,7 @@ public final class BatteryStateTest {
                 .setConsumerType(2)
                 .setIsFullChargeCycleStart(true)
                 .setBatteryInformation(
-                        ConvertUtils.convertBatteryInformationToString(batteryInformation))
+                        ConvertUtils.convertBatteryInformationToBytes(batteryInformation))
                 .build();
     }
 }
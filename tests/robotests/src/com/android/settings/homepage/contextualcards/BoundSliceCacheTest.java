@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.homepage.contextualcards;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.net.Uri;
+
+import androidx.slice.Slice;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import java.time.Duration;
+
+@RunWith(RobolectricTestRunner.class)
+public class BoundSliceCacheTest {
+
+    private static final Uri TEST_SLICE_URI = Uri.parse("content://test/test");
+
+    private Context mContext;
+    private Slice mSlice;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mSlice = new Slice.Builder(TEST_SLICE_URI).build();
+    }
+
+    @After
+    public void tearDown() {
+        BoundSliceCache.clear();
+    }
+
+    @Test
+    public void get_notCached_returnNull() {
+        assertThat(BoundSliceCache.get(TEST_SLICE_URI)).isNull();
+    }
+
+    @Test
+    public void get_withinMaxAge_returnCachedSlice() {
+        BoundSliceCache.put(mContext, TEST_SLICE_URI, mSlice);
+
+        assertThat(BoundSliceCache.get(TEST_SLICE_URI)).isSameInstanceAs(mSlice);
+    }
+
+    @Test
+    public void get_overMaxAge_returnNull() {
+        BoundSliceCache.put(mContext, TEST_SLICE_URI, mSlice);
+        ShadowSystemClock.advanceBy(Duration.ofMillis(BoundSliceCache.MAX_AGE_MS + 1));
+
+        assertThat(BoundSliceCache.get(TEST_SLICE_URI)).isNull();
+    }
+
+    @Test
+    public void get_sliceChanged_returnNull() {
+        BoundSliceCache.put(mContext, TEST_SLICE_URI, mSlice);
+
+        mContext.getContentResolver().notifyChange(TEST_SLICE_URI, null /* observer */);
+
+        assertThat(BoundSliceCache.get(TEST_SLICE_URI)).isNull();
+    }
+
+    @Test
+    public void get_otherSliceChanged_returnCachedSlice() {
+        BoundSliceCache.put(mContext, TEST_SLICE_URI, mSlice);
+
+        mContext.getContentResolver().notifyChange(Uri.parse("content://test/other"),
+                null /* observer */);
+
+        assertThat(BoundSliceCache.get(TEST_SLICE_URI)).isSameInstanceAs(mSlice);
+    }
+}
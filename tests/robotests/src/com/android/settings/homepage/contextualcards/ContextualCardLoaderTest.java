@@ -46,6 +46,8 @@ import org.robolectric.RuntimeEnvironment;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.stream.Collectors;
 
 @RunWith(RobolectricTestRunner.class)
@@ -70,6 +72,17 @@ public class ContextualCardLoaderTest {
         assertThat(mContextualCardLoader.loadInBackground()).isEmpty();
     }
 
+    @Test
+    public void getEligibilityCheckerExecutor_shouldBeSharedAndBounded() {
+        final ExecutorService executor = ContextualCardLoader.getEligibilityCheckerExecutor();
+
+        assertThat(ContextualCardLoader.getEligibilityCheckerExecutor())
+                .isSameInstanceAs(executor);
+        assertThat(((ThreadPoolExecutor) executor).getMaximumPoolSize())
+                .isEqualTo(ContextualCardLoader.ELIGIBILITY_CHECKER_THREAD_COUNT);
+        assertThat(executor.isShutdown()).isFalse();
+    }
+
     @Test
     public void getDisplayableCards_twoEligibleCards_shouldShowAll() {
         final List<ContextualCard> cards = getContextualCardList().stream().limit(2)
@@ -89,6 +89,8 @@ public class ContextualCardManagerTest {
     Lifecycle mLifecycle;
     @Mock
     LoaderManager mLoaderManager;
+    @Mock
+    ContextualCardSnapshotStore mSnapshotStore;
 
     private Context mContext;
     private ShadowSubscriptionManager mShadowSubscriptionManager;
@@ -111,6 +113,7 @@ public class ContextualCardManagerTest {
         mShadowTelephonyManager.setTelephonyManagerForSubscriptionId(SUB_ID, telephonyManager);
 
         mManager = new ContextualCardManager(mContext, mLifecycle, null /* bundle */);
+        mManager.mSnapshotStore = mSnapshotStore;
     }
 
     @Test
@@ -377,6 +380,46 @@ public class ContextualCardManagerTest {
         assertThat(actualCards).containsExactlyElementsIn(expectedCards);
     }
 
+    @Test
+    public void onSnapshotLoaded_cardsNotLoaded_shouldShowSnapshotCards() {
+        mManager.setListener(mListener);
+
+        mManager.onSnapshotLoaded(getContextualCardList());
+
+        assertThat(mManager.mIsSnapshotShown).isTrue();
+        assertThat(mManager.mContextualCards).hasSize(getContextualCardList().size());
+        verify(mListener).onContextualCardUpdated(anyMap());
+    }
+
+    @Test
+    public void onSnapshotLoaded_cardsLoaded_shouldNotShowSnapshotCards() {
+        mManager.mStartTime = System.currentTimeMillis();
+        mManager.setListener(mListener);
+        mManager.onFinishCardLoading(new ArrayList<>());
+
+        mManager.onSnapshotLoaded(getContextualCardList());
+
+        assertThat(mManager.mIsSnapshotShown).isFalse();
+        assertThat(mManager.mContextualCards).isEmpty();
+    }
+
+    @Test
+    public void onFinishCardLoading_slowLoad_snapshotShown_shouldReplaceSnapshotCards() {
+        mManager.setListener(mListener);
+        mManager.onSnapshotLoaded(getContextualCardList());
+        mManager.mStartTime = 0;
+        final List<ContextualCard> loadedCards = new ArrayList<>();
+        loadedCards.add(buildContextualCard(TEST_SLICE_URI));
+
+        mManager.onFinishCardLoading(loadedCards);
+
+        final List<String> actualCards = mManager.mContextualCards.stream()
+                .map(ContextualCard::getName)
+                .collect(Collectors.toList());
+        assertThat(actualCards).containsExactly(TEST_SLICE_NAME);
+        assertThat(mManager.mIsSnapshotShown).isFalse();
+    }
+
     @Test
     public void onFinishCardLoading_reloadData_hasNewCard_shouldOnlyShowOldCard() {
         // test card dismissal cases
@@ -22,7 +22,9 @@ import static com.google.common.truth.Truth.assertThat;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
 import android.app.Activity;
 import android.app.PendingIntent;
@@ -40,6 +42,7 @@ import androidx.slice.builders.SliceAction;
 import com.android.settings.R;
 import com.android.settings.slices.CustomSliceRegistry;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -65,6 +68,11 @@ public class EligibleCardCheckerTest {
         mActivity = Robolectric.buildActivity(Activity.class).create().get();
     }
 
+    @After
+    public void tearDown() {
+        BoundSliceCache.clear();
+    }
+
     @Test
     public void isSliceToggleable_cardWithToggle_returnTrue() {
         final Slice slice = buildSlice();
@@ -82,6 +90,19 @@ public class EligibleCardCheckerTest {
         assertThat(mEligibleCardChecker.mCard.hasInlineAction()).isTrue();
     }
 
+    @Test
+    public void isCardEligibleToDisplay_sliceBoundRecently_notBindAgain() {
+        final Slice slice = buildSlice();
+        doReturn(slice).when(mEligibleCardChecker).bindSlice(any(Uri.class));
+        mEligibleCardChecker.isCardEligibleToDisplay(getContextualCard(TEST_SLICE_URI));
+
+        final EligibleCardChecker checker =
+                spy(new EligibleCardChecker(mContext, getContextualCard(TEST_SLICE_URI)));
+
+        assertThat(checker.isCardEligibleToDisplay(getContextualCard(TEST_SLICE_URI))).isTrue();
+        verify(checker, never()).bindSlice(any(Uri.class));
+    }
+
     @Test
     public void isCardEligibleToDisplay_invalidScheme_returnFalse() {
         final Uri invalidUri = Uri.parse("contet://com.android.settings.slices/action/flashlight");
@@ -17,6 +17,7 @@ import android.database.Cursor;
 import android.net.Uri;
 import android.os.Bundle;
 import android.provider.SearchIndexablesContract;
+import android.util.ArraySet;
 
 import com.android.settings.R;
 import com.android.settings.accounts.ManagedProfileSettings;
@@ -40,9 +41,15 @@ import org.robolectric.annotation.Implementation;
 import org.robolectric.annotation.Implements;
 import org.robolectric.annotation.Resetter;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RunWith(RobolectricTestRunner.class)
 @Config(shadows = SettingsSearchIndexablesProviderTest.ShadowCategoryManager.class)
@@ -65,6 +72,8 @@ public class SettingsSearchIndexablesProviderTest {
         info.authority = PACKAGE_NAME;
         info.readPermission = Manifest.permission.READ_SEARCH_INDEXABLES;
         mProvider.attachInfo(RuntimeEnvironment.application, info);
+        // Not depends on the processors of the host, which could fall back to sequential.
+        SettingsSearchIndexablesProvider.sNonIndexableKeysParallelism = 4;
 
         final SearchFeatureProvider featureProvider = new SearchFeatureProviderImpl();
         featureProvider.getSearchIndexableResources().getProviderValues().clear();
@@ -88,6 +97,9 @@ public class SettingsSearchIndexablesProviderTest {
 
     @After
     public void cleanUp() {
+        SettingsSearchIndexablesProvider.sParallelNonIndexableKeysEnabled = true;
+        SettingsSearchIndexablesProvider.sNonIndexableKeysParallelism =
+                SettingsSearchIndexablesProvider.DEFAULT_NON_INDEXABLE_KEYS_PARALLELISM;
         ShadowCategoryManager.reset();
         mFakeFeatureFactory.searchFeatureProvider = mock(SearchFeatureProvider.class);
     }
@@ -150,6 +162,192 @@ public class SettingsSearchIndexablesProviderTest {
         assertThat(keys).containsAtLeast("pref_key_1", "pref_key_3", "pref_key_5");
     }
 
+    @Test
+    public void getNonIndexableKeysFromProvider_parallel_mergeInProviderOrder() {
+        setUpNonIndexableKeysProviders(
+                new FakeNonIndexableKeysProvider(/* delayMs= */ 200L, "key_1", "key_2"),
+                new FakeNonIndexableKeysProvider(/* delayMs= */ 0L, "key_3", "", null),
+                new FakeNonIndexableKeysProvider(/* delayMs= */ 100L, "key_4"));
+
+        final List<String> keys = mProvider.getNonIndexableKeysFromProvider(mContext);
+
+        assertThat(keys).containsExactly("key_1", "key_2", "key_3", "key_4").inOrder();
+    }
+
+    @Test
+    public void getNonIndexableKeysFromProvider_sequential_sameAsParallel() {
+        SettingsSearchIndexablesProvider.sParallelNonIndexableKeysEnabled = false;
+        setUpNonIndexableKeysProviders(
+                new FakeNonIndexableKeysProvider(/* delayMs= */ 200L, "key_1", "key_2"),
+                new FakeNonIndexableKeysProvider(/* delayMs= */ 0L, "key_3", "", null),
+                new FakeNonIndexableKeysProvider(/* delayMs= */ 100L, "key_4"));
+
+        final List<String> keys = mProvider.getNonIndexableKeysFromProvider(mContext);
+
+        assertThat(keys).containsExactly("key_1", "key_2", "key_3", "key_4").inOrder();
+    }
+
+    @Test
+    public void getNonIndexableKeysFromProvider_providerTimeout_getKeysSynchronously() {
+        final CountDownLatch blocker = new CountDownLatch(1);
+        final FakeNonIndexableKeysProvider timeoutProvider =
+                new FakeNonIndexableKeysProvider(blocker, "key_2");
+        setUpNonIndexableKeysProviders(
+                new FakeNonIndexableKeysProvider(/* delayMs= */ 0L, "key_1"),
+                timeoutProvider,
+                new FakeNonIndexableKeysProvider(/* delayMs= */ 0L, "key_3"));
+
+        try {
+            final List<String> keys = mProvider.getNonIndexableKeysFromProvider(mContext);
+
+            assertThat(keys).containsExactly("key_1", "key_2", "key_3").inOrder();
+            final List<SettingsSearchIndexablesProvider.NonIndexableKeysResult> results =
+                    mProvider.getLastNonIndexableKeysResults();
+            assertThat(results).hasSize(3);
+            assertThat(results.get(1).mState)
+                    .isEqualTo(SettingsSearchIndexablesProvider.NonIndexableKeysResult.TIMEOUT);
+            assertThat(results.get(1).mElapsedTimeMs).isAtLeast(
+                    SettingsSearchIndexablesProvider.PROVIDER_NON_INDEXABLE_KEYS_TIMEOUT_MS);
+            assertThat(timeoutProvider.mQueryCount.get()).isEqualTo(2);
+        } finally {
+            blocker.countDown();
+        }
+    }
+
+    @Test
+    public void getNonIndexableKeysFromProvider_queuedProviders_notTimeout() {
+        // The last two providers are queued for most of the timeout before they start running.
+        SettingsSearchIndexablesProvider.sNonIndexableKeysParallelism = 2;
+        final long delayMs = SettingsSearchIndexablesProvider.PROVIDER_NON_INDEXABLE_KEYS_TIMEOUT_MS
+                * 3 / 4;
+        final FakeNonIndexableKeysProvider[] providers = new FakeNonIndexableKeysProvider[4];
+        for (int i = 0; i < providers.length; i++) {
+            providers[i] = new FakeNonIndexableKeysProvider(delayMs, "key_" + i);
+        }
+        setUpNonIndexableKeysProviders(providers);
+
+        final List<String> keys = mProvider.getNonIndexableKeysFromProvider(mContext);
+
+        assertThat(keys).containsExactly("key_0", "key_1", "key_2", "key_3").inOrder();
+        for (SettingsSearchIndexablesProvider.NonIndexableKeysResult result
+                : mProvider.getLastNonIndexableKeysResults()) {
+            assertThat(result.mState).isEqualTo(
+                    SettingsSearchIndexablesProvider.NonIndexableKeysResult.SUCCESS);
+        }
+        for (FakeNonIndexableKeysProvider provider : providers) {
+            assertThat(provider.mQueryCount.get()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void dump_printProviderCosts() {
+        setUpNonIndexableKeysProviders(
+                new FakeNonIndexableKeysProvider(/* delayMs= */ 0L, "key_1"),
+                new FakeNonIndexableKeysProvider(/* delayMs= */ 100L, "key_2", "key_3"));
+        mProvider.getNonIndexableKeysFromProvider(mContext);
+        final StringWriter stringWriter = new StringWriter();
+
+        mProvider.dump(/* fd= */ null, new PrintWriter(stringWriter), /* args= */ null);
+
+        final String dump = stringWriter.toString();
+        assertThat(dump).contains("Non-indexable keys from providers: size=2");
+        // The most expensive provider is listed first.
+        assertThat(dump.indexOf("success keys=2")).isLessThan(dump.indexOf("success keys=1"));
+    }
+
+    @Test
+    public void queryRawDataDelta_environmentUnchanged_returnNoChangedProviders() {
+        final Uri deltaUri = Uri.parse(BASE_AUTHORITY
+                + SearchIndexablesContract.INDEXABLES_RAW_PATH).buildUpon()
+                .appendQueryParameter(SettingsSearchIndexablesProvider.QUERY_PARAMETER_DELTA,
+                        "true")
+                .build();
+
+        try (Cursor cursor = mProvider.query(deltaUri, null, null, null, null)) {
+            assertThat(cursor.getCount()).isEqualTo(1);
+            assertThat(getChangedProviders(cursor))
+                    .containsExactly(FakeSettingsFragment.CLASS_NAME);
+            cursor.moveToFirst();
+            assertThat(cursor.getString(cursor.getColumnIndexOrThrow(
+                    SettingsSearchIndexablesProvider.COLUMN_PROVIDER)))
+                    .isEqualTo(FakeSettingsFragment.CLASS_NAME);
+            assertThat(cursor.getString(1)).isEqualTo(FakeSettingsFragment.TITLE);
+        }
+        try (Cursor cursor = mProvider.query(deltaUri, null, null, null, null)) {
+            assertThat(cursor.getCount()).isEqualTo(0);
+            assertThat(getChangedProviders(cursor)).isEmpty();
+        }
+    }
+
+    @Test
+    public void queryNonIndexableKeysDelta_onlyQueryProvidersWithChangedInputs() {
+        final FakeNonIndexableKeysProvider provider1 =
+                new FakeNonIndexableKeysProvider(/* delayMs= */ 0L, "key_1");
+        final FakeNonIndexableKeysProvider provider2 =
+                new FakeNonIndexableKeysProvider(/* delayMs= */ 0L, "key_2");
+        provider1.mInputs = List.of(1);
+        provider2.mInputs = List.of(1);
+        final SearchFeatureProvider featureProvider = new SearchFeatureProviderImpl();
+        featureProvider.getSearchIndexableResources().getProviderValues().clear();
+        featureProvider.getSearchIndexableResources().getProviderValues()
+                .add(new SearchIndexableData(FakeSettingsFragment.class, provider1));
+        featureProvider.getSearchIndexableResources().getProviderValues()
+                .add(new SearchIndexableData(ManagedProfileSettings.class, provider2));
+        mFakeFeatureFactory.searchFeatureProvider = featureProvider;
+        final Uri deltaUri = Uri.parse(BASE_AUTHORITY
+                + SearchIndexablesContract.NON_INDEXABLES_KEYS_PATH).buildUpon()
+                .appendQueryParameter(SettingsSearchIndexablesProvider.QUERY_PARAMETER_DELTA,
+                        "true")
+                .build();
+        mProvider.query(deltaUri, null, null, null, null).close();
+
+        provider2.mKeys = new String[] {"key_2", "key_3"};
+        provider2.mInputs = List.of(2);
+
+        try (Cursor cursor = mProvider.query(deltaUri, null, null, null, null)) {
+            assertThat(getChangedProviders(cursor))
+                    .containsExactly(ManagedProfileSettings.class.getName());
+            final List<String> keys = new ArrayList<>();
+            while (cursor.moveToNext()) {
+                keys.add(cursor.getString(0));
+                assertThat(cursor.getString(1)).isEqualTo(ManagedProfileSettings.class.getName());
+            }
+            assertThat(keys).containsExactly("key_2", "key_3").inOrder();
+        }
+        assertThat(provider1.mQueryCount.get()).isEqualTo(1);
+        assertThat(provider2.mQueryCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void queryNonIndexableKeysDelta_unknownInputs_alwaysQueryProvider() {
+        final FakeNonIndexableKeysProvider provider =
+                new FakeNonIndexableKeysProvider(/* delayMs= */ 0L, "key_1");
+        setUpNonIndexableKeysProviders(provider);
+        mProvider.queryNonIndexableKeysDelta().close();
+
+        try (Cursor cursor = mProvider.queryNonIndexableKeysDelta()) {
+            assertThat(getChangedProviders(cursor))
+                    .containsExactly(FakeSettingsFragment.class.getName());
+            assertThat(cursor.getCount()).isEqualTo(1);
+        }
+        assertThat(provider.mQueryCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void queryNonIndexableKeys_doNotStoreFingerprints() {
+        final FakeNonIndexableKeysProvider provider =
+                new FakeNonIndexableKeysProvider(/* delayMs= */ 0L, "key_1");
+        provider.mInputs = List.of(1);
+        setUpNonIndexableKeysProviders(provider);
+
+        mProvider.query(
+                Uri.parse(BASE_AUTHORITY + SearchIndexablesContract.NON_INDEXABLES_KEYS_PATH),
+                SearchIndexablesContract.NON_INDEXABLES_KEYS_COLUMNS, null, null, null).close();
+
+        assertThat(mContext.getSharedPreferences(SearchIndexFingerprints.SHARED_PREFS_TAG,
+                Context.MODE_PRIVATE).getAll()).isEmpty();
+    }
+
     @Test
     public void refreshSearchEnabledState_classNotFoundInCategoryMap_hasInjectionRawData() {
         mProvider.refreshSearchEnabledState(mContext,
@@ -239,6 +437,62 @@ public class SettingsSearchIndexablesProviderTest {
         }
     }
 
+    private static Set<String> getChangedProviders(Cursor cursor) {
+        return new ArraySet<>(cursor.getExtras().getStringArray(
+                SettingsSearchIndexablesProvider.EXTRA_CHANGED_PROVIDERS));
+    }
+
+    private void setUpNonIndexableKeysProviders(FakeNonIndexableKeysProvider... providers) {
+        final SearchFeatureProvider featureProvider = new SearchFeatureProviderImpl();
+        featureProvider.getSearchIndexableResources().getProviderValues().clear();
+        for (FakeNonIndexableKeysProvider provider : providers) {
+            featureProvider.getSearchIndexableResources().getProviderValues()
+                    .add(new SearchIndexableData(FakeSettingsFragment.class, provider));
+        }
+        mFakeFeatureFactory.searchFeatureProvider = featureProvider;
+    }
+
+    private static class FakeNonIndexableKeysProvider extends BaseSearchIndexProvider {
+        private final long mDelayMs;
+        private final CountDownLatch mBlocker;
+        private String[] mKeys;
+        private List<Object> mInputs;
+        private final AtomicInteger mQueryCount = new AtomicInteger();
+
+        FakeNonIndexableKeysProvider(long delayMs, String... keys) {
+            mDelayMs = delayMs;
+            mBlocker = null;
+            mKeys = keys;
+        }
+
+        FakeNonIndexableKeysProvider(CountDownLatch blocker, String... keys) {
+            mDelayMs = 0L;
+            mBlocker = blocker;
+            mKeys = keys;
+        }
+
+        @Override
+        public List<Object> getDynamicIndexInputs(Context context) {
+            return mInputs;
+        }
+
+        @Override
+        public List<String> getNonIndexableKeys(Context context) {
+            final boolean firstQuery = mQueryCount.incrementAndGet() == 1;
+            try {
+                // Only blocks the first query, so the keys could be got again after a timeout.
+                if (mBlocker != null && firstQuery) {
+                    mBlocker.await(10, TimeUnit.SECONDS);
+                } else if (mDelayMs > 0) {
+                    Thread.sleep(mDelayMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new ArrayList<>(Arrays.asList(mKeys));
+        }
+    }
+
     private static class IndexablesProvider extends SettingsSearchIndexablesProvider {
         @Override
         public boolean isCatalystSearchEnabled() {
@@ -30,6 +30,7 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
@@ -40,12 +41,15 @@ import android.app.slice.SliceManager;
 import android.content.ContentResolver;
 import android.content.Context;
 import android.content.Intent;
+import android.content.res.Configuration;
 import android.content.res.Resources.Theme;
 import android.net.Uri;
+import android.os.LocaleList;
 import android.os.StrictMode;
 import android.provider.Settings;
 import android.provider.SettingsSlicesContract;
 import android.util.ArraySet;
+import android.util.LruCache;
 import android.view.accessibility.AccessibilityManager;
 
 import androidx.slice.Slice;
@@ -87,7 +91,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -157,7 +160,7 @@ public class SettingsSliceProviderTest {
 
         mProvider = spy(new SettingsSliceProvider());
         ShadowStrictMode.reset();
-        mProvider.mSliceWeakDataCache = new HashMap<>();
+        mProvider.mSliceDataCache = new LruCache<>(SettingsSliceProvider.SLICE_DATA_CACHE_SIZE);
         mProvider.mSlicesDatabaseAccessor = new SlicesDatabaseAccessor(mContext);
         when(mProvider.getContext()).thenReturn(mContext);
 
@@ -193,7 +196,7 @@ public class SettingsSliceProviderTest {
         SliceTestUtils.insertSliceToDb(mContext, KEY);
 
         mProvider.loadSlice(INTENT_SLICE_URI);
-        SliceData data = mProvider.mSliceWeakDataCache.get(INTENT_SLICE_URI);
+        SliceData data = mProvider.mSliceDataCache.get(INTENT_SLICE_URI);
 
         assertThat(data.getKey()).isEqualTo(KEY);
         assertThat(data.getTitle()).isEqualTo(SliceTestUtils.FAKE_TITLE);
@@ -224,15 +227,102 @@ public class SettingsSliceProviderTest {
     }
 
     @Test
-    public void testLoadSlice_cachedEntryRemovedOnUnpinned() {
+    public void testLoadSlice_unpinned_keepCachedEntryAndLoadAgain() {
         SliceData data = getMockData();
-        mProvider.mSliceWeakDataCache.put(data.getUri(), data);
+        mProvider.mSliceDataCache.put(data.getUri(), data);
+        mProvider.mLoadedSliceUris.add(data.getUri());
         mProvider.onSliceUnpinned(data.getUri());
-        SliceTestUtils.insertSliceToDb(mContext, data.getKey());
 
-        SliceData cachedData = mProvider.mSliceWeakDataCache.get(data.getUri());
+        SliceData cachedData = mProvider.mSliceDataCache.get(data.getUri());
 
-        assertThat(cachedData).isNull();
+        assertThat(cachedData).isSameInstanceAs(data);
+        assertThat(mProvider.mLoadedSliceUris).doesNotContain(data.getUri());
+    }
+
+    @Test
+    public void loadSlice_cachedSliceDataNotLoaded_registersIntentFilterWithoutQuery() {
+        final SliceData data = getMockData();
+        mProvider.mSliceDataCache.put(data.getUri(), data);
+        mProvider.mSlicesDatabaseAccessor = mock(SlicesDatabaseAccessor.class);
+
+        mProvider.loadSlice(data.getUri());
+
+        verify(mProvider.mSlicesDatabaseAccessor, never()).getSliceDataFromUri(any());
+        verify(mProvider)
+                .registerIntentToUri(eq(FakeToggleController.INTENT_FILTER), eq(data.getUri()));
+        assertThat(mProvider.mLoadedSliceUris).contains(data.getUri());
+    }
+
+    @Test
+    public void loadSlice_loadedSliceDataEvicted_queryAgainWithoutRegistering() {
+        SliceTestUtils.insertSliceToDb(mContext, KEY);
+        mProvider.mLoadedSliceUris.add(INTENT_SLICE_URI);
+
+        mProvider.loadSlice(INTENT_SLICE_URI);
+
+        assertThat(mProvider.mSliceDataCache.get(INTENT_SLICE_URI).getKey()).isEqualTo(KEY);
+        verify(mProvider, never()).registerIntentToUri(any(), any());
+    }
+
+    @Test
+    public void loadSlice_reindexed_clearSliceDataAndQueryAgain() {
+        SliceTestUtils.insertSliceToDb(mContext, KEY);
+        mProvider.loadSlice(INTENT_SLICE_URI);
+        final SliceData staleData = mProvider.mSliceDataCache.get(INTENT_SLICE_URI);
+        final SliceData otherData = getMockData();
+        mProvider.mSliceDataCache.put(otherData.getUri(), otherData);
+        mProvider.mLoadedSliceUris.add(otherData.getUri());
+
+        SlicesDatabaseHelper.getInstance(mContext).notifyIndexChanged();
+        mProvider.loadSlice(INTENT_SLICE_URI);
+
+        assertThat(mProvider.mSliceDataCache.get(INTENT_SLICE_URI)).isNotSameInstanceAs(staleData);
+        assertThat(mProvider.mSliceDataCache.get(otherData.getUri())).isNull();
+        assertThat(mProvider.mLoadedSliceUris).containsExactly(INTENT_SLICE_URI);
+    }
+
+    @Test
+    public void onConfigurationChanged_localesChanged_clearSliceData() {
+        final SliceData data = getMockData();
+        final Configuration config = new Configuration();
+        config.setLocales(LocaleList.forLanguageTags("en-US"));
+        mProvider.onConfigurationChanged(config);
+        mProvider.mSliceDataCache.put(data.getUri(), data);
+        mProvider.mLoadedSliceUris.add(data.getUri());
+
+        final Configuration newConfig = new Configuration();
+        newConfig.setLocales(LocaleList.forLanguageTags("fr-FR"));
+        mProvider.onConfigurationChanged(newConfig);
+
+        assertThat(mProvider.mSliceDataCache.get(data.getUri())).isNull();
+        assertThat(mProvider.mLoadedSliceUris).isEmpty();
+    }
+
+    @Test
+    public void onConfigurationChanged_localesNotChanged_keepSliceData() {
+        final SliceData data = getMockData();
+        final Configuration config = new Configuration();
+        config.setLocales(LocaleList.forLanguageTags("en-US"));
+        mProvider.onConfigurationChanged(config);
+        mProvider.mSliceDataCache.put(data.getUri(), data);
+
+        final Configuration newConfig = new Configuration(config);
+        newConfig.uiMode = UI_MODE_NIGHT_YES;
+        mProvider.onConfigurationChanged(newConfig);
+
+        assertThat(mProvider.mSliceDataCache.get(data.getUri())).isSameInstanceAs(data);
+    }
+
+    @Test
+    public void prewarmPublicSliceData_shouldCacheAllPublicSliceData() {
+        final SliceData data = getMockData();
+        mProvider.mSlicesDatabaseAccessor = mock(SlicesDatabaseAccessor.class);
+        when(mProvider.mSlicesDatabaseAccessor.getPublicSliceData()).thenReturn(List.of(data));
+
+        mProvider.prewarmPublicSliceData();
+
+        assertThat(mProvider.mSliceDataCache.get(data.getUri())).isSameInstanceAs(data);
+        assertThat(mProvider.mLoadedSliceUris).isEmpty();
     }
 
     @Test
@@ -240,7 +330,7 @@ public class SettingsSliceProviderTest {
         ShadowThreadUtils.setIsMainThread(true);
         final StrictMode.ThreadPolicy oldThreadPolicy = StrictMode.getThreadPolicy();
         SliceData data = getMockData();
-        mProvider.mSliceWeakDataCache.put(data.getUri(), data);
+        mProvider.mSliceDataCache.put(data.getUri(), data);
         mProvider.onBindSlice(data.getUri());
 
         final StrictMode.ThreadPolicy newThreadPolicy = StrictMode.getThreadPolicy();
@@ -254,7 +344,7 @@ public class SettingsSliceProviderTest {
         ShadowThreadUtils.setIsMainThread(false);
 
         SliceData data = getMockData();
-        mProvider.mSliceWeakDataCache.put(data.getUri(), data);
+        mProvider.mSliceDataCache.put(data.getUri(), data);
         mProvider.onBindSlice(data.getUri());
 
         assertThat(ShadowStrictMode.isThreadPolicyOverridden()).isTrue();
@@ -282,7 +372,7 @@ public class SettingsSliceProviderTest {
     public void onBindSlice_nightModeChanged_shouldReloadTheme() {
         mContext.getResources().getConfiguration().uiMode = UI_MODE_NIGHT_NO;
         final SliceData data = getMockData();
-        mProvider.mSliceWeakDataCache.put(data.getUri(), data);
+        mProvider.mSliceDataCache.put(data.getUri(), data);
         mProvider.onBindSlice(data.getUri());
 
         mContext.getResources().getConfiguration().uiMode = UI_MODE_NIGHT_YES;
@@ -295,7 +385,7 @@ public class SettingsSliceProviderTest {
     public void onBindSlice_nightModeNotChanged_shouldNotReloadTheme() {
         mContext.getResources().getConfiguration().uiMode = UI_MODE_NIGHT_NO;
         SliceData data = getMockData();
-        mProvider.mSliceWeakDataCache.put(data.getUri(), data);
+        mProvider.mSliceDataCache.put(data.getUri(), data);
         mProvider.onBindSlice(data.getUri());
 
         mContext.getResources().getConfiguration().uiMode = UI_MODE_NIGHT_NO;
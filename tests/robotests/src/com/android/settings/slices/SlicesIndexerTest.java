@@ -18,8 +18,13 @@ package com.android.settings.slices;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import android.content.ContentValues;
 import android.content.Context;
@@ -35,11 +40,13 @@ import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @RunWith(RobolectricTestRunner.class)
 public class SlicesIndexerTest {
@@ -56,6 +63,7 @@ public class SlicesIndexerTest {
     private static final int SLICE_TYPE = SliceData.SliceType.SLIDER;
     private static final String UNAVAILABLE_SLICE_SUBTITLE = "subtitleOfUnavailableSlice";
     private static final int HIGHLIGHT_MENU_KEY = 5678; // I declare a thumb war
+    private static final String OTHER_FRAGMENT_NAME = "other fragment name";
 
     private Context mContext;
 
@@ -205,6 +213,184 @@ public class SlicesIndexerTest {
         }
     }
 
+    @Test
+    public void getFingerprint_sameData_sameFingerprint() {
+        assertThat(SlicesIndexer.getFingerprint(getMockIndexableData(false)))
+                .isEqualTo(SlicesIndexer.getFingerprint(getMockIndexableData(false)));
+    }
+
+    @Test
+    public void getFingerprint_dataChanged_differentFingerprint() {
+        final List<SliceData> sliceData = getMockIndexableData(false);
+        final List<SliceData> publicSliceData = getMockIndexableData(true);
+        final List<SliceData> removedSliceData = getMockIndexableData(false);
+        removedSliceData.remove(0);
+
+        final String fingerprint = SlicesIndexer.getFingerprint(sliceData);
+
+        assertThat(SlicesIndexer.getFingerprint(publicSliceData)).isNotEqualTo(fingerprint);
+        assertThat(SlicesIndexer.getFingerprint(removedSliceData)).isNotEqualTo(fingerprint);
+    }
+
+    @Test
+    public void setSourceFingerprints_shouldReplaceAllFingerprints() {
+        final SlicesDatabaseHelper helper = SlicesDatabaseHelper.getInstance(mContext);
+        final SQLiteDatabase db = helper.getWritableDatabase();
+        helper.setSourceFingerprints(db,
+                Map.of("source1", "fingerprint1", "source2", "fingerprint2"));
+
+        helper.setSourceFingerprints(db, Map.of("source1", "fingerprint3"));
+
+        assertThat(helper.getSourceFingerprints(db)).containsExactly("source1", "fingerprint3");
+    }
+
+    @Test
+    public void clearIndexedState_shouldKeepSourceFingerprints() {
+        final SlicesDatabaseHelper helper = SlicesDatabaseHelper.getInstance(mContext);
+        final SQLiteDatabase db = helper.getWritableDatabase();
+        helper.setIndexedState();
+        helper.setSourceFingerprints(db, Map.of(FRAGMENT_NAME, "fingerprint"));
+
+        helper.clearIndexedState();
+
+        assertThat(helper.isSliceDataIndexed()).isFalse();
+        assertThat(helper.getSourceFingerprints(db)).containsExactly(FRAGMENT_NAME, "fingerprint");
+    }
+
+    @Test
+    public void reconstruct_shouldClearSourceFingerprints() {
+        final SlicesDatabaseHelper helper = SlicesDatabaseHelper.getInstance(mContext);
+        final SQLiteDatabase db = helper.getWritableDatabase();
+        helper.setSourceFingerprints(db, Map.of(FRAGMENT_NAME, "fingerprint"));
+
+        helper.reconstruct(db);
+
+        assertThat(helper.getSourceFingerprints(db)).isEmpty();
+    }
+
+    @Test
+    public void indexSliceData_sourceChanged_rewriteChangedSourceOnly() {
+        final SliceData changedData = createSliceData(FRAGMENT_NAME, KEYS[0], "new title");
+        doReturn(List.of(createSliceData(FRAGMENT_NAME, KEYS[0], TITLES[0]),
+                        createSliceData(OTHER_FRAGMENT_NAME, KEYS[1], TITLES[1])))
+                .doReturn(List.of(changedData,
+                        createSliceData(OTHER_FRAGMENT_NAME, KEYS[1], TITLES[1])))
+                .when(mManager).getSliceData();
+        final ArgumentCaptor<List<SliceData>> captor = ArgumentCaptor.forClass(List.class);
+
+        indexTwice();
+
+        verify(mManager, times(3)).insertSliceData(any(), captor.capture());
+        assertThat(captor.getValue()).containsExactly(changedData);
+        assertThat(getTitles(FRAGMENT_NAME)).containsExactly("new title");
+        assertThat(getTitles(OTHER_FRAGMENT_NAME)).containsExactly(TITLES[1]);
+    }
+
+    @Test
+    public void indexSliceData_sourceRemoved_deleteRemovedSourceOnly() {
+        final List<SliceData> sliceData =
+                List.of(createSliceData(FRAGMENT_NAME, KEYS[0], TITLES[0]));
+        doReturn(List.of(sliceData.get(0),
+                        createSliceData(OTHER_FRAGMENT_NAME, KEYS[1], TITLES[1])))
+                .doReturn(sliceData)
+                .when(mManager).getSliceData();
+
+        indexTwice();
+
+        verify(mManager, times(2)).insertSliceData(any(), any());
+        assertThat(getTitles(FRAGMENT_NAME)).containsExactly(TITLES[0]);
+        assertThat(getTitles(OTHER_FRAGMENT_NAME)).isEmpty();
+        assertThat(SlicesDatabaseHelper.getInstance(mContext).getSourceFingerprints(
+                SlicesDatabaseHelper.getInstance(mContext).getWritableDatabase()))
+                .containsExactly(FRAGMENT_NAME, SlicesIndexer.getFingerprint(sliceData));
+    }
+
+    @Test
+    public void indexSliceData_sourceUnchanged_notRewritten() {
+        doReturn(List.of(createSliceData(FRAGMENT_NAME, KEYS[0], TITLES[0]),
+                        createSliceData(OTHER_FRAGMENT_NAME, KEYS[1], TITLES[1])))
+                .when(mManager).getSliceData();
+
+        indexTwice();
+
+        verify(mManager, times(2)).insertSliceData(any(), any());
+        assertThat(getTitles(FRAGMENT_NAME)).containsExactly(TITLES[0]);
+        assertThat(getTitles(OTHER_FRAGMENT_NAME)).containsExactly(TITLES[1]);
+    }
+
+    @Test
+    public void indexSliceData_emptySourceRemoved_deleteRowsWithoutFragment() {
+        final SlicesDatabaseHelper helper = SlicesDatabaseHelper.getInstance(mContext);
+        final SQLiteDatabase db = helper.getWritableDatabase();
+        helper.setSourceFingerprints(db, Map.of("", "fingerprint"));
+        final ContentValues nullFragmentValues = new ContentValues();
+        nullFragmentValues.put(IndexColumns.KEY, KEYS[1]);
+        nullFragmentValues.put(IndexColumns.TITLE, TITLES[1]);
+        db.insertOrThrow(SlicesDatabaseHelper.Tables.TABLE_SLICES_INDEX, null,
+                nullFragmentValues);
+        final ContentValues emptyFragmentValues = new ContentValues(nullFragmentValues);
+        emptyFragmentValues.put(IndexColumns.KEY, KEYS[2]);
+        emptyFragmentValues.put(IndexColumns.FRAGMENT, "");
+        db.insertOrThrow(SlicesDatabaseHelper.Tables.TABLE_SLICES_INDEX, null,
+                emptyFragmentValues);
+        doReturn(List.of(createSliceData(FRAGMENT_NAME, KEYS[0], TITLES[0])))
+                .when(mManager).getSliceData();
+
+        mManager.run();
+
+        try (Cursor cursor = db.rawQuery("SELECT * FROM slices_index WHERE "
+                + IndexColumns.FRAGMENT + " IS NULL OR " + IndexColumns.FRAGMENT + " = ''",
+                null)) {
+            assertThat(cursor.getCount()).isEqualTo(0);
+        }
+        assertThat(getTitles(FRAGMENT_NAME)).containsExactly(TITLES[0]);
+        assertThat(helper.getSourceFingerprints(db)).doesNotContainKey("");
+    }
+
+    @Test
+    public void indexSliceData_writeFailed_keepFingerprintsAndNotIndexed() {
+        final SlicesDatabaseHelper helper = SlicesDatabaseHelper.getInstance(mContext);
+        final SQLiteDatabase db = helper.getWritableDatabase();
+        helper.setSourceFingerprints(db, Map.of(FRAGMENT_NAME, "fingerprint"));
+        doReturn(List.of(createSliceData(FRAGMENT_NAME, KEYS[0], TITLES[0])))
+                .when(mManager).getSliceData();
+        doThrow(new IllegalStateException()).when(mManager).insertSliceData(any(), any());
+
+        assertThrows(IllegalStateException.class, () -> mManager.run());
+
+        assertThat(helper.getSourceFingerprints(db)).containsExactly(FRAGMENT_NAME, "fingerprint");
+        assertThat(helper.isSliceDataIndexed()).isFalse();
+    }
+
+    private void indexTwice() {
+        mManager.run();
+        SlicesDatabaseHelper.getInstance(mContext).clearIndexedState();
+        mManager.run();
+    }
+
+    private List<String> getTitles(String fragment) {
+        final SQLiteDatabase db = SlicesDatabaseHelper.getInstance(mContext).getWritableDatabase();
+        final List<String> titles = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery("SELECT * FROM slices_index WHERE "
+                + IndexColumns.FRAGMENT + " = ?", new String[] {fragment})) {
+            while (cursor.moveToNext()) {
+                titles.add(cursor.getString(cursor.getColumnIndex(IndexColumns.TITLE)));
+            }
+        }
+        return titles;
+    }
+
+    private SliceData createSliceData(String fragment, String key, String title) {
+        return new SliceData.Builder()
+                .setKey(key)
+                .setTitle(title)
+                .setFragmentName(fragment)
+                .setUri(URI)
+                .setPreferenceControllerClassName(PREF_CONTROLLER)
+                .setHighlightMenuRes(HIGHLIGHT_MENU_KEY)
+                .build();
+    }
+
     private void insertSpecialCase(String key, String title) {
         final ContentValues values = new ContentValues();
         values.put(IndexColumns.KEY, key);
@@ -24,6 +24,7 @@ import static com.google.common.truth.Truth.assertThat;
 
 import static org.mockito.Mockito.when;
 
+import android.content.ComponentName;
 import android.content.Context;
 import android.content.pm.ActivityInfo;
 import android.content.pm.ApplicationInfo;
@@ -48,7 +49,9 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RunWith(AndroidJUnit4.class)
 public class CategoryManagerTest {
@@ -408,6 +411,27 @@ public class CategoryManagerTest {
         assertThat(category.getTilesCount()).isEqualTo(1);
     }
 
+    @Test
+    public void updateCategoryFromDenylist_shouldNotModifyPublishedCategories() {
+        final CategoryManager categoryManager = new CategoryManager(mContext);
+        final DashboardCategory category = new DashboardCategory(CATEGORY_HOMEPAGE);
+        category.addTile(createActivityTile(category.key, "pkg", "class1", 100));
+        category.addTile(createActivityTile(category.key, "pkg", "class2", 50));
+        categoryManager.setCategories(List.of(category));
+        final ComponentName component = new ComponentName("pkg", "class1");
+        final DashboardCategory publishedCategory =
+                categoryManager.getTilesByCategory(mContext, CATEGORY_HOMEPAGE);
+
+        categoryManager.updateCategoryFromDenylist(Set.of(component));
+
+        assertThat(publishedCategory.getTilesCount()).isEqualTo(2);
+        assertThat(categoryManager.getTilesByCategory(mContext, CATEGORY_HOMEPAGE)
+                .getTilesCount()).isEqualTo(1);
+        assertThat(categoryManager.getTileByComponentMap()).doesNotContainKey(component);
+        assertThat(categoryManager.getTileByComponentMap())
+                .containsKey(new ComponentName("pkg", "class2"));
+    }
+
     private Tile createActivityTile(String categoryKey, String packageName, String className,
             int order) {
         final ActivityInfo activityInfo = new ActivityInfo();
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.content.pm.ActivityInfo;
+import android.content.pm.ApplicationInfo;
+import android.os.Bundle;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.android.settings.safetycenter.SafetyCenterManagerWrapper;
+import com.android.settingslib.drawer.ActivityTile;
+import com.android.settingslib.drawer.CategoryKey;
+import com.android.settingslib.drawer.DashboardCategory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+public class CategorySnapshotStoreTest {
+
+    private Context mContext;
+    private CategorySnapshotStore mSnapshotStore;
+
+    @Mock private SafetyCenterManagerWrapper mSafetyCenterManagerWrapper;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = ApplicationProvider.getApplicationContext();
+        SafetyCenterManagerWrapper.sInstance = mSafetyCenterManagerWrapper;
+        mSnapshotStore = new CategorySnapshotStore();
+        mSnapshotStore.delete(mContext);
+    }
+
+    @After
+    public void tearDown() {
+        mSnapshotStore.delete(mContext);
+    }
+
+    @Test
+    public void load_noSnapshot_returnNull() {
+        assertThat(mSnapshotStore.load(mContext)).isNull();
+    }
+
+    @Test
+    public void write_thenLoad_returnSameCategories() {
+        final DashboardCategory category = createCategory(CategoryKey.CATEGORY_HOMEPAGE,
+                mContext.getPackageName());
+        final DashboardCategory unlistedCategory = createCategory(CategoryKey.CATEGORY_ACCOUNT,
+                mContext.getPackageName());
+
+        mSnapshotStore.prepare(mContext, List.of(category), List.of(unlistedCategory));
+        mSnapshotStore.write(mContext);
+        final CategorySnapshotStore.Snapshot snapshot = mSnapshotStore.load(mContext);
+
+        assertThat(snapshot).isNotNull();
+        assertThat(snapshot.mCategories).hasSize(1);
+        assertThat(snapshot.mCategories.get(0).key).isEqualTo(CategoryKey.CATEGORY_HOMEPAGE);
+        assertThat(snapshot.mCategories.get(0).getTilesCount()).isEqualTo(1);
+        assertThat(snapshot.mCategories.get(0).getTile(0).getIntent().getComponent())
+                .isEqualTo(category.getTile(0).getIntent().getComponent());
+        assertThat(snapshot.mUnlistedCategories).hasSize(1);
+        assertThat(snapshot.mUnlistedCategories.get(0).key)
+                .isEqualTo(CategoryKey.CATEGORY_ACCOUNT);
+    }
+
+    @Test
+    public void write_tilePackageNotInstalled_notPersist() {
+        final DashboardCategory category = createCategory(CategoryKey.CATEGORY_HOMEPAGE,
+                "not.installed.package");
+
+        mSnapshotStore.prepare(mContext, List.of(category), new ArrayList<>());
+        mSnapshotStore.write(mContext);
+
+        assertThat(mSnapshotStore.load(mContext)).isNull();
+    }
+
+    @Test
+    public void delete_thenLoad_returnNull() {
+        mSnapshotStore.prepare(mContext, List.of(createCategory(CategoryKey.CATEGORY_HOMEPAGE,
+                mContext.getPackageName())), new ArrayList<>());
+        mSnapshotStore.write(mContext);
+
+        mSnapshotStore.delete(mContext);
+
+        assertThat(mSnapshotStore.load(mContext)).isNull();
+    }
+
+    @Test
+    public void load_corruptedSnapshot_returnNullAndDeleteSnapshot() throws Exception {
+        final File file = new File(mContext.getCacheDir(),
+                CategorySnapshotStore.SNAPSHOT_FILE_NAME);
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[] {1, 2, 3});
+        }
+
+        assertThat(mSnapshotStore.load(mContext)).isNull();
+        assertThat(file.exists()).isFalse();
+    }
+
+    private static DashboardCategory createCategory(String categoryKey, String packageName) {
+        final ActivityInfo activityInfo = new ActivityInfo();
+        activityInfo.packageName = packageName;
+        activityInfo.name = "class";
+        activityInfo.metaData = new Bundle();
+        activityInfo.applicationInfo = new ApplicationInfo();
+        final DashboardCategory category = new DashboardCategory(categoryKey);
+        category.addTile(new ActivityTile(activityInfo, categoryKey));
+        return category;
+    }
+}
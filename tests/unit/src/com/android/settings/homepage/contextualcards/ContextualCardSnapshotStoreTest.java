@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.homepage.contextualcards;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.net.Uri;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+public class ContextualCardSnapshotStoreTest {
+
+    private static final Uri TEST_SLICE_URI = Uri.parse("content://test/test");
+
+    private Context mContext;
+    private ContextualCardSnapshotStore mSnapshotStore;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mSnapshotStore = new ContextualCardSnapshotStore();
+        mSnapshotStore.delete(mContext);
+    }
+
+    @After
+    public void tearDown() {
+        mSnapshotStore.delete(mContext);
+    }
+
+    @Test
+    public void load_noSnapshot_returnNull() {
+        assertThat(mSnapshotStore.load(mContext)).isNull();
+    }
+
+    @Test
+    public void write_cardsWithoutSlice_loadNoCards() {
+        final ContextualCard sliceCard = new ContextualCard.Builder()
+                .setName("test_slice")
+                .setCardType(ContextualCard.CardType.SLICE)
+                .setSliceUri(TEST_SLICE_URI)
+                .build();
+        final ContextualCard conditionalCard = new ContextualCard.Builder()
+                .setName("test_conditional")
+                .setCardType(ContextualCard.CardType.CONDITIONAL)
+                .setSliceUri(TEST_SLICE_URI)
+                .build();
+
+        mSnapshotStore.write(mContext, List.of(sliceCard, conditionalCard));
+
+        assertThat(mSnapshotStore.load(mContext)).isEmpty();
+    }
+
+    @Test
+    public void delete_thenLoad_returnNull() {
+        mSnapshotStore.write(mContext, List.of());
+
+        mSnapshotStore.delete(mContext);
+
+        assertThat(mSnapshotStore.load(mContext)).isNull();
+    }
+
+    @Test
+    public void load_corruptedSnapshot_returnNullAndDeleteSnapshot() throws Exception {
+        final File file = new File(mContext.getCacheDir(),
+                ContextualCardSnapshotStore.SNAPSHOT_FILE_NAME);
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[] {1, 2, 3});
+        }
+
+        assertThat(mSnapshotStore.load(mContext)).isNull();
+        assertThat(file.exists()).isFalse();
+    }
+}
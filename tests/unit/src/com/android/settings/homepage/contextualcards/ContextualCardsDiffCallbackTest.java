@@ -24,6 +24,8 @@ import android.net.Uri;
 
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 
+import com.android.settings.homepage.contextualcards.slices.SliceContextualCardRenderer;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -104,6 +106,15 @@ public class ContextualCardsDiffCallbackTest {
         assertThat(mDiffCallback.areContentsTheSame(0, 0)).isFalse();
     }
 
+    @Test
+    public void areContentsTheSame_differentViewType_returnFalse() {
+        final ContextualCard card = getContextualCard("test1").mutate()
+                .setViewType(SliceContextualCardRenderer.VIEW_TYPE_HALF_WIDTH).build();
+        mNewCards.add(0, card);
+
+        assertThat(mDiffCallback.areContentsTheSame(0, 0)).isFalse();
+    }
+
     private ContextualCard getContextualCard(String name) {
         return new ContextualCard.Builder()
                 .setName(name)
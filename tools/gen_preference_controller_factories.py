@@ -0,0 +1,198 @@
+#!/usr/bin/env python3
+#
+# Copyright (C) 2026 The Android Open Source Project
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+#      http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+
+"""Generates the factories of the preference controllers declared in the preference xml.
+
+The generated PreferenceControllerFactories instantiates the controllers with plain constructor
+calls, so BasePreferenceController.createInstance() doesn't need to look them up by reflection.
+Only the public top level Java controllers extending BasePreferenceController with a public
+(Context) or (Context, String) constructor are generated, the others are left to reflection.
+"""
+
+import argparse
+import os
+import re
+import sys
+
+BASE_CONTROLLER = 'com.android.settings.core.BasePreferenceController'
+OUTPUT_PACKAGE = 'com.android.settings.core'
+OUTPUT_CLASS = 'PreferenceControllerFactories'
+
+# Keeps each switch far below the 64KB method size limit.
+MAX_CASES_PER_SHARD = 200
+
+CONTROLLER_ATTR = re.compile(r'settings:controller\s*=\s*"([\w.$]+)"')
+COMMENT = re.compile(r'//[^\n]*|/\*.*?\*/', re.DOTALL)
+STRING_LITERAL = re.compile(r'"(?:\\.|[^"\\\n])*"')
+PACKAGE = re.compile(r'^\s*package\s+([\w.]+)\s*;', re.MULTILINE)
+IMPORT = re.compile(r'^\s*import\s+([\w.]+)\s*;', re.MULTILINE)
+ANNOTATIONS = r'(?:@[\w.]+\s+)*'
+MODIFIERS = ANNOTATIONS + r'(?:final\s+)?' + ANNOTATIONS
+CONTEXT_PARAM = MODIFIERS + r'(?:android\.content\.)?Context\s+\w+'
+STRING_PARAM = MODIFIERS + r'(?:java\.lang\.)?String\s+\w+'
+
+
+class JavaClass(object):
+    def __init__(self, name, is_concrete, super_class, has_context_constructor,
+                 has_context_and_key_constructor):
+        self.name = name
+        self.is_concrete = is_concrete
+        self.super_class = super_class
+        self.has_context_constructor = has_context_constructor
+        self.has_context_and_key_constructor = has_context_and_key_constructor
+
+
+def parse_java_class(path):
+    """Parses the top level class of the Java file, returns None if it's not a plain class."""
+    with open(path, encoding='utf-8') as f:
+        source = STRING_LITERAL.sub('""', COMMENT.sub(' ', f.read()))
+    simple_name = os.path.splitext(os.path.basename(path))[0]
+    package = PACKAGE.search(source)
+    declaration = re.search(
+        r'(?<![\w.])((?:(?:public|final|abstract|static)\s+)*)class\s+' + simple_name
+        + r'\b\s*(<)?[^{]*?(?:\bextends\s+([\w.]+))?\s*(?:<[^{]*?>)?\s*'
+        + r'(?:\bimplements\b[^{]*)?\{', source)
+    if not package or not declaration:
+        return None
+    modifiers = declaration.group(1).split()
+    if 'public' not in modifiers or declaration.group(2) or not declaration.group(3):
+        return None
+    imports = {name.rsplit('.', 1)[-1]: name for name in IMPORT.findall(source)}
+    super_class = declaration.group(3)
+    if '.' not in super_class:
+        super_class = imports.get(super_class, package.group(1) + '.' + super_class)
+    constructor = r'\bpublic\s+' + simple_name + r'\s*\(\s*' + CONTEXT_PARAM + r'\s*%s\)\s*\{'
+    return JavaClass(
+        name=package.group(1) + '.' + simple_name,
+        is_concrete='abstract' not in modifiers,
+        super_class=super_class,
+        has_context_constructor=bool(re.search(constructor % '', source)),
+        has_context_and_key_constructor=bool(
+            re.search(constructor % (r',\s*' + STRING_PARAM + r'\s*'), source)))
+
+
+def is_base_preference_controller(java_classes, name):
+    visited = set()
+    while name not in visited:
+        if name == BASE_CONTROLLER:
+            return True
+        visited.add(name)
+        java_class = java_classes.get(name)
+        if not java_class:
+            return False
+        name = java_class.super_class
+    return False
+
+
+def java_hash_code(value):
+    """Computes the String.hashCode() in Java, the controller names are all in ASCII."""
+    hash_code = 0
+    for char in value:
+        hash_code = (31 * hash_code + ord(char)) & 0xFFFFFFFF
+    return hash_code
+
+
+def write_switch(out, method, params, args, controllers):
+    shard_count = 1
+    while len(controllers) > shard_count * MAX_CASES_PER_SHARD:
+        shard_count *= 2
+    shards = [[] for _ in range(shard_count)]
+    for name in controllers:
+        shards[java_hash_code(name) & (shard_count - 1)].append(name)
+
+    out.write('    @Nullable\n')
+    out.write('    static BasePreferenceController %s(String controllerName, %s) {\n'
+              % (method, params))
+    if shard_count == 1:
+        out.write('        return %s0(controllerName, %s);\n' % (method, args))
+    else:
+        out.write('        switch (controllerName.hashCode() & %d) {\n' % (shard_count - 1))
+        for index in range(shard_count):
+            out.write('            case %d:\n' % index)
+            out.write('                return %s%d(controllerName, %s);\n'
+                      % (method, index, args))
+        out.write('            default:\n')
+        out.write('                return null;\n')
+        out.write('        }\n')
+    out.write('    }\n')
+
+    for index, shard in enumerate(shards):
+        out.write('\n')
+        out.write('    @Nullable\n')
+        out.write('    private static BasePreferenceController %s%d(String controllerName, %s) {\n'
+                  % (method, index, params))
+        out.write('        switch (controllerName) {\n')
+        for name in shard:
+            out.write('            case "%s":\n' % name)
+            out.write('                return new %s(%s);\n' % (name, args))
+        out.write('            default:\n')
+        out.write('                return null;\n')
+        out.write('        }\n')
+        out.write('    }\n')
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__)
+    parser.add_argument('--out', required=True, help='the generated Java file')
+    parser.add_argument('inputs', nargs='+', help='the preference xml and the Java sources')
+    args = parser.parse_args()
+
+    controller_names = set()
+    java_classes = {}
+    for path in args.inputs:
+        if path.endswith('.xml'):
+            with open(path, encoding='utf-8') as f:
+                controller_names.update(CONTROLLER_ATTR.findall(f.read()))
+        elif path.endswith('.java'):
+            java_class = parse_java_class(path)
+            if java_class:
+                java_classes[java_class.name] = java_class
+
+    context_controllers = []
+    context_and_key_controllers = []
+    for name in sorted(controller_names):
+        java_class = java_classes.get(name)
+        if (not java_class or not java_class.is_concrete
+                or not is_base_preference_controller(java_classes, name)):
+            continue
+        if java_class.has_context_constructor:
+            context_controllers.append(name)
+        if java_class.has_context_and_key_constructor:
+            context_and_key_controllers.append(name)
+
+    with open(args.out, 'w', encoding='utf-8') as out:
+        out.write('// Generated by %s, do not edit.\n\n' % os.path.basename(sys.argv[0]))
+        out.write('package %s;\n\n' % OUTPUT_PACKAGE)
+        out.write('import android.content.Context;\n\n')
+        out.write('import androidx.annotation.Nullable;\n\n')
+        out.write('/**\n')
+        out.write(' * Factories of the preference controllers declared in the preference xml, '
+                  'which return\n')
+        out.write(' * {@code null} for the controllers not generated.\n')
+        out.write(' */\n')
+        out.write('final class %s {\n\n' % OUTPUT_CLASS)
+        out.write('    private %s() {}\n\n' % OUTPUT_CLASS)
+        out.write('    /** Creates the controller with its (Context) constructor. */\n')
+        write_switch(out, 'create', 'Context context', 'context', context_controllers)
+        out.write('\n')
+        out.write('    /** Creates the controller with its (Context, String) constructor. */\n')
+        write_switch(out, 'create', 'Context context, String key', 'context, key',
+                     context_and_key_controllers)
+        out.write('}\n')
+
+
+if __name__ == '__main__':
+    main()